@@ -0,0 +1,47 @@
+package com.nium.virtualcardplatform.reactive;
+
+import com.nium.virtualcardplatform.reactive.model.Card;
+import com.nium.virtualcardplatform.reactive.model.Transaction;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.r2dbc.mapping.event.BeforeConvertCallback;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Reactive (WebFlux + R2DBC) variant of the card API: same /cards endpoints and optimistic-version
+ * semantics as the servlet application, for high fan-in traffic where thread-per-request is the limit.
+ */
+@SpringBootApplication
+public class ReactiveCardPlatformApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveCardPlatformApplication.class, args);
+	}
+
+	// R2DBC has no @GeneratedValue / @PrePersist: assign the ID and creation time on insert instead
+	@Bean
+	BeforeConvertCallback<Card> cardCreation() {
+		return (card, table) -> {
+			if (card.getId() == null) {
+				card.setId(UUID.randomUUID());
+				card.setCreatedAt(LocalDateTime.now());
+			}
+			return Mono.just(card);
+		};
+	}
+
+	@Bean
+	BeforeConvertCallback<Transaction> transactionCreation() {
+		return (transaction, table) -> {
+			if (transaction.getId() == null) {
+				transaction.setId(UUID.randomUUID());
+				transaction.setCreatedAt(LocalDateTime.now());
+			}
+			return Mono.just(transaction);
+		};
+	}
+}
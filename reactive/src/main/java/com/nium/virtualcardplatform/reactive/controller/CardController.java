@@ -0,0 +1,137 @@
+package com.nium.virtualcardplatform.reactive.controller;
+
+import com.nium.virtualcardplatform.reactive.model.Card;
+import com.nium.virtualcardplatform.reactive.model.Transaction;
+import com.nium.virtualcardplatform.reactive.service.CardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Same /cards endpoints, status codes and payloads as the servlet CardController, served by WebFlux:
+ * requests are handled on the event loop and never block a thread.
+ */
+@RestController
+@RequestMapping("/cards")
+public class CardController {
+
+    private final CardService cardService;
+
+    @Autowired
+    public CardController(CardService cardService) {
+        this.cardService = cardService;
+    }
+
+    /**
+     * Endpoint to create a new virtual card.
+     * POST /cards
+     * Request Body: {"cardholderName": "Alice", "initialBalance": 100.00}
+     */
+    @PostMapping
+    public Mono<ResponseEntity<Card>> createCard(@RequestBody Map<String, Object> payload) {
+        String cardholderName = (String) payload.get("cardholderName");
+        BigDecimal initialBalance = new BigDecimal(payload.get("initialBalance").toString());
+
+        // Basic validation for request payload
+        if (cardholderName == null || cardholderName.trim().isEmpty()) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        if (initialBalance.compareTo(BigDecimal.ZERO) < 0) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        return cardService.createCard(cardholderName, initialBalance)
+                .map(newCard -> new ResponseEntity<>(newCard, HttpStatus.CREATED)) // 201 Created
+                .onErrorReturn(IllegalArgumentException.class, new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+    }
+
+    /**
+     * Endpoint to get card details by ID.
+     * GET /cards/{id}
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Card>> getCardById(@PathVariable UUID id) {
+        return cardService.getCardById(id)
+                .map(card -> new ResponseEntity<>(card, HttpStatus.OK)) // 200 OK if found
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND)); // 404 Not Found if not found
+    }
+
+    /**
+     * Endpoint to add funds (top-up) to a card.
+     * POST /cards/{id}/topup
+     * Request Body: {"amount": 50.00}
+     */
+    @PostMapping("/{id}/topup")
+    public Mono<ResponseEntity<Card>> topUpCard(@PathVariable UUID id, @RequestBody Map<String, Object> payload) {
+        BigDecimal amount = new BigDecimal(payload.get("amount").toString());
+
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST)); // Invalid amount
+        }
+
+        return cardService.topUp(id, amount)
+                .map(updatedCard -> new ResponseEntity<>(updatedCard, HttpStatus.OK)) // 200 OK
+                .onErrorResume(e -> {
+                    if (e instanceof IllegalArgumentException) {
+                        return Mono.just(new ResponseEntity<>(HttpStatus.NOT_FOUND)); // Card not found
+                    }
+                    return Mono.just(errorResponse(e));
+                });
+    }
+
+    /**
+     * Endpoint to spend from a card.
+     * POST /cards/{id}/spend
+     * Request Body: {"amount": 30.00}
+     */
+    @PostMapping("/{id}/spend")
+    public Mono<ResponseEntity<Card>> spendFromCard(@PathVariable UUID id, @RequestBody Map<String, Object> payload) {
+        BigDecimal amount = new BigDecimal(payload.get("amount").toString());
+
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST)); // Invalid amount
+        }
+
+        return cardService.spend(id, amount)
+                .map(updatedCard -> new ResponseEntity<>(updatedCard, HttpStatus.OK)) // 200 OK
+                .onErrorResume(e -> {
+                    if (e instanceof IllegalArgumentException) {
+                        return Mono.just(new ResponseEntity<>(HttpStatus.NOT_FOUND)); // Card not found
+                    }
+                    if (e instanceof IllegalStateException) {
+                        return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST)); // Insufficient balance
+                    }
+                    return Mono.just(errorResponse(e));
+                });
+    }
+
+    private static <T> ResponseEntity<T> errorResponse(Throwable e) {
+        // Check if this is a concurrency-related error
+        if (e.getMessage() != null && e.getMessage().contains("concurrent modifications")) {
+            // Return 409 Conflict for concurrency issues that couldn't be resolved
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+        // Other exceptions should be treated as server errors
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * Endpoint to get transaction history for a card.
+     * GET /cards/{id}/transactions
+     * The history is streamed as a JSON array as rows are read.
+     */
+    @GetMapping("/{id}/transactions")
+    public Mono<ResponseEntity<Flux<Transaction>>> getCardTransactions(@PathVariable UUID id) {
+        // First, check if the card exists. If not, return 404.
+        return cardService.getCardById(id)
+                .map(card -> new ResponseEntity<>(cardService.getCardTransactions(id), HttpStatus.OK)) // 200 OK
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+}
@@ -0,0 +1,87 @@
+package com.nium.virtualcardplatform.reactive.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Table("cards")
+public class Card {
+
+    @Id // Assigned before the first insert (see ReactiveCardPlatformApplication)
+    private UUID id;
+
+    private String cardholderName;
+
+    private BigDecimal balance;
+
+    private LocalDateTime createdAt;
+
+    // Same optimistic-version semantics as the JPA entity: a null version means "new" (INSERT),
+    // updates run "... WHERE id = ? AND version = ?" and fail with OptimisticLockingFailureException
+    @Version
+    private Long version;
+
+    public Card() {}
+
+    public Card(String cardholderName, BigDecimal initialBalance) {
+        this.cardholderName = cardholderName;
+        this.balance = initialBalance;
+    }
+
+    // --- Getters and Setters ---
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public String getCardholderName() {
+        return cardholderName;
+    }
+
+    public void setCardholderName(String cardholderName) {
+        this.cardholderName = cardholderName;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    @Override
+    public String toString() {
+        return "Card{" +
+                "id=" + id +
+                ", cardholderName='" + cardholderName + '\'' +
+                ", balance=" + balance +
+                ", createdAt=" + createdAt +
+                ", version=" + version +
+                '}';
+    }
+}
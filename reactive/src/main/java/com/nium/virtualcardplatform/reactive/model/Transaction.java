@@ -0,0 +1,90 @@
+package com.nium.virtualcardplatform.reactive.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Table("transactions")
+public class Transaction {
+
+    @Id // Assigned before the first insert (see ReactiveCardPlatformApplication)
+    private UUID id;
+
+    private UUID cardId; // Associated card ID
+
+    private TransactionType type; // Stored as its name
+
+    private BigDecimal amount;
+
+    private LocalDateTime createdAt;
+
+    public Transaction() {}
+
+    public Transaction(UUID cardId, TransactionType type, BigDecimal amount) {
+        this.cardId = cardId;
+        this.type = type;
+        this.amount = amount;
+    }
+
+    // Enum for transaction types
+    public enum TransactionType {
+        SPEND,
+        TOPUP
+    }
+
+    // --- Getters and Setters ---
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getCardId() {
+        return cardId;
+    }
+
+    public void setCardId(UUID cardId) {
+        this.cardId = cardId;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public void setType(TransactionType type) {
+        this.type = type;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Transaction{" +
+                "id=" + id +
+                ", cardId=" + cardId +
+                ", type=" + type +
+                ", amount=" + amount +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
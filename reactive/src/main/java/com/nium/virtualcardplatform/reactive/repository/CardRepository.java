@@ -0,0 +1,12 @@
+package com.nium.virtualcardplatform.reactive.repository;
+
+import com.nium.virtualcardplatform.reactive.model.Card;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository // Reactive counterpart of the JPA CardRepository
+public interface CardRepository extends ReactiveCrudRepository<Card, UUID> {
+    // save() checks Card.version and emits OptimisticLockingFailureException on a concurrent update
+}
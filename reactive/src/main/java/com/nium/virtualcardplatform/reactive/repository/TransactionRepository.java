@@ -0,0 +1,15 @@
+package com.nium.virtualcardplatform.reactive.repository;
+
+import com.nium.virtualcardplatform.reactive.model.Transaction;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+@Repository
+public interface TransactionRepository extends ReactiveCrudRepository<Transaction, UUID> {
+
+    // Transaction history of a card, oldest first
+    Flux<Transaction> findByCardIdOrderByCreatedAt(UUID cardId);
+}
@@ -0,0 +1,179 @@
+package com.nium.virtualcardplatform.reactive.service;
+
+import com.nium.virtualcardplatform.reactive.model.Card;
+import com.nium.virtualcardplatform.reactive.model.Transaction;
+import com.nium.virtualcardplatform.reactive.repository.CardRepository;
+import com.nium.virtualcardplatform.reactive.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Reactive counterpart of CardService with the default (optimistic) strategy: read-modify-write relying on
+ * Card.version, each attempt in its own transaction. Version conflicts are retried after a full-jitter delay
+ * scheduled on a Reactor timer, bounded by the number of attempts and a per-request deadline, so no thread
+ * ever waits on a backoff or on the database.
+ *
+ * Error contract (same as the servlet application):
+ * - IllegalArgumentException if the amount is invalid or the card does not exist.
+ * - IllegalStateException if the card has insufficient balance (spend only).
+ * - RuntimeException mentioning "concurrent modifications" once no more retries are allowed.
+ */
+@Service
+public class CardService {
+
+    private final CardRepository cardRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final long deadlineMs;
+
+    @Autowired
+    public CardService(CardRepository cardRepository,
+                       TransactionRepository transactionRepository,
+                       TransactionalOperator transactionalOperator,
+                       @Value("${card.balance.optimistic.max-attempts:3}") int maxAttempts,
+                       @Value("${card.balance.retry.base-delay-ms:10}") long baseDelayMs,
+                       @Value("${card.balance.retry.max-delay-ms:200}") long maxDelayMs,
+                       @Value("${card.balance.retry.deadline-ms:2000}") long deadlineMs) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Max retry attempts must be a positive number.");
+        }
+        this.cardRepository = cardRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.deadlineMs = deadlineMs;
+    }
+
+    /**
+     * Creates a new virtual card with an initial balance.
+     * @param cardholderName The name of the cardholder.
+     * @param initialBalance The initial balance for the card.
+     * @return The created Card, or an IllegalArgumentException if the initial balance is negative.
+     */
+    public Mono<Card> createCard(String cardholderName, BigDecimal initialBalance) {
+        if (initialBalance.compareTo(BigDecimal.ZERO) < 0) {
+            return Mono.error(new IllegalArgumentException("Initial balance cannot be negative."));
+        }
+        return cardRepository.save(new Card(cardholderName, initialBalance));
+    }
+
+    /**
+     * Retrieves a card by its ID.
+     * @param cardId The ID of the card.
+     * @return The Card, or empty if not found.
+     */
+    public Mono<Card> getCardById(UUID cardId) {
+        return cardRepository.findById(cardId);
+    }
+
+    /**
+     * Processes a spend transaction for a card.
+     * @param cardId The ID of the card.
+     * @param amount The amount to spend.
+     * @return The updated Card after the transaction.
+     */
+    public Mono<Card> spend(UUID cardId, BigDecimal amount) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return Mono.error(new IllegalArgumentException("Spend amount must be a positive number greater than zero."));
+        }
+        return withOptimisticRetries("spend transaction", cardId, card -> {
+            if (card.getBalance().compareTo(amount) < 0) {
+                return Mono.error(new IllegalStateException("Insufficient balance for card ID: " + cardId));
+            }
+            card.setBalance(card.getBalance().subtract(amount));
+            return record(card, Transaction.TransactionType.SPEND, amount);
+        });
+    }
+
+    /**
+     * Processes a top-up transaction for a card.
+     * @param cardId The ID of the card.
+     * @param amount The amount to top-up.
+     * @return The updated Card after the transaction.
+     */
+    public Mono<Card> topUp(UUID cardId, BigDecimal amount) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return Mono.error(new IllegalArgumentException("Top-up amount must be a positive number greater than zero."));
+        }
+        return withOptimisticRetries("top-up transaction", cardId, card -> {
+            card.setBalance(card.getBalance().add(amount));
+            return record(card, Transaction.TransactionType.TOPUP, amount);
+        });
+    }
+
+    /**
+     * Retrieves all transactions for a specific card, oldest first.
+     * @param cardId The ID of the card.
+     * @return The Transaction objects of the card.
+     */
+    public Flux<Transaction> getCardTransactions(UUID cardId) {
+        return transactionRepository.findByCardIdOrderByCreatedAt(cardId);
+    }
+
+    // Saves the card (version check) and, only if it succeeded, records the transaction
+    private Mono<Card> record(Card card, Transaction.TransactionType type, BigDecimal amount) {
+        return cardRepository.save(card)
+                .flatMap(updatedCard -> transactionRepository.save(new Transaction(updatedCard.getId(), type, amount))
+                        .thenReturn(updatedCard));
+    }
+
+    /**
+     * Loads the card and applies the mutation in a fresh transaction, re-running both on version conflicts.
+     */
+    private Mono<Card> withOptimisticRetries(String description, UUID cardId, Function<Card, Mono<Card>> mutation) {
+        Mono<Card> attempt = cardRepository.findById(cardId)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Card not found with ID: " + cardId)))
+                .flatMap(mutation)
+                .as(transactionalOperator::transactional);
+
+        return Mono.defer(() -> {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+            return attempt.retryWhen(Retry.from(failures -> failures.concatMap(failure -> {
+                // Business errors (not found, insufficient balance) fail right away, only version conflicts are retried
+                if (!(failure.failure() instanceof OptimisticLockingFailureException)) {
+                    return Mono.error(failure.failure());
+                }
+                long attempts = failure.totalRetries() + 1;
+                long delayMs = fullJitterDelay(attempts);
+                if (attempts >= maxAttempts) {
+                    return Mono.error(concurrentModifications(description, attempts, "", failure.failure()));
+                }
+                if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs) > deadline) {
+                    return Mono.error(concurrentModifications(description, attempts, " Retry deadline exceeded.",
+                            failure.failure()));
+                }
+                return Mono.delay(Duration.ofMillis(delayMs));
+            })));
+        });
+    }
+
+    private static RuntimeException concurrentModifications(String description, long attempts, String detail,
+                                                            Throwable lastFailure) {
+        return new RuntimeException("Unable to complete " + description + " after " + attempts
+                + " attempts due to concurrent modifications. The @Version field detected concurrent updates." + detail,
+                lastFailure);
+    }
+
+    long fullJitterDelay(long attempt) {
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
@@ -0,0 +1,15 @@
+CREATE TABLE IF NOT EXISTS cards (
+    id UUID PRIMARY KEY,
+    cardholder_name VARCHAR(255) NOT NULL,
+    balance NUMERIC(38, 2) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    version BIGINT
+);
+
+CREATE TABLE IF NOT EXISTS transactions (
+    id UUID PRIMARY KEY,
+    card_id UUID NOT NULL,
+    type VARCHAR(255) NOT NULL,
+    amount NUMERIC(38, 2) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,258 @@
+package com.nium.virtualcardplatform.reactive;
+
+import com.nium.virtualcardplatform.reactive.model.Card;
+import com.nium.virtualcardplatform.reactive.model.Transaction;
+import com.nium.virtualcardplatform.reactive.repository.CardRepository;
+import com.nium.virtualcardplatform.reactive.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Equivalent of CardIntegrationTest (servlet application) against the reactive stack:
+ * same requests, same expected status codes, balances and transaction history.
+ */
+// Immediate shutdown: the pooled keep-alive connections of the concurrent test would otherwise hold
+// Netty's graceful shutdown for the whole lifecycle timeout when the test JVM exits
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "server.shutdown=immediate")
+class ReactiveCardIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @BeforeEach
+    void setUp() {
+        // We clean the database before each test to ensure a clean state
+        transactionRepository.deleteAll().block();
+        cardRepository.deleteAll().block();
+        webTestClient = webTestClient.mutate().responseTimeout(Duration.ofSeconds(30)).build();
+    }
+
+    @Test
+    void testCreateCard_and_GetCardById_shouldReturnCreatedCard() {
+        // Given: Request to create a new card
+        String cardholderName = "John Doe";
+        BigDecimal initialBalance = BigDecimal.valueOf(100.00);
+        Map<String, Object> requestBody = Map.of(
+                "cardholderName", cardholderName,
+                "initialBalance", initialBalance);
+
+        // When: We make the POST request to the creation endpoint
+        Card createdCard = webTestClient.post().uri("/cards").bodyValue(requestBody)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Card.class).returnResult().getResponseBody();
+
+        // Then: Verify that the card was created correctly
+        assertThat(createdCard).isNotNull();
+        assertThat(createdCard.getId()).isNotNull();
+        assertThat(createdCard.getCardholderName()).isEqualTo(cardholderName);
+        assertThat(createdCard.getBalance()).isEqualByComparingTo(initialBalance);
+
+        // When: We make the GET request to get the card by ID
+        Card retrievedCard = webTestClient.get().uri("/cards/" + createdCard.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Card.class).returnResult().getResponseBody();
+
+        // Then: Verify that the correct card is returned
+        assertThat(retrievedCard).isNotNull();
+        assertThat(retrievedCard.getId()).isEqualTo(createdCard.getId());
+        assertThat(retrievedCard.getBalance()).isEqualByComparingTo(initialBalance);
+    }
+
+    @Test
+    void testCreateCard_withInvalidInitialBalance_shouldReturnBadRequest() {
+        // Given: a request with a negative initial balance
+        Map<String, Object> requestBody = Map.of(
+                "cardholderName", "John Doe",
+                "initialBalance", BigDecimal.valueOf(-10.00));
+
+        // When / Then: we should get a Bad Request status and no card should be created
+        webTestClient.post().uri("/cards").bodyValue(requestBody)
+                .exchange()
+                .expectStatus().isBadRequest();
+        assertThat(cardRepository.count().block()).isEqualTo(0);
+    }
+
+    @Test
+    void testSpendAndTopUpTransactions_shouldUpdateBalanceAndRecordTransactions() {
+        // Given: Create a card with an initial balance of 100.00
+        UUID cardId = cardRepository.save(new Card("Jane Doe", BigDecimal.valueOf(100.00))).block().getId();
+
+        // When: Spend 25.00
+        Card cardAfterSpend = post(cardId, "spend", BigDecimal.valueOf(25.00))
+                .expectStatus().isOk()
+                .expectBody(Card.class).returnResult().getResponseBody();
+
+        // Then: Verify balance
+        assertThat(cardAfterSpend.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(75.00));
+
+        // When: Top up with 50.00
+        Card cardAfterTopUp = post(cardId, "topup", BigDecimal.valueOf(50.00))
+                .expectStatus().isOk()
+                .expectBody(Card.class).returnResult().getResponseBody();
+
+        // Then: Verify balance
+        assertThat(cardAfterTopUp.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(125.00));
+
+        // And: Verify transaction history
+        List<Transaction> transactions = webTestClient.get().uri("/cards/" + cardId + "/transactions")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Transaction.class).returnResult().getResponseBody();
+        assertThat(transactions).hasSize(2);
+
+        // Verify first transaction (spend)
+        assertThat(transactions.get(0).getType()).isEqualTo(Transaction.TransactionType.SPEND);
+        assertThat(transactions.get(0).getAmount()).isEqualByComparingTo(BigDecimal.valueOf(25.00));
+
+        // Verify second transaction (top-up)
+        assertThat(transactions.get(1).getType()).isEqualTo(Transaction.TransactionType.TOPUP);
+        assertThat(transactions.get(1).getAmount()).isEqualByComparingTo(BigDecimal.valueOf(50.00));
+    }
+
+    @Test
+    void testSpend_withInsufficientBalance_shouldReturnBadRequest() {
+        // Given: A card with a balance of 50.00
+        UUID cardId = cardRepository.save(new Card("Test User", BigDecimal.valueOf(50.00))).block().getId();
+
+        // When: Attempt to spend 75.00
+        // Then: The response should be a Bad Request (400) and the balance should not change
+        post(cardId, "spend", BigDecimal.valueOf(75.00)).expectStatus().isBadRequest();
+        assertThat(cardRepository.findById(cardId).block().getBalance()).isEqualByComparingTo(BigDecimal.valueOf(50.00));
+        assertThat(transactionRepository.findByCardIdOrderByCreatedAt(cardId).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void testSpend_withInvalidAmount_shouldReturnBadRequest() {
+        // Given: A card with a positive balance
+        UUID cardId = cardRepository.save(new Card("Test User", BigDecimal.valueOf(100.00))).block().getId();
+
+        // When / Then: negative and zero amounts are rejected with Bad Request (400)
+        post(cardId, "spend", BigDecimal.valueOf(-10.00)).expectStatus().isBadRequest();
+        post(cardId, "spend", BigDecimal.valueOf(0.00)).expectStatus().isBadRequest();
+
+        // And: The balance should not have changed and no transactions should be recorded
+        assertThat(cardRepository.findById(cardId).block().getBalance()).isEqualByComparingTo(BigDecimal.valueOf(100.00));
+        assertThat(transactionRepository.findByCardIdOrderByCreatedAt(cardId).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void testTopUp_withInvalidAmount_shouldReturnBadRequest() {
+        // Given: A card with a positive balance
+        UUID cardId = cardRepository.save(new Card("Test User", BigDecimal.valueOf(100.00))).block().getId();
+
+        // When / Then: negative and zero amounts are rejected with Bad Request (400)
+        post(cardId, "topup", BigDecimal.valueOf(-10.00)).expectStatus().isBadRequest();
+        post(cardId, "topup", BigDecimal.valueOf(0.00)).expectStatus().isBadRequest();
+
+        // And: The balance should not have changed and no transactions should be recorded
+        assertThat(cardRepository.findById(cardId).block().getBalance()).isEqualByComparingTo(BigDecimal.valueOf(100.00));
+        assertThat(transactionRepository.findByCardIdOrderByCreatedAt(cardId).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void testSpend_onNonExistentCard_shouldReturnNotFound() {
+        post(UUID.randomUUID(), "spend", BigDecimal.valueOf(10.00)).expectStatus().isNotFound();
+    }
+
+    @Test
+    void testTopUp_onNonExistentCard_shouldReturnNotFound() {
+        post(UUID.randomUUID(), "topup", BigDecimal.valueOf(10.00)).expectStatus().isNotFound();
+    }
+
+    @Test
+    void testGetTransactions_onNonExistentCard_shouldReturnNotFound() {
+        webTestClient.get().uri("/cards/" + UUID.randomUUID() + "/transactions")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testConcurrentSpend_shouldMaintainDataIntegrity() throws InterruptedException {
+        // Given: a card with an initial balance of 1000.00
+        UUID cardId = cardRepository.save(new Card("Concurrency Test", BigDecimal.valueOf(1000.00))).block().getId();
+
+        int numberOfConcurrentRequests = 100;
+        BigDecimal spendAmount = BigDecimal.valueOf(10.00);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch endLatch = new CountDownLatch(numberOfConcurrentRequests);
+        AtomicInteger successCount = new AtomicInteger(0);
+        AtomicInteger failureCount = new AtomicInteger(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(20); // Pool of 20 threads for higher concurrency
+
+        // When: we send multiple concurrent spend requests
+        for (int i = 0; i < numberOfConcurrentRequests; i++) {
+            executor.submit(() -> {
+                try {
+                    // Wait for all threads to be ready
+                    startLatch.await();
+                    HttpStatus status = HttpStatus.valueOf(post(cardId, "spend", spendAmount)
+                            .expectBody().returnResult().getStatus().value());
+                    if (status.is2xxSuccessful()) {
+                        successCount.incrementAndGet();
+                    } else {
+                        // 400 (insufficient balance) or 409 (conflict after retries)
+                        failureCount.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    System.err.println("Unexpected error: " + e.getMessage());
+                    failureCount.incrementAndGet();
+                } finally {
+                    endLatch.countDown();
+                }
+            });
+        }
+
+        // Start all threads simultaneously to maximize concurrency
+        startLatch.countDown();
+
+        // Wait for all requests to finish with a reasonable timeout
+        assertThat(endLatch.await(60, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        // Then: The final balance should be the initial balance minus the total spent amount
+        Card finalCard = cardRepository.findById(cardId).block();
+        BigDecimal expectedFinalBalance = BigDecimal.valueOf(1000.00)
+                .subtract(spendAmount.multiply(BigDecimal.valueOf(successCount.get())));
+        assertThat(finalCard.getBalance()).isEqualByComparingTo(expectedFinalBalance);
+
+        // And: The number of transactions recorded should match the number of successful requests
+        assertThat(transactionRepository.findByCardIdOrderByCreatedAt(cardId).count().block())
+                .isEqualTo(successCount.get());
+        assertThat(successCount.get() + failureCount.get()).isEqualTo(numberOfConcurrentRequests);
+
+        // In high concurrency, some failures are expected, but most should succeed
+        assertThat(successCount.get()).isGreaterThan(numberOfConcurrentRequests / 2);
+    }
+
+    private WebTestClient.ResponseSpec post(UUID cardId, String operation, BigDecimal amount) {
+        return webTestClient.post().uri("/cards/" + cardId + "/" + operation)
+                .bodyValue(Map.of("amount", amount))
+                .exchange();
+    }
+}
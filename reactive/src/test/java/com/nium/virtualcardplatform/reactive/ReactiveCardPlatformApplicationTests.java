@@ -0,0 +1,13 @@
+package com.nium.virtualcardplatform.reactive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class ReactiveCardPlatformApplicationTests {
+
+	@Test
+	void contextLoads() {
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.nium.virtualcardplatform.reactive.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Minimal closed-loop HTTP load generator shared by the benchmarks: a fixed number of client threads
+ * send JSON POST requests back to back and the runner reports throughput, latency percentiles and
+ * the count of each status code.
+ */
+final class HttpLoadRunner {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    /**
+     * Sends {@code requests} POST requests using {@code concurrency} client threads.
+     * @param name Label printed with the result.
+     * @param baseUrl Base URL of the application, e.g. http://localhost:8080
+     * @param pathForRequest Returns the path of the n-th request.
+     * @param body JSON body sent with every request.
+     */
+    Result run(String name, String baseUrl, IntFunction<String> pathForRequest, String body,
+               int requests, int concurrency) throws InterruptedException {
+        long[] latencies = new long[requests];
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+
+        long start = System.nanoTime();
+        for (int t = 0; t < concurrency; t++) {
+            clients.submit(() -> {
+                try {
+                    int n;
+                    while ((n = next.getAndIncrement()) < requests) {
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + pathForRequest.apply(n)))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(body))
+                                .build();
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            statuses.computeIfAbsent(response.statusCode(), code -> new AtomicInteger()).incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[n] = System.nanoTime() - sent;
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await(10, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+        clients.shutdown();
+
+        Arrays.sort(latencies);
+        Map<Integer, Integer> statusCounts = new TreeMap<>();
+        statuses.forEach((code, count) -> statusCounts.put(code, count.get()));
+        Result result = new Result(name, requests, elapsed, percentile(latencies, 0.50), percentile(latencies, 0.99),
+                statusCounts, errors.get());
+        System.out.println(result);
+        return result;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    record Result(String name, int requests, long elapsedNanos, long p50Nanos, long p99Nanos,
+                  Map<Integer, Integer> statusCounts, long errors) {
+
+        double throughput() {
+            return requests / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[benchmark] %-40s %8.1f req/s  p50=%6.2f ms  p99=%7.2f ms  statuses=%s  errors=%d",
+                    name, throughput(), p50Nanos / 1_000_000.0, p99Nanos / 1_000_000.0, statusCounts, errors);
+        }
+    }
+}
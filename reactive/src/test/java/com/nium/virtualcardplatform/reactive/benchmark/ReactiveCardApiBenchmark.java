@@ -0,0 +1,54 @@
+package com.nium.virtualcardplatform.reactive.benchmark;
+
+import com.nium.virtualcardplatform.reactive.ReactiveCardPlatformApplication;
+import com.nium.virtualcardplatform.reactive.model.Card;
+import com.nium.virtualcardplatform.reactive.repository.CardRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Throughput and latency of the reactive stack under the concurrent spend scenario, with the same requests,
+ * client concurrency levels and cards as VirtualThreadsBenchmark of the servlet application, so the printed
+ * results can be compared line by line.
+ * Run with: mvn test -Pbenchmark -Dtest=ReactiveCardApiBenchmark
+ */
+@Tag("benchmark")
+class ReactiveCardApiBenchmark {
+
+    private static final int REQUESTS = 4_000;
+    private static final int[] CONCURRENCY = {32, 400};
+    private static final int SPREAD_CARDS = 64;
+
+    @Test
+    void spendThroughput() throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ReactiveCardPlatformApplication.class)
+                .properties("server.port=0")
+                .run()) {
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            CardRepository cardRepository = context.getBean(CardRepository.class);
+            HttpLoadRunner runner = new HttpLoadRunner();
+            String body = "{\"amount\": 1.00}";
+
+            UUID hotCard = cardRepository.save(new Card("Hot card", BigDecimal.valueOf(1_000_000))).block().getId();
+            List<UUID> cards = new ArrayList<>();
+            for (int i = 0; i < SPREAD_CARDS; i++) {
+                cards.add(cardRepository.save(new Card("Card " + i, BigDecimal.valueOf(1_000_000))).block().getId());
+            }
+
+            for (int concurrency : CONCURRENCY) {
+                runner.run("reactive / hot card / " + concurrency + " clients", baseUrl,
+                        n -> "/cards/" + hotCard + "/spend", body, REQUESTS, concurrency);
+                runner.run("reactive / " + SPREAD_CARDS + " cards / " + concurrency + " clients", baseUrl,
+                        n -> "/cards/" + cards.get(n % SPREAD_CARDS) + "/spend", body, REQUESTS, concurrency);
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.nium.virtualcardplatform.controller;
+
+import com.nium.virtualcardplatform.model.Money;
+
+/**
+ * Body of spend and top-up requests: {"amount": 30.00}. The amount is read from the JSON text as a Money, without the
+ * intermediate Map, double and BigDecimal of an untyped body; an amount that is not a number or has more than
+ * Money.SCALE decimals is rejected with 400 by Jackson.
+ */
+record AmountRequest(Money amount) {
+}
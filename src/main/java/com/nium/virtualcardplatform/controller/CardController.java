@@ -1,27 +1,83 @@
 package com.nium.virtualcardplatform.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
 import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.model.TransactionRow;
+import com.nium.virtualcardplatform.service.BatchTransaction;
+import com.nium.virtualcardplatform.service.BatchTransactionResult;
+import com.nium.virtualcardplatform.service.CardPage;
 import com.nium.virtualcardplatform.service.CardService;
+import com.nium.virtualcardplatform.service.IdempotencyService;
+import com.nium.virtualcardplatform.service.NewCard;
+import com.nium.virtualcardplatform.service.TransactionCursor;
+import com.nium.virtualcardplatform.service.TransactionHistory;
+import com.nium.virtualcardplatform.service.TransactionPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import java.math.BigDecimal;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/cards")
 public class CardController {
 
     private final CardService cardService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+    private final int maxBatchSize;
+    private final int maxBulkSize;
+    private final int bulkChunkSize;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int defaultCardPageSize;
+    private final int maxCardPageSize;
 
     @Autowired
-    public CardController(CardService cardService) {
+    public CardController(CardService cardService, IdempotencyService idempotencyService, ObjectMapper objectMapper,
+                          @Value("${card.batch.max-size:1000}") int maxBatchSize,
+                          @Value("${card.bulk.max-size:100000}") int maxBulkSize,
+                          @Value("${card.bulk.chunk-size:1000}") int bulkChunkSize,
+                          @Value("${card.transactions.page.default-size:100}") int defaultPageSize,
+                          @Value("${card.transactions.page.max-size:1000}") int maxPageSize,
+                          @Value("${card.list.page.default-size:100}") int defaultCardPageSize,
+                          @Value("${card.list.page.max-size:1000}") int maxCardPageSize) {
         this.cardService = cardService;
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBulkSize = maxBulkSize;
+        this.bulkChunkSize = bulkChunkSize;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.defaultCardPageSize = defaultCardPageSize;
+        this.maxCardPageSize = maxCardPageSize;
     }
 
     /**
@@ -32,13 +88,13 @@ public class CardController {
     @PostMapping
     public ResponseEntity<Card> createCard(@RequestBody Map<String, Object> payload) {
         String cardholderName = (String) payload.get("cardholderName");
-        BigDecimal initialBalance = new BigDecimal(payload.get("initialBalance").toString());
+        Money initialBalance = toAmount(payload.get("initialBalance"));
 
         // Basic validation for request payload
         if (cardholderName == null || cardholderName.trim().isEmpty()) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
-        if (initialBalance == null || initialBalance.compareTo(BigDecimal.ZERO) < 0) {
+        if (initialBalance == null || initialBalance.signum() < 0) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
@@ -50,92 +106,380 @@ public class CardController {
         }
     }
 
+    /**
+     * Endpoint to issue many cards in one call.
+     * POST /cards/bulk
+     * Request Body: [{"cardholderName": "Alice", "initialBalance": 100.00}, {"cardholderName": "Bob", "initialBalance": 0}]
+     * Returns 201 with the IDs of the created cards, in request order, as a JSON array streamed while the cards are
+     * inserted: each chunk of card.bulk.chunk-size cards is created in its own transaction and its IDs written right
+     * after the commit. Returns 400 (and creates nothing) if an item is missing (null) or invalid, or there are more
+     * than card.bulk.max-size items: the whole list is checked before the 201 is sent. Like the exports, the response
+     * may take up to card.export.timeout-ms. If a chunk fails, the cards of the previous chunks remain and the array
+     * is truncated.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<StreamingResponseBody> createCards(@RequestBody List<NewCard> cards, WebRequest request) {
+        if (cards.size() > maxBulkSize || !cards.stream().allMatch(card -> card != null && card.isValid())) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        // Written for longer than the default async request timeout (see ExportTimeoutConfigurer)
+        request.setAttribute(ExportTimeoutConfigurer.EXPORT_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        StreamingResponseBody body = output -> {
+            Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+            writer.write('[');
+            for (int from = 0; from < cards.size(); from += bulkChunkSize) {
+                List<UUID> ids = cardService.createCards(cards.subList(from, Math.min(from + bulkChunkSize, cards.size())));
+                for (int i = 0; i < ids.size(); i++) {
+                    if (from > 0 || i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write('"');
+                    writer.write(ids.get(i).toString());
+                    writer.write('"');
+                }
+                writer.flush();
+            }
+            writer.write(']');
+            writer.flush();
+        };
+        return ResponseEntity.status(HttpStatus.CREATED).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Endpoint to list all cards, one page at a time (ordered by ID).
+     * GET /cards?limit=100&after={cardId}
+     * limit defaults to card.list.page.default-size and is capped at card.list.page.max-size. When there are more
+     * cards, a Link header (rel="next") gives the URL of the next page, whose after parameter is the ID of the last
+     * card returned.
+     */
+    @GetMapping
+    public ResponseEntity<List<Card>> getCards(@RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) UUID after) {
+        if (limit != null && limit < 1) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        int pageSize = limit != null ? Math.min(limit, maxCardPageSize) : defaultCardPageSize;
+        CardPage page = cardService.getCards(after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            response.header(HttpHeaders.LINK, nextLink(pageSize, page.next().toString()));
+        }
+        return response.body(page.cards());
+    }
+
+    /**
+     * Endpoint to stream all cards (ordered by ID) in one response, one JSON object per line.
+     * GET /cards with Accept: application/x-ndjson
+     * The cards are written while they are read from the database, so memory use does not depend on their number.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCards(WebRequest request) {
+        // Written for longer than the default async request timeout (see ExportTimeoutConfigurer)
+        request.setAttribute(ExportTimeoutConfigurer.EXPORT_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        StreamingResponseBody body = output -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+            try {
+                cardService.streamCards(card -> {
+                    try {
+                        writer.write(objectMapper.writeValueAsString(card));
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e); // Client gone: closes the database cursor
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * Endpoint to get card details by ID.
      * GET /cards/{id}
+     * The response carries an ETag of the card state; with a matching If-None-Match header, 304 Not Modified is
+     * returned without loading the card (see CardService.getCardStateTag).
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Card> getCardById(@PathVariable UUID id) {
+    public ResponseEntity<Card> getCardById(@PathVariable UUID id, WebRequest request) {
+        // The tag is read before the card, so the card served is never older than its tag
+        Optional<String> tag = cardService.getCardStateTag(id);
+        if (tag.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found if not found
+        }
+        if (request.checkNotModified(tag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag.get()).build();
+        }
         return cardService.getCardById(id)
-                .map(card -> new ResponseEntity<>(card, HttpStatus.OK)) // 200 OK if found
-                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND)); // 404 Not Found if not found
+                .map(card -> ResponseEntity.ok().eTag(tag.get()).body(card)) // 200 OK if found
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
     /**
      * Endpoint to add funds (top-up) to a card.
      * POST /cards/{id}/topup
      * Request Body: {"amount": 50.00}
+     * Optional header: Idempotency-Key (see IdempotencyService)
+     * The response is written asynchronously: the request thread is released while retries are pending.
      */
     @PostMapping("/{id}/topup")
-    public ResponseEntity<Card> topUpCard(@PathVariable UUID id, @RequestBody Map<String, Object> payload) {
-        BigDecimal amount = new BigDecimal(payload.get("amount").toString());
+    public CompletableFuture<ResponseEntity<Card>> topUpCard(@PathVariable UUID id, @RequestBody AmountRequest payload,
+                                                             @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        Money amount = payload.amount();
 
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // Invalid amount
+        if (amount == null || amount.signum() <= 0) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST)); // Invalid amount
         }
-
-        try {
-            Card updatedCard = cardService.topUp(id, amount);
-            return new ResponseEntity<>(updatedCard, HttpStatus.OK); // 200 OK
-        } catch (IllegalArgumentException e) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND); // Card not found
-        } catch (RuntimeException e) {
-            // Check if this is a concurrency-related error
-            if (e.getMessage() != null && e.getMessage().contains("concurrent modifications")) {
-                // Return 409 Conflict for concurrency issues that couldn't be resolved
-                return new ResponseEntity<>(HttpStatus.CONFLICT);
-            }
-            // Other runtime exceptions should be treated as server errors
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        } catch (Exception e) {
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        if (idempotencyKey != null && !IdempotencyService.isValidKey(idempotencyKey)) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
         }
+
+        return idempotencyService.execute(idempotencyKey, Transaction.TransactionType.TOPUP, id, amount,
+                () -> cardService.topUpAsync(id, amount)
+                        .thenApply(updatedCard -> new ResponseEntity<>(updatedCard, HttpStatus.OK)) // 200 OK
+                        .exceptionally(error -> {
+                            Throwable e = unwrap(error);
+                            if (e instanceof IllegalArgumentException) {
+                                return new ResponseEntity<>(HttpStatus.NOT_FOUND); // Card not found
+                            }
+                            return errorResponse(e);
+                        }));
     }
 
     /**
      * Endpoint to spend from a card.
      * POST /cards/{id}/spend
      * Request Body: {"amount": 30.00}
+     * Optional header: Idempotency-Key (see IdempotencyService)
+     * The response is written asynchronously: the request thread is released while retries are pending.
      */
     @PostMapping("/{id}/spend")
-    public ResponseEntity<Card> spendFromCard(@PathVariable UUID id, @RequestBody Map<String, Object> payload) {
-        BigDecimal amount = new BigDecimal(payload.get("amount").toString());
+    public CompletableFuture<ResponseEntity<Card>> spendFromCard(@PathVariable UUID id, @RequestBody AmountRequest payload,
+                                                                 @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        Money amount = payload.amount();
+
+        if (amount == null || amount.signum() <= 0) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST)); // Invalid amount
+        }
+        if (idempotencyKey != null && !IdempotencyService.isValidKey(idempotencyKey)) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        return idempotencyService.execute(idempotencyKey, Transaction.TransactionType.SPEND, id, amount,
+                () -> cardService.spendAsync(id, amount)
+                        .thenApply(updatedCard -> new ResponseEntity<>(updatedCard, HttpStatus.OK)) // 200 OK
+                        .exceptionally(error -> {
+                            Throwable e = unwrap(error);
+                            if (e instanceof IllegalArgumentException) {
+                                return new ResponseEntity<>(HttpStatus.NOT_FOUND); // Card not found
+                            }
+                            if (e instanceof IllegalStateException) {
+                                return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request for insufficient balance
+                            }
+                            return errorResponse(e);
+                        }));
+    }
 
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // Invalid amount
+    /**
+     * Endpoint to apply many spend / top-up transactions in one call (e.g. settlement jobs).
+     * POST /cards/transactions/batch
+     * Request Body: [{"cardId": "...", "type": "SPEND", "amount": 30.00}, {"cardId": "...", "type": "TOPUP", "amount": 5.00}]
+     * Transactions of the same card are applied in request order. The response holds one result per item, in
+     * request order, with status OK (and the updated card), INSUFFICIENT_BALANCE, NOT_FOUND, CONFLICT, INVALID
+     * (malformed or null item) or ERROR. Returns 400 if the batch exceeds card.batch.max-size items.
+     */
+    @PostMapping("/transactions/batch")
+    public CompletableFuture<ResponseEntity<List<BatchTransactionResult>>> applyBatch(@RequestBody List<Map<String, Object>> payload) {
+        if (payload.size() > maxBatchSize) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
         }
+        List<BatchTransaction> transactions = payload.stream().map(CardController::toBatchTransaction).toList();
+        return cardService.applyBatch(transactions)
+                .thenApply(results -> new ResponseEntity<>(results, HttpStatus.OK));
+    }
 
+    // Unparsable fields are left null, and a null item has no fields: the item is then reported as INVALID
+    private static BatchTransaction toBatchTransaction(Map<String, Object> item) {
+        UUID cardId = null;
+        Transaction.TransactionType type = null;
+        if (item == null) {
+            return new BatchTransaction(null, null, null);
+        }
         try {
-            Card updatedCard = cardService.spend(id, amount);
-            return new ResponseEntity<>(updatedCard, HttpStatus.OK); // 200 OK
-        } catch (IllegalArgumentException e) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND); // Card not found
-        } catch (IllegalStateException e) {
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request for insufficient balance
-        } catch (RuntimeException e) {
-            // Check if this is a concurrency-related error
-            if (e.getMessage() != null && e.getMessage().contains("concurrent modifications")) {
-                // Return 409 Conflict for concurrency issues that couldn't be resolved
-                return new ResponseEntity<>(HttpStatus.CONFLICT);
-            }
-            // Other runtime exceptions should be treated as server errors
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        } catch (Exception e) {
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            cardId = item.get("cardId") != null ? UUID.fromString(item.get("cardId").toString()) : null;
+        } catch (IllegalArgumentException ignored) {
+            // Not a UUID
+        }
+        try {
+            type = item.get("type") != null
+                    ? Transaction.TransactionType.valueOf(item.get("type").toString().toUpperCase())
+                    : null;
+        } catch (IllegalArgumentException ignored) {
+            // Neither SPEND nor TOPUP
+        }
+        return new BatchTransaction(cardId, type, toAmount(item.get("amount")));
+    }
+
+    // Null if missing, not a number or with more than Money.SCALE decimals
+    private static Money toAmount(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Money.parse(value.toString());
+        } catch (NumberFormatException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static <T> ResponseEntity<T> errorResponse(Throwable e) {
+        // The strategy is at capacity (full shard mailbox or ring, journal backlog): the client may retry later
+        if (e instanceof RejectedExecutionException || e.getCause() instanceof RejectedExecutionException) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        // Check if this is a concurrency-related error
+        if (e.getMessage() != null && e.getMessage().contains("concurrent modifications")) {
+            // Return 409 Conflict for concurrency issues that couldn't be resolved
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         }
+        // Other exceptions should be treated as server errors
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
     /**
-     * Endpoint to get transaction history for a card.
-     * GET /cards/{id}/transactions
+     * Endpoint to export the full transaction history of a card, for audits.
+     * GET /cards/{id}/transactions/export?format=ndjson|csv
+     * The transactions are written oldest first while they are read from the database, so memory use does not
+     * depend on the number of transactions. The response may take up to card.export.timeout-ms. Returns 404 if the card does not exist, 400 for an unknown format.
      */
-    @GetMapping("/{id}/transactions")
-    public ResponseEntity<List<Transaction>> getCardTransactions(@PathVariable UUID id) {
-        // First, check if the card exists. If not, return 404.
-        if (cardService.getCardById(id).isEmpty()) {
+    @GetMapping("/{id}/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportCardTransactions(@PathVariable UUID id,
+                                                                        @RequestParam(defaultValue = "ndjson") String format,
+                                                                        WebRequest request) {
+        Optional<TransactionExportFormat> exportFormat = TransactionExportFormat.parse(format);
+        if (exportFormat.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (!cardService.cardExists(id)) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        List<Transaction> transactions = cardService.getCardTransactions(id);
-        return new ResponseEntity<>(transactions, HttpStatus.OK); // 200 OK
+        return export(request, exportFormat.get(), "transactions-" + id,
+                consumer -> cardService.exportCardTransactions(id, consumer));
+    }
+
+    /**
+     * Endpoint to export the transactions of all cards created in a time range, for audits.
+     * GET /cards/transactions/export?from=2025-01-01T00:00:00&to=2025-02-01T00:00:00&format=ndjson|csv
+     * from is inclusive, to is exclusive. Streamed like GET /cards/{id}/transactions/export.
+     */
+    @GetMapping("/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            WebRequest request) {
+        Optional<TransactionExportFormat> exportFormat = TransactionExportFormat.parse(format);
+        if (exportFormat.isEmpty() || from.isAfter(to)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return export(request, exportFormat.get(), "transactions-" + from.toLocalDate() + "-" + to.toLocalDate(),
+                consumer -> cardService.exportTransactions(from, to, consumer));
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(WebRequest request, TransactionExportFormat format,
+                                                         String fileName, Consumer<Consumer<TransactionRow>> exporter) {
+        // Written for longer than the default async request timeout (see ExportTimeoutConfigurer)
+        request.setAttribute(ExportTimeoutConfigurer.EXPORT_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        StreamingResponseBody body = output -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+            format.writeHeader(writer);
+            try {
+                exporter.accept(row -> {
+                    try {
+                        format.write(writer, row, objectMapper);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e); // Client gone: closes the database cursor
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(fileName + "." + format.extension())
+                .build();
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(body);
+    }
+
+    /**
+     * Endpoint to get transaction history for a card, one page at a time (oldest first).
+     * GET /cards/{id}/transactions?limit=100&after={cursor}
+     * limit defaults to card.transactions.page.default-size and is capped at card.transactions.page.max-size.
+     * The body is the array of transactions of the page; when there are more, a Link header (rel="next") gives the
+     * URL of the next page, whose after parameter is the cursor of the last transaction returned.
+     * The card lookup, its ETag and the page are read in one query. With an If-None-Match header, the ETag is read
+     * first (version lookup) and 304 Not Modified is returned without loading the transactions when it matches.
+     */
+    @GetMapping("/{id}/transactions")
+    public ResponseEntity<List<TransactionRow>> getCardTransactions(@PathVariable UUID id,
+                                                                    @RequestParam(required = false) Integer limit,
+                                                                    @RequestParam(required = false) String after,
+                                                                    WebRequest request) {
+        if (limit != null && limit < 1) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        TransactionCursor cursor;
+        try {
+            cursor = after != null ? TransactionCursor.decode(after) : null;
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // Not a cursor returned by this endpoint
+        }
+
+        int pageSize = limit != null ? Math.min(limit, maxPageSize) : defaultPageSize;
+        String tag;
+        TransactionPage page;
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            // Existence check, ETag and page in one query. If the card does not exist, return 404.
+            Optional<TransactionHistory> history = cardService.getTransactionHistory(id, cursor, pageSize);
+            if (history.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            tag = history.get().tag();
+            page = history.get().page();
+        } else {
+            // Conditional request: version lookup first (also the existence check), the page only if it changed
+            Optional<String> currentTag = cardService.getTransactionHistoryTag(id);
+            if (currentTag.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            tag = currentTag.get();
+            if (request.checkNotModified(tag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).build();
+            }
+            page = cardService.getCardTransactions(id, cursor, pageSize);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(tag); // 200 OK
+        if (page.hasNext()) {
+            response.header(HttpHeaders.LINK, nextLink(pageSize, page.next().encode()));
+        }
+        return response.body(page.transactions());
+    }
+
+    // Link header to the next page: the current URL with the given limit and after parameters
+    private static String nextLink(int limit, String after) {
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("limit", limit)
+                .replaceQueryParam("after", after)
+                .toUriString();
+        return "<" + next + ">; rel=\"next\"";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.nium.virtualcardplatform.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Timeout of the streamed responses: transaction exports and the NDJSON stream of all cards.
+ * A StreamingResponseBody is written during async request processing, which Spring MVC ends after
+ * spring.mvc.async.request-timeout (30 s on Tomcat when unset): enough for spend / top-up, not for millions of rows.
+ * These endpoints mark their request with EXPORT_ATTRIBUTE, and such requests get card.export.timeout-ms
+ * instead (0 = no timeout), set before the async processing starts.
+ */
+@Component
+class ExportTimeoutConfigurer implements WebMvcConfigurer, CallableProcessingInterceptor {
+
+    static final String EXPORT_ATTRIBUTE = ExportTimeoutConfigurer.class.getName() + ".export";
+
+    private final long timeoutMs;
+
+    @Autowired
+    ExportTimeoutConfigurer(@Value("${card.export.timeout-ms:3600000}") long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(this);
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        if (request instanceof AsyncWebRequest asyncRequest
+                && request.getAttribute(EXPORT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            asyncRequest.setTimeout(timeoutMs);
+        }
+    }
+}
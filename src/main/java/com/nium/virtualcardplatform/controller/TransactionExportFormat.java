@@ -0,0 +1,73 @@
+package com.nium.virtualcardplatform.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nium.virtualcardplatform.model.TransactionRow;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Output formats of the transaction exports: one line per transaction, written as soon as it is read.
+ */
+enum TransactionExportFormat {
+
+    // One JSON object per line, with the fields of GET /cards/{id}/transactions
+    NDJSON(MediaType.APPLICATION_NDJSON) {
+        @Override
+        void writeHeader(Writer writer) {
+        }
+
+        @Override
+        void write(Writer writer, TransactionRow row, ObjectMapper objectMapper) throws IOException {
+            writer.write(objectMapper.writeValueAsString(row));
+            writer.write('\n');
+        }
+    },
+
+    // No field needs quoting: IDs, enum names, numbers and ISO dates
+    CSV(MediaType.parseMediaType("text/csv")) {
+        @Override
+        void writeHeader(Writer writer) throws IOException {
+            writer.write("id,cardId,type,amount,createdAt\n");
+        }
+
+        @Override
+        void write(Writer writer, TransactionRow row, ObjectMapper objectMapper) throws IOException {
+            writer.write(row.id().toString());
+            writer.write(',');
+            writer.write(row.cardId().toString());
+            writer.write(',');
+            writer.write(row.type().name());
+            writer.write(',');
+            writer.write(row.amount().toString());
+            writer.write(',');
+            writer.write(row.createdAt().toString());
+            writer.write('\n');
+        }
+    };
+
+    private final MediaType mediaType;
+
+    TransactionExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    MediaType mediaType() {
+        return mediaType;
+    }
+
+    String extension() {
+        return name().toLowerCase();
+    }
+
+    abstract void writeHeader(Writer writer) throws IOException;
+
+    abstract void write(Writer writer, TransactionRow row, ObjectMapper objectMapper) throws IOException;
+
+    static Optional<TransactionExportFormat> parse(String format) {
+        return Arrays.stream(values()).filter(value -> value.name().equalsIgnoreCase(format)).findFirst();
+    }
+}
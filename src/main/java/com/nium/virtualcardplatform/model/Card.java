@@ -1,23 +1,28 @@
 package com.nium.virtualcardplatform.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
-import java.math.BigDecimal;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
 @Table(name = "cards")
+// Second-level cache region, only used when it is enabled (l2-cache profile)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "cards")
 public class Card {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @TimeOrderedUuid // UUIDv7: inserted in primary key order
     private UUID id;
 
     @Column(nullable = false)
     private String cardholderName;
 
     @Column(nullable = false)
-    private BigDecimal balance;
+    private Money balance;
 
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -25,12 +30,29 @@ public class Card {
     @Version
     private Long version;
 
+    // Event-sourced strategy only: sequence number of the last transaction included in balance (the snapshot).
+    // The current balance is balance plus the transactions recorded after it.
+    @JsonIgnore
+    @Column(nullable = false)
+    private Long snapshotSequence = 0L;
+
     public Card() {}
     
-    public Card(String cardholderName, BigDecimal initialBalance) {
+    public Card(String cardholderName, Money initialBalance) {
         this.cardholderName = cardholderName;
         this.balance = initialBalance;
     }
+
+    // Copy of a row that is not attached to the persistence context, built by JPQL constructor expressions
+    public Card(UUID id, String cardholderName, Money balance, LocalDateTime createdAt, Long version,
+                Long snapshotSequence) {
+        this.id = id;
+        this.cardholderName = cardholderName;
+        this.balance = balance;
+        this.createdAt = createdAt;
+        this.version = version;
+        this.snapshotSequence = snapshotSequence;
+    }
     
     @PrePersist
     protected void onCreate() {
@@ -55,11 +77,11 @@ public class Card {
         this.cardholderName = cardholderName;
     }
 
-    public BigDecimal getBalance() {
+    public Money getBalance() {
         return balance;
     }
 
-    public void setBalance(BigDecimal balance) {
+    public void setBalance(Money balance) {
         this.balance = balance;
     }
 
@@ -78,6 +100,14 @@ public class Card {
     public void setVersion(Long version) {
         this.version = version;
     }
+
+    public Long getSnapshotSequence() {
+        return snapshotSequence;
+    }
+
+    public void setSnapshotSequence(Long snapshotSequence) {
+        this.snapshotSequence = snapshotSequence;
+    }
     
     @Override
     public String toString() {
@@ -0,0 +1,19 @@
+package com.nium.virtualcardplatform.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Row of a history page read together with its card (card LEFT JOIN transactions): the card version, plus one
+ * transaction, or no transaction (null fields) when the card exists but the page is empty.
+ */
+public record CardHistoryRow(Long cardVersion, UUID id, UUID cardId, Transaction.TransactionType type,
+                             Money amount, LocalDateTime createdAt, Long sequenceNumber) {
+
+    /**
+     * @return The transaction of this row, or null if the page is empty.
+     */
+    public TransactionRow transaction() {
+        return id == null ? null : new TransactionRow(id, cardId, type, amount, createdAt, sequenceNumber);
+    }
+}
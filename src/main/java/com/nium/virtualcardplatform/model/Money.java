@@ -0,0 +1,203 @@
+package com.nium.virtualcardplatform.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * An amount of money as a whole number of minor units (cents): 12.34 is Money.ofMinor(1234), and Money.ofUnits(12) is
+ * 12.00. There is no public constructor, so a count of cents cannot be mistaken for whole units.
+ * Balances and amounts have SCALE decimals, the scale of the balance and amount columns, so the arithmetic of the
+ * mutation path is long arithmetic instead of BigDecimal objects. Amounts are exact: parsing an amount with more
+ * decimals, or a result that does not fit in a long, throws ArithmeticException instead of rounding.
+ * In JSON an amount is a number with SCALE decimals (12.34), as BigDecimal columns were serialized; stored as
+ * DECIMAL through MoneyConverter.
+ */
+@JsonSerialize(using = Money.Serializer.class)
+@JsonDeserialize(using = Money.Deserializer.class)
+public final class Money implements Comparable<Money>, Serializable {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private static final long MINOR_UNITS_PER_UNIT = 100;
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return new Money(minorUnits);
+    }
+
+    public static Money ofUnits(long units) {
+        return new Money(Math.multiplyExact(units, MINOR_UNITS_PER_UNIT));
+    }
+
+    /**
+     * @throws ArithmeticException If the amount has more than SCALE decimals or does not fit in a long.
+     */
+    public static Money ofDecimal(BigDecimal amount) {
+        return new Money(amount.movePointRight(SCALE).longValueExact());
+    }
+
+    /**
+     * Parses a decimal number ("12.34", "-5", "0.5"); digits are read directly, without a BigDecimal, unless the text
+     * has an exponent ("1.5E3").
+     * @throws NumberFormatException If the text is not a number.
+     * @throws ArithmeticException If the amount has more than SCALE decimals or does not fit in a long.
+     */
+    public static Money parse(String text) {
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            i = 1;
+        }
+        long minorUnits = 0;
+        int decimals = -1; // No decimal point yet
+        boolean digits = false;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                return ofDecimal(new BigDecimal(text)); // Exponent, or not a number (NumberFormatException)
+            }
+            digits = true;
+            if (decimals >= SCALE) {
+                if (c != '0') {
+                    throw new ArithmeticException("More than " + SCALE + " decimals: " + text);
+                }
+                continue;
+            }
+            minorUnits = Math.addExact(Math.multiplyExact(minorUnits, 10), c - '0');
+            if (decimals >= 0) {
+                decimals++;
+            }
+        }
+        if (!digits) {
+            throw new NumberFormatException("Not a number: " + text);
+        }
+        for (int scale = Math.max(decimals, 0); scale < SCALE; scale++) {
+            minorUnits = Math.multiplyExact(minorUnits, 10);
+        }
+        return new Money(negative ? -minorUnits : minorUnits);
+    }
+
+    public long minorUnits() {
+        return minorUnits;
+    }
+
+    public Money add(Money other) {
+        return new Money(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money subtract(Money other) {
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits));
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isLessThan(Money other) {
+        return minorUnits < other.minorUnits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money money && money.minorUnits == minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    /**
+     * @return The amount with SCALE decimals ("12.30", "-0.05"), like BigDecimal.toPlainString of the column value.
+     */
+    @Override
+    public String toString() {
+        if (minorUnits == Long.MIN_VALUE) {
+            return toBigDecimal().toPlainString();
+        }
+        long absolute = Math.abs(minorUnits);
+        long fraction = absolute % MINOR_UNITS_PER_UNIT;
+        StringBuilder text = new StringBuilder(24);
+        if (minorUnits < 0) {
+            text.append('-');
+        }
+        text.append(absolute / MINOR_UNITS_PER_UNIT).append('.');
+        if (fraction < 10) {
+            text.append('0');
+        }
+        return text.append(fraction).toString();
+    }
+
+    // Written as a JSON number (12.30), not a string or an object
+    static class Serializer extends StdScalarSerializer<Money> {
+
+        Serializer() {
+            super(Money.class);
+        }
+
+        @Override
+        public void serialize(Money value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeNumber(value.toString());
+        }
+    }
+
+    // Read from the text of the JSON number (or string), without building a double or a BigDecimal first
+    static class Deserializer extends StdScalarDeserializer<Money> {
+
+        Deserializer() {
+            super(Money.class);
+        }
+
+        @Override
+        public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return switch (parser.currentToken()) {
+                case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT, VALUE_STRING -> {
+                    String text = parser.getText().trim();
+                    try {
+                        yield parse(text);
+                    } catch (NumberFormatException | ArithmeticException e) {
+                        throw InvalidFormatException.from(parser, "Not an amount with at most " + SCALE
+                                + " decimals", text, Money.class);
+                    }
+                }
+                default -> (Money) context.handleUnexpectedToken(Money.class, parser);
+            };
+        }
+    }
+}
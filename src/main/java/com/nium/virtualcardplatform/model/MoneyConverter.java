@@ -0,0 +1,24 @@
+package com.nium.virtualcardplatform.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Stores Money attributes (Card.balance, Transaction.amount) in DECIMAL columns, so the schema, the sums and
+ * conditional updates computed by the database, and the exports are unchanged.
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal amount) {
+        return amount == null ? null : Money.ofDecimal(amount);
+    }
+}
@@ -1,16 +1,25 @@
 package com.nium.virtualcardplatform.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "transactions")
+// The unique key makes (card, sequence number) an append-only log: two writers cannot append the same position.
+// idx_transactions_card_history serves the history of a card (WHERE card_id = ? ORDER BY created_at, id) and covers
+// every column it returns, so history pages are read from the index alone (PostgreSQL: INCLUDE (type, amount,
+// sequence_number)). idx_transactions_created_id serves the exports by time range
+@Table(name = "transactions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_transactions_card_sequence",
+                columnNames = {"card_id", "sequence_number"}),
+        indexes = {@Index(name = "idx_transactions_card_history",
+                        columnList = "card_id, created_at, id, type, amount, sequence_number"),
+                @Index(name = "idx_transactions_created_id", columnList = "created_at, id")})
 public class Transaction {
 
     @Id // Primary key
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @TimeOrderedUuid // UUIDv7: inserted in primary key order
     private UUID id;
 
     @Column(nullable = false)
@@ -21,22 +30,36 @@ public class Transaction {
     private TransactionType type;
 
     @Column(nullable = false)
-    private BigDecimal amount;
+    private Money amount;
 
     @Column(nullable = false, updatable = false) // It won't be updated after creation
     private LocalDateTime createdAt;
 
+    // Position of the transaction in the card's ledger (1, 2, 3...), only set by the event-sourced strategy.
+    // Internal to the strategies that keep a ledger: not part of the API
+    @JsonIgnore
+    @Column(updatable = false)
+    private Long sequenceNumber;
+
     public Transaction() {}
 
-    public Transaction(UUID cardId, TransactionType type, BigDecimal amount) {
+    public Transaction(UUID cardId, TransactionType type, Money amount) {
         this.cardId = cardId;
         this.type = type;
         this.amount = amount;
     }
 
+    public Transaction(UUID cardId, TransactionType type, Money amount, long sequenceNumber) {
+        this(cardId, type, amount);
+        this.sequenceNumber = sequenceNumber;
+    }
+
     @PrePersist
     protected void onCreate() {
-        this.createdAt = LocalDateTime.now();
+        // Kept when set by the writer (journal replay preserves the time of the mutation)
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
     }
 
     // Enum for transaction types
@@ -71,11 +94,11 @@ public class Transaction {
         this.type = type;
     }
 
-    public BigDecimal getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
-    public void setAmount(BigDecimal amount) {
+    public void setAmount(Money amount) {
         this.amount = amount;
     }
 
@@ -87,6 +110,14 @@ public class Transaction {
         this.createdAt = createdAt;
     }
 
+    public Long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public void setSequenceNumber(Long sequenceNumber) {
+        this.sequenceNumber = sequenceNumber;
+    }
+
     @Override
     public String toString() {
         return "Transaction{" +
@@ -95,6 +126,7 @@ public class Transaction {
                 ", type=" + type +
                 ", amount=" + amount +
                 ", createdAt=" + createdAt +
+                ", sequenceNumber=" + sequenceNumber +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.nium.virtualcardplatform.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only copy of a transactions row, built by a JPQL constructor expression, with the same JSON form as Transaction.
+ * Unlike a Transaction entity it is not attached to the persistence context, so streaming millions of them in one
+ * transaction does not grow the heap, and a query can select it from the columns of an index alone.
+ */
+public record TransactionRow(UUID id, UUID cardId, Transaction.TransactionType type, Money amount,
+                             LocalDateTime createdAt, @JsonIgnore Long sequenceNumber) {
+}
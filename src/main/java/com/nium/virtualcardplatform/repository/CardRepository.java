@@ -1,10 +1,23 @@
 package com.nium.virtualcardplatform.repository;
 
 import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository // Marks this interface as a Spring Data JPA repository
 public interface CardRepository extends JpaRepository<Card, UUID> {
@@ -12,4 +25,82 @@ public interface CardRepository extends JpaRepository<Card, UUID> {
     // I can add custom query methods here if needed, following Spring Data JPA naming conventions.
     // For example:
     // List<Card> findByCardholderName(String cardholderName);
-}
\ No newline at end of file
+
+    // SELECT ... FOR UPDATE: locks the card row until the surrounding transaction ends.
+    // Concurrent writers wait on the row lock (up to the lock timeout) instead of failing the @Version check.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("SELECT c FROM Card c WHERE c.id = :id")
+    Optional<Card> findByIdForUpdate(@Param("id") UUID id);
+
+    // Keyset pagination of all cards, ordered by ID (primary key index): a page costs the same at any depth
+    @Query("SELECT c FROM Card c ORDER BY c.id")
+    List<Card> findFirstPage(Limit limit);
+
+    @Query("SELECT c FROM Card c WHERE c.id > :after ORDER BY c.id")
+    List<Card> findPageAfter(@Param("after") UUID after, Limit limit);
+
+    // All cards read from an open cursor in batches of fetch_size, as copies that are not attached to the persistence
+    // context, so memory stays constant whatever the number of cards. Must be consumed inside a read-only transaction
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("SELECT new com.nium.virtualcardplatform.model.Card(c.id, c.cardholderName, c.balance, c.createdAt, "
+            + "c.version, c.snapshotSequence) FROM Card c ORDER BY c.id")
+    Stream<Card> streamAll();
+
+    // Version only, for ETag checks without loading the card
+    @Query("SELECT c.version FROM Card c WHERE c.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    // Reads the row from the database, bypassing the second-level cache (l2-cache profile): used to return the card
+    // after a bulk UPDATE of the same transaction, as the cached entry of the card is only evicted after the commit.
+    @QueryHints(@QueryHint(name = "jakarta.persistence.cache.retrieveMode", value = "BYPASS"))
+    @Query("SELECT c FROM Card c WHERE c.id = :id")
+    Optional<Card> reloadById(@Param("id") UUID id);
+
+    // Conditional debit in a single statement (UPDATE cards SET balance = balance - ? ... WHERE id = ? AND balance >= ?).
+    // Returns 1 if the card was debited, 0 if the card does not exist or its balance is too low.
+    // Must run inside a transaction; the persistence context is cleared so later reads see the new balance.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Card c SET c.balance = c.balance - :amount, c.version = c.version + 1 "
+            + "WHERE c.id = :id AND c.balance >= :amount")
+    int debitIfSufficientBalance(@Param("id") UUID id, @Param("amount") Money amount);
+
+    // Atomic strategy: same conditional debit, returning the updated row from the UPDATE itself (SQL standard data
+    // change delta table, FINAL TABLE in H2; UPDATE ... RETURNING in PostgreSQL), so no read follows the write.
+    // Empty if the card does not exist or its balance is too low. Unlike a bulk JPQL update it does not evict the card
+    // from the second-level cache: the row is neither read from nor stored in it, and the caller evicts the card
+    // once the transaction completes. Must run in a transaction that has not loaded the card yet.
+    @QueryHints({@QueryHint(name = "jakarta.persistence.cache.retrieveMode", value = "BYPASS"),
+            @QueryHint(name = "jakarta.persistence.cache.storeMode", value = "BYPASS")})
+    @Query(value = "SELECT * FROM FINAL TABLE (UPDATE cards SET balance = balance - :amount, version = version + 1 "
+            + "WHERE id = :id AND balance >= :amount)", nativeQuery = true)
+    Optional<Card> debitReturningCard(@Param("id") UUID id, @Param("amount") BigDecimal amount);
+
+    // Same as debitReturningCard for a credit. Empty if the card does not exist.
+    @QueryHints({@QueryHint(name = "jakarta.persistence.cache.retrieveMode", value = "BYPASS"),
+            @QueryHint(name = "jakarta.persistence.cache.storeMode", value = "BYPASS")})
+    @Query(value = "SELECT * FROM FINAL TABLE (UPDATE cards SET balance = balance + :amount, version = version + 1 "
+            + "WHERE id = :id)", nativeQuery = true)
+    Optional<Card> creditReturningCard(@Param("id") UUID id, @Param("amount") BigDecimal amount);
+
+    // Unconditional credit in a single statement. Returns 0 if the card does not exist.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Card c SET c.balance = c.balance + :amount, c.version = c.version + 1 WHERE c.id = :id")
+    int credit(@Param("id") UUID id, @Param("amount") Money amount);
+
+    // Event-sourced strategy: stores the balance as of the given ledger position. Never moves a snapshot backwards,
+    // so a slower writer cannot overwrite a newer snapshot. Returns 0 if a newer snapshot is already stored.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Card c SET c.balance = :balance, c.snapshotSequence = :sequence, c.version = c.version + 1 "
+            + "WHERE c.id = :id AND c.snapshotSequence < :sequence")
+    int snapshot(@Param("id") UUID id, @Param("balance") Money balance, @Param("sequence") long sequence);
+
+    // Ring-buffer strategy: stores a balance computed in memory, as of the given ledger position, only if the card
+    // was not modified since the version it was computed from. Returns 0 if another writer changed the card.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Card c SET c.balance = :balance, c.snapshotSequence = :sequence, c.version = c.version + 1 "
+            + "WHERE c.id = :id AND c.version = :version")
+    int storeBalance(@Param("id") UUID id, @Param("balance") Money balance, @Param("sequence") long sequence,
+                     @Param("version") long version);
+}
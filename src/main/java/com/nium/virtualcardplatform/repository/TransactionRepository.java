@@ -1,14 +1,103 @@
 package com.nium.virtualcardplatform.repository;
 
+import com.nium.virtualcardplatform.model.CardHistoryRow;
 import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.model.TransactionRow;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository // Marks this interface as a Spring Data JPA repository
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
-    // Custom method to find transactions by cardId (SELECT * FROM transactions WHERE card_id = ?)
-    List<Transaction> findByCardId(UUID cardId);
-}
\ No newline at end of file
+    // Keyset pagination of the history of a card, ordered by (createdAt, id): both queries read a range of the
+    // idx_transactions_card_history index, so a page costs the same whatever its depth in the history and the size of
+    // the table. They select only columns of that index (as TransactionRow copies), so the rows themselves are not read
+    @Query("SELECT new com.nium.virtualcardplatform.model.TransactionRow(t.id, t.cardId, t.type, t.amount, t.createdAt, "
+            + "t.sequenceNumber) FROM Transaction t WHERE t.cardId = :cardId ORDER BY t.createdAt, t.id")
+    List<TransactionRow> findFirstPage(@Param("cardId") UUID cardId, Limit limit);
+
+    @Query("SELECT new com.nium.virtualcardplatform.model.TransactionRow(t.id, t.cardId, t.type, t.amount, t.createdAt, "
+            + "t.sequenceNumber) FROM Transaction t WHERE t.cardId = :cardId "
+            + "AND (t.createdAt > :createdAt OR (t.createdAt = :createdAt AND t.id > :id)) "
+            + "ORDER BY t.createdAt, t.id")
+    List<TransactionRow> findPageAfter(@Param("cardId") UUID cardId, @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") UUID id, Limit limit);
+
+    // The same pages read with the card in one query, so the existence check (and the ETag version) costs no
+    // extra round trip: no row if the card does not exist, one row without transaction if the page is empty
+    @Query("SELECT new com.nium.virtualcardplatform.model.CardHistoryRow(c.version, t.id, t.cardId, t.type, t.amount, "
+            + "t.createdAt, t.sequenceNumber) FROM Card c LEFT JOIN Transaction t ON t.cardId = c.id "
+            + "WHERE c.id = :cardId ORDER BY t.createdAt, t.id")
+    List<CardHistoryRow> findCardWithFirstPage(@Param("cardId") UUID cardId, Limit limit);
+
+    @Query("SELECT new com.nium.virtualcardplatform.model.CardHistoryRow(c.version, t.id, t.cardId, t.type, t.amount, "
+            + "t.createdAt, t.sequenceNumber) FROM Card c LEFT JOIN Transaction t ON t.cardId = c.id "
+            + "AND (t.createdAt > :createdAt OR (t.createdAt = :createdAt AND t.id > :id)) "
+            + "WHERE c.id = :cardId ORDER BY t.createdAt, t.id")
+    List<CardHistoryRow> findCardWithPageAfter(@Param("cardId") UUID cardId, @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") UUID id, Limit limit);
+
+    // Exports: rows are read from an open cursor in batches of fetch_size and are not managed entities, so memory
+    // stays constant whatever the number of rows. Must be consumed (and closed) inside a read-only transaction
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("SELECT new com.nium.virtualcardplatform.model.TransactionRow(t.id, t.cardId, t.type, t.amount, t.createdAt, "
+            + "t.sequenceNumber) FROM Transaction t WHERE t.cardId = :cardId ORDER BY t.createdAt, t.id")
+    Stream<TransactionRow> streamByCardId(@Param("cardId") UUID cardId);
+
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("SELECT new com.nium.virtualcardplatform.model.TransactionRow(t.id, t.cardId, t.type, t.amount, t.createdAt, "
+            + "t.sequenceNumber) FROM Transaction t WHERE t.createdAt >= :from AND t.createdAt < :to "
+            + "ORDER BY t.createdAt, t.id")
+    Stream<TransactionRow> streamByCreatedAtBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Replay of the ledger of a card after a snapshot, aggregated in the database:
+    // net balance change and last sequence number of the transactions recorded after the given sequence number
+    @Query("SELECT COALESCE(SUM(CASE WHEN t.type = com.nium.virtualcardplatform.model.Transaction.TransactionType.SPEND "
+            + "THEN -t.amount ELSE t.amount END), 0) AS delta, MAX(t.sequenceNumber) AS lastSequence "
+            + "FROM Transaction t WHERE t.cardId = :cardId AND t.sequenceNumber > :afterSequence")
+    LedgerDelta replayAfter(@Param("cardId") UUID cardId, @Param("afterSequence") long afterSequence);
+
+    // The same replay for several cards at once, each after its own snapshot. The snapshot position is returned with
+    // the delta, as it may have moved since the cards were read. One row per existing card
+    @Query("SELECT c.id AS cardId, c.snapshotSequence AS snapshotSequence, "
+            + "COALESCE(SUM(CASE WHEN t.type = com.nium.virtualcardplatform.model.Transaction.TransactionType.SPEND "
+            + "THEN -t.amount ELSE t.amount END), 0) AS delta, MAX(t.sequenceNumber) AS lastSequence "
+            + "FROM Card c LEFT JOIN Transaction t ON t.cardId = c.id AND t.sequenceNumber > c.snapshotSequence "
+            + "WHERE c.id IN :cardIds GROUP BY c.id, c.snapshotSequence")
+    List<CardLedgerDelta> replayAfterSnapshots(@Param("cardIds") Collection<UUID> cardIds);
+
+    // Position of the last transaction of a card (0 if none), read from the uk_transactions_card_sequence index
+    // without replaying the ledger
+    @Query("SELECT COALESCE(MAX(t.sequenceNumber), 0) FROM Transaction t WHERE t.cardId = :cardId")
+    long findLastSequence(@Param("cardId") UUID cardId);
+
+    // Journal strategy: which of the given sequence numbers of a card are already stored (retries, recovery)
+    @Query("SELECT t.sequenceNumber FROM Transaction t WHERE t.cardId = :cardId AND t.sequenceNumber IN :sequenceNumbers")
+    List<Long> findSequenceNumbers(@Param("cardId") UUID cardId,
+                                   @Param("sequenceNumbers") Collection<Long> sequenceNumbers);
+
+    interface LedgerDelta {
+        BigDecimal getDelta(); // Aggregates are not converted to Money by MoneyConverter
+
+        Long getLastSequence(); // null if no transaction was recorded after the snapshot
+    }
+
+    interface CardLedgerDelta extends LedgerDelta {
+        UUID getCardId();
+
+        Long getSnapshotSequence();
+    }
+}
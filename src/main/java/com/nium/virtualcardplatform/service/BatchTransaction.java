@@ -0,0 +1,17 @@
+package com.nium.virtualcardplatform.service;
+
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+
+import java.util.UUID;
+
+/**
+ * One item of a batch of spend / top-up transactions.
+ * Missing fields are allowed here: such an item is reported as INVALID instead of failing the whole batch.
+ */
+public record BatchTransaction(UUID cardId, Transaction.TransactionType type, Money amount) {
+
+    boolean isValid() {
+        return cardId != null && type != null && amount != null && amount.signum() > 0;
+    }
+}
@@ -0,0 +1,51 @@
+package com.nium.virtualcardplatform.service;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Result of one item of a batch of transactions.
+ * @param card The card after the transaction, when applied (status OK).
+ */
+public record BatchTransactionResult(UUID cardId, Transaction.TransactionType type, Money amount,
+                                     Status status, Card card) {
+
+    public enum Status {
+        OK,
+        INSUFFICIENT_BALANCE,
+        NOT_FOUND,
+        CONFLICT,
+        INVALID,
+        ERROR
+    }
+
+    static BatchTransactionResult invalid(BatchTransaction transaction) {
+        return new BatchTransactionResult(transaction.cardId(), transaction.type(), transaction.amount(),
+                Status.INVALID, null);
+    }
+
+    /**
+     * Maps the outcome of the mutation, following the error contract of BalanceMutationStrategy.
+     */
+    static BatchTransactionResult of(BatchTransaction transaction, Card card, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        Status status;
+        if (cause == null) {
+            status = Status.OK;
+        } else if (cause instanceof IllegalArgumentException) {
+            status = Status.NOT_FOUND;
+        } else if (cause instanceof IllegalStateException) {
+            status = Status.INSUFFICIENT_BALANCE;
+        } else if (cause.getMessage() != null && cause.getMessage().contains("concurrent modifications")) {
+            status = Status.CONFLICT;
+        } else {
+            status = Status.ERROR;
+        }
+        return new BatchTransactionResult(transaction.cardId(), transaction.type(), transaction.amount(),
+                status, cause == null ? card : null);
+    }
+}
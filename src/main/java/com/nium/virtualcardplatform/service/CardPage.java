@@ -0,0 +1,17 @@
+package com.nium.virtualcardplatform.service;
+
+import com.nium.virtualcardplatform.model.Card;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One page of all cards, ordered by ID.
+ * @param next ID to read the following page after, or null if this is the last one.
+ */
+public record CardPage(List<Card> cards, UUID next) {
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
@@ -0,0 +1,111 @@
+package com.nium.virtualcardplatform.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nium.virtualcardplatform.model.Card;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of card rows used by CardService.getCardById, so that polling GET /cards/{id} does not
+ * query the database every time.
+ * Bounded to card.read-cache.max-size cards (W-TinyLFU eviction) and updated with the card returned by each
+ * successful mutation. An entry is only replaced by a card of the same or a higher version, so a slow reader
+ * or writer cannot put an older state back. A failed mutation invalidates the card, unless it was rejected for
+ * insufficient balance (nothing was written).
+ * Entries also expire card.read-cache.ttl-ms after being written: this bounds how long a change made by another
+ * node stays unseen, so reads are no longer strongly consistent across nodes. Off by default, enabled with
+ * card.read-cache.enabled=true.
+ * Metrics: cache.gets (hit / miss), cache.evictions and cache.size, tagged cache=cards.
+ */
+@Component
+public class CardReadCache {
+
+    private final boolean enabled;
+    private final Cache<UUID, Card> cache;
+
+    @Autowired
+    public CardReadCache(@Value("${card.read-cache.enabled:false}") boolean enabled,
+                         @Value("${card.read-cache.max-size:100000}") long maxSize,
+                         @Value("${card.read-cache.ttl-ms:5000}") long ttlMs,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        if (enabled) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "cards");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns a copy of the cached card, or loads it (and caches it) on a miss.
+     */
+    public Optional<Card> get(UUID cardId, Function<UUID, Optional<Card>> loader) {
+        if (!enabled) {
+            return loader.apply(cardId);
+        }
+        Card cached = cache.getIfPresent(cardId);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        Optional<Card> loaded = loader.apply(cardId);
+        loaded.ifPresent(this::update);
+        return loaded;
+    }
+
+    /**
+     * Version of the cached card, if any, without counting a cache hit or miss.
+     */
+    public Optional<Long> cachedVersion(UUID cardId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.policy().getIfPresentQuietly(cardId)).map(Card::getVersion);
+    }
+
+    /**
+     * Caches a copy of the card unless a higher version is already cached.
+     * A card without version cannot be ordered against the cached one: the entry is dropped instead.
+     */
+    public void update(Card card) {
+        if (!enabled) {
+            return;
+        }
+        if (card.getVersion() == null) {
+            cache.invalidate(card.getId());
+            return;
+        }
+        cache.asMap().merge(card.getId(), copy(card),
+                (cached, updated) -> cached.getVersion() > updated.getVersion() ? cached : updated);
+    }
+
+    public void invalidate(UUID cardId) {
+        if (enabled) {
+            cache.invalidate(cardId);
+        }
+    }
+
+    private static Card copy(Card card) {
+        Card copy = new Card(card.getCardholderName(), card.getBalance());
+        copy.setId(card.getId());
+        copy.setCreatedAt(card.getCreatedAt());
+        copy.setVersion(card.getVersion());
+        copy.setSnapshotSequence(card.getSnapshotSequence());
+        return copy;
+    }
+}
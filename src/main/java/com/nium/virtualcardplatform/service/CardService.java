@@ -1,32 +1,68 @@
 package com.nium.virtualcardplatform.service;
 
 import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.CardHistoryRow;
+import com.nium.virtualcardplatform.model.Money;
 import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.model.TransactionRow;
 import com.nium.virtualcardplatform.repository.CardRepository;
 import com.nium.virtualcardplatform.repository.TransactionRepository;
+import com.nium.virtualcardplatform.service.mutation.BalanceMutation;
+import com.nium.virtualcardplatform.service.mutation.BalanceMutationStrategy;
+import com.nium.virtualcardplatform.service.mutation.RetryScheduler;
+import com.nium.virtualcardplatform.service.mutation.StripedCardLockManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.dao.OptimisticLockingFailureException;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class CardService {
 
+    // Cards of a stream whose state is read at once: the fetch size of CardRepository.streamAll
+    private static final int STATE_BATCH_SIZE = 1000;
+
     private final CardRepository cardRepository;
     private final TransactionRepository transactionRepository;
-    private static final int MAX_RETRY_ATTEMPTS = 3;
-    private static final long BASE_DELAY_MS = 10;
+    private final BalanceMutationStrategy balanceMutationStrategy;
+    private final StripedCardLockManager cardLockManager;
+    private final RetryScheduler retryScheduler;
+    private final CardReadCache cardReadCache;
+    private final MeterRegistry meterRegistry;
+    private final long maxUnpagedCards;
 
     @Autowired
-    public CardService(CardRepository cardRepository, TransactionRepository transactionRepository) {
+    public CardService(CardRepository cardRepository, TransactionRepository transactionRepository,
+                       BalanceMutationStrategy balanceMutationStrategy, StripedCardLockManager cardLockManager,
+                       RetryScheduler retryScheduler, CardReadCache cardReadCache, MeterRegistry meterRegistry,
+                       @Value("${card.list.max-unpaged:10000}") long maxUnpagedCards) {
         this.cardRepository = cardRepository;
         this.transactionRepository = transactionRepository;
+        this.balanceMutationStrategy = balanceMutationStrategy;
+        this.cardLockManager = cardLockManager;
+        this.retryScheduler = retryScheduler;
+        this.cardReadCache = cardReadCache;
+        this.meterRegistry = meterRegistry;
+        this.maxUnpagedCards = maxUnpagedCards;
     }
 
     /**
@@ -36,8 +72,8 @@ public class CardService {
      * @return The created Card object.
      */
     @Transactional
-    public Card createCard(String cardholderName, BigDecimal initialBalance) {
-        if (initialBalance.compareTo(BigDecimal.ZERO) < 0) {
+    public Card createCard(String cardholderName, Money initialBalance) {
+        if (initialBalance.signum() < 0) {
             throw new IllegalArgumentException("Initial balance cannot be negative.");
         }
         Card card = new Card(cardholderName, initialBalance);
@@ -45,179 +81,412 @@ public class CardService {
     }
 
     /**
-     * Retrieves a card by its ID.
+     * Creates many cards in one transaction.
+     * The INSERTs are sent in JDBC batches of hibernate.jdbc.batch_size: card IDs are UUIDs generated in the
+     * application, so no round trip is needed to get them (unlike IDENTITY columns, which disable batching).
+     * @param cards The cards to create.
+     * @return The IDs of the created cards, in the same order.
+     * @throws IllegalArgumentException If a card has no cardholder name or a negative initial balance (nothing is created).
+     */
+    @Transactional
+    public List<UUID> createCards(List<NewCard> cards) {
+        List<Card> entities = new ArrayList<>(cards.size());
+        for (NewCard card : cards) {
+            if (!card.isValid()) {
+                throw new IllegalArgumentException("Invalid card: " + card);
+            }
+            entities.add(new Card(card.cardholderName(), card.initialBalance()));
+        }
+        return cardRepository.saveAll(entities).stream().map(Card::getId).toList();
+    }
+
+    /**
+     * Retrieves a card by its ID, from the read cache when enabled (see CardReadCache).
      * @param cardId The ID of the card.
      * @return An Optional containing the Card if found, or empty if not.
      */
     public Optional<Card> getCardById(UUID cardId) {
-        return cardRepository.findById(cardId);
+        return cardReadCache.get(cardId, cardRepository::findById).map(balanceMutationStrategy::currentState);
     }
 
     /**
-     * Retrieves all cards.
+     * Tag of the current state of the card, used as ETag by GET /cards/{id}: it changes whenever the card changes.
+     * Read without loading the card: from the read cache when the card is there (as getCardById would),
+     * otherwise with a version-only query.
+     * @return The tag, or empty if the card does not exist.
+     */
+    public Optional<String> getCardStateTag(UUID cardId) {
+        return cardReadCache.cachedVersion(cardId)
+                .or(() -> cardRepository.findVersionById(cardId))
+                .map(version -> balanceMutationStrategy.stateTag(cardId, version));
+    }
+
+    /**
+     * Tag of the transaction history of the card, used as ETag by GET /cards/{id}/transactions.
+     * Read with a version-only query: a new transaction always changes the card version or the strategy's position.
+     * @return The tag, or empty if the card does not exist.
+     */
+    public Optional<String> getTransactionHistoryTag(UUID cardId) {
+        return cardRepository.findVersionById(cardId)
+                .map(version -> balanceMutationStrategy.stateTag(cardId, version));
+    }
+
+    /**
+     * Retrieves all cards in one list, as long as there are at most card.list.max-unpaged cards.
+     * Use getCards (pages) or streamCards beyond that.
      * @return A list of all Card objects.
+     * @throws IllegalStateException If there are more cards than card.list.max-unpaged.
      */
     public List<Card> getAllCards() {
-        return cardRepository.findAll();
+        long count = cardRepository.count();
+        if (count > maxUnpagedCards) {
+            throw new IllegalStateException("Too many cards to list at once (" + count + " > " + maxUnpagedCards
+                    + "), read them by page or as a stream.");
+        }
+        return balanceMutationStrategy.currentStates(cardRepository.findAll());
     }
 
     /**
-     * Processes a spend transaction for a card with optimistic locking retry mechanism.
-     * Uses the @Version field in Card entity for optimistic concurrency control.
-     * @param cardId The ID of the card.
-     * @param amount The amount to spend.
-     * @return The updated Card object after the transaction.
-     * @throws IllegalArgumentException If the amount is invalid or card not found.
-     * @throws IllegalStateException If the card has insufficient balance.
+     * Retrieves one page of all cards, ordered by ID. Keyset pagination: the page starts right after the given ID
+     * instead of at an offset.
+     * @param after ID of the last card of the previous page, or null for the first page.
+     * @param limit Maximum number of cards in the page.
+     * @return The page, with the ID to continue after if there are more cards.
      */
-    public Card spend(UUID cardId, BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Spend amount must be a positive number greater than zero.");
-        }
+    public CardPage getCards(UUID after, int limit) {
+        // One extra row tells whether there is a next page
+        Limit fetched = Limit.of(limit + 1);
+        List<Card> cards = after == null
+                ? cardRepository.findFirstPage(fetched)
+                : cardRepository.findPageAfter(after, fetched);
+        UUID next = cards.size() > limit ? cards.get(limit - 1).getId() : null;
+        List<Card> page = cards.subList(0, Math.min(limit, cards.size()));
+        return new CardPage(balanceMutationStrategy.currentStates(page), next);
+    }
 
-        RuntimeException lastException = null;
-        
-        for (int attempt = 1; attempt <= MAX_RETRY_ATTEMPTS; attempt++) {
-            try {
-                return performSpendTransactionWithOptimisticLocking(cardId, amount);
-            } catch (OptimisticLockingFailureException e) {
-                lastException = new RuntimeException("Optimistic locking failure on attempt " + attempt, e);
-                
-                if (attempt == MAX_RETRY_ATTEMPTS) {
-                    break; // Exit loop to throw exception below
-                }
-                
-                // Short delay with some randomization to reduce collision probability
-                try {
-                    long delay = BASE_DELAY_MS + (long) (Math.random() * BASE_DELAY_MS * attempt);
-                    Thread.sleep(delay);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Thread was interrupted during retry", ie);
+    /**
+     * Streams all cards, ordered by ID, to the given consumer.
+     * The cards are read from an open database cursor (see CardRepository.streamAll) and are not kept after being
+     * consumed, so the memory used does not depend on the number of cards. Their current state is read for
+     * STATE_BATCH_SIZE cards at a time (BalanceMutationStrategy.currentStates).
+     * @return The number of cards streamed.
+     */
+    @Transactional(readOnly = true)
+    public long streamCards(Consumer<Card> consumer) {
+        long count = 0;
+        try (Stream<Card> cards = cardRepository.streamAll()) {
+            List<Card> batch = new ArrayList<>(STATE_BATCH_SIZE);
+            for (Iterator<Card> iterator = cards.iterator(); iterator.hasNext(); ) {
+                batch.add(iterator.next());
+                if (batch.size() == STATE_BATCH_SIZE || !iterator.hasNext()) {
+                    count += export(balanceMutationStrategy.currentStates(batch).stream(), consumer);
+                    batch.clear();
                 }
-            } catch (IllegalArgumentException | IllegalStateException e) {
-                // These are business logic errors that shouldn't be retried
-                throw e;
             }
         }
-        
-        throw new RuntimeException("Unable to complete spend transaction after " + MAX_RETRY_ATTEMPTS 
-            + " attempts due to concurrent modifications. The @Version field detected concurrent updates.", lastException);
+        return count;
     }
 
     /**
-     * Performs the actual spend transaction leveraging JPA's optimistic locking.
-     * The @Version field in Card entity automatically handles concurrency control.
+     * Processes a spend transaction for a card, waiting for its completion.
+     * @see #spendAsync(UUID, Money)
      * @param cardId The ID of the card.
      * @param amount The amount to spend.
      * @return The updated Card object after the transaction.
-     * @throws IllegalArgumentException If the card is not found.
+     * @throws IllegalArgumentException If the amount is invalid or card not found.
      * @throws IllegalStateException If the card has insufficient balance.
-     * @throws OptimisticLockingFailureException If concurrent modification is detected.
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    private Card performSpendTransactionWithOptimisticLocking(UUID cardId, BigDecimal amount) {
-        // Fresh read from database - JPA will load current version
-        Card card = cardRepository.findById(cardId)
-                .orElseThrow(() -> new IllegalArgumentException("Card not found with ID: " + cardId));
+    public Card spend(UUID cardId, Money amount) {
+        return await(spendAsync(cardId, amount));
+    }
 
-        // Business logic validation
-        if (card.getBalance().compareTo(amount) < 0) {
-            throw new IllegalStateException("Insufficient balance for card ID: " + cardId);
+    /**
+     * Processes a spend transaction for a card.
+     * Concurrency control is delegated to the configured BalanceMutationStrategy
+     * (optimistic locking with retries by default), behind a local per-card lock.
+     * The calling thread is never parked waiting for the card lock or a retry backoff.
+     * @param cardId The ID of the card.
+     * @param amount The amount to spend.
+     * @return A future completed with the updated Card object, or failed with IllegalArgumentException
+     *         (card not found), IllegalStateException (insufficient balance) or a concurrency RuntimeException.
+     * @throws IllegalArgumentException If the amount is invalid.
+     */
+    public CompletableFuture<Card> spendAsync(UUID cardId, Money amount) {
+        if (amount.signum() <= 0) {
+            throw new IllegalArgumentException("Spend amount must be a positive number greater than zero.");
         }
-
-        // Update card balance - the version will be automatically incremented by JPA
-        card.setBalance(card.getBalance().subtract(amount));
-        
-        // This save() will check the version field and throw OptimisticLockingFailureException
-        // if another transaction modified the entity since we loaded it
-        Card updatedCard = cardRepository.save(card);
-
-        // Record the transaction only after successful card update
-        Transaction transaction = new Transaction(cardId, Transaction.TransactionType.SPEND, amount);
-        transactionRepository.save(transaction);
-
-        return updatedCard;
+        return mutate("spend", cardId, () -> balanceMutationStrategy.spend(cardId, amount));
     }
 
     /**
-     * Processes a top-up transaction for a card with optimistic locking retry mechanism.
-     * Uses the @Version field in Card entity for optimistic concurrency control.
+     * Processes a top-up transaction for a card, waiting for its completion.
+     * @see #topUpAsync(UUID, Money)
      * @param cardId The ID of the card.
      * @param amount The amount to top-up.
      * @return The updated Card object after the transaction.
      * @throws IllegalArgumentException If the amount is invalid or card not found.
      */
-    public Card topUp(UUID cardId, BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+    public Card topUp(UUID cardId, Money amount) {
+        return await(topUpAsync(cardId, amount));
+    }
+
+    /**
+     * Processes a top-up transaction for a card.
+     * Concurrency control is delegated to the configured BalanceMutationStrategy
+     * (optimistic locking with retries by default), behind a local per-card lock.
+     * The calling thread is never parked waiting for the card lock or a retry backoff.
+     * @param cardId The ID of the card.
+     * @param amount The amount to top-up.
+     * @return A future completed with the updated Card object, or failed with IllegalArgumentException
+     *         (card not found) or a concurrency RuntimeException.
+     * @throws IllegalArgumentException If the amount is invalid.
+     */
+    public CompletableFuture<Card> topUpAsync(UUID cardId, Money amount) {
+        if (amount.signum() <= 0) {
             throw new IllegalArgumentException("Top-up amount must be a positive number greater than zero.");
         }
+        return mutate("topup", cardId, () -> balanceMutationStrategy.topUp(cardId, amount));
+    }
 
-        RuntimeException lastException = null;
-        
-        for (int attempt = 1; attempt <= MAX_RETRY_ATTEMPTS; attempt++) {
-            try {
-                return performTopUpTransactionWithOptimisticLocking(cardId, amount);
-            } catch (OptimisticLockingFailureException e) {
-                lastException = new RuntimeException("Optimistic locking failure on attempt " + attempt, e);
-                
-                if (attempt == MAX_RETRY_ATTEMPTS) {
-                    break; // Exit loop to throw exception below
-                }
-                
-                // Short delay with randomization
-                try {
-                    long delay = BASE_DELAY_MS + (long) (Math.random() * BASE_DELAY_MS * attempt);
-                    Thread.sleep(delay);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Thread was interrupted during retry", ie);
+    /**
+     * Starts a mutation. Strategies that do not serialize mutations per card themselves are called on the retry
+     * scheduler's executor, holding the local lock of the card (when enabled) while the strategy runs synchronously,
+     * so same-card mutations on this node are serialized before reaching the database. A held lock re-schedules
+     * the call on the retry timer instead of blocking a thread.
+     * Every call is recorded in the "card.balance.mutations" timer, tagged with the strategy, the operation
+     * and the outcome, so throughput and latency of each strategy can be compared per deployment.
+     */
+    private CompletableFuture<Card> mutate(String operation, UUID cardId, Supplier<CompletableFuture<Card>> mutation) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<Card> result;
+        try {
+            result = balanceMutationStrategy.serializesPerCard()
+                    ? mutation.get()
+                    : startLocked(operation + " transaction", operation + " transaction", cardId, mutation)
+                            .thenCompose(Function.identity());
+        } catch (RuntimeException e) {
+            // Strategies may fail synchronously; callers always get the error through the future
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        return result.whenComplete((card, error) -> {
+            record(sample, operation, error);
+            refreshReadCache(cardId, card, error);
+        });
+    }
+
+    // Runs the start of a mutation once, off the calling thread and under the card lock when enabled
+    private <T> CompletableFuture<T> startLocked(String tag, String description, UUID cardId, Supplier<T> start) {
+        return retryScheduler.execute(tag, description, 1,
+                () -> cardLockManager.isEnabled() ? cardLockManager.runLocked(cardId, start) : start.get());
+    }
+
+    /**
+     * Applies a batch of spend / top-up transactions, each one with its own result: a rejected transaction
+     * does not stop the others. Transactions of the same card are applied in batch order, handed to the strategy
+     * as one group (one database transaction and one JDBC batch of inserts where the strategy supports it);
+     * groups of different cards are processed concurrently.
+     * @param transactions The transactions; an item without card, type or positive amount is reported as INVALID.
+     * @return A future completed with one result per transaction, in the same order.
+     */
+    public CompletableFuture<List<BatchTransactionResult>> applyBatch(List<BatchTransaction> transactions) {
+        List<CompletableFuture<BatchTransactionResult>> results = new ArrayList<>(transactions.size());
+        Map<UUID, List<Integer>> positionsByCard = new LinkedHashMap<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            BatchTransaction transaction = transactions.get(i);
+            if (transaction.isValid()) {
+                positionsByCard.computeIfAbsent(transaction.cardId(), id -> new ArrayList<>()).add(i);
+                results.add(null);
+            } else {
+                results.add(CompletableFuture.completedFuture(BatchTransactionResult.invalid(transaction)));
+            }
+        }
+
+        positionsByCard.forEach((cardId, positions) -> {
+            List<BalanceMutation> mutations = positions.stream()
+                    .map(i -> new BalanceMutation(transactions.get(i).type(), transactions.get(i).amount()))
+                    .toList();
+            List<CompletableFuture<Card>> applied = mutateInOrder(cardId, mutations);
+            for (int j = 0; j < positions.size(); j++) {
+                BatchTransaction transaction = transactions.get(positions.get(j));
+                results.set(positions.get(j), applied.get(j)
+                        .handle((card, error) -> BatchTransactionResult.of(transaction, card, error)));
+            }
+        });
+
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .thenApply(done -> results.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Hands a group of mutations of one card to the strategy, off the calling thread and under the local card lock
+     * like mutate, and records each mutation in the "card.balance.mutations" timer.
+     */
+    private List<CompletableFuture<Card>> mutateInOrder(UUID cardId, List<BalanceMutation> mutations) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<CompletableFuture<Card>> applied;
+        try {
+            if (balanceMutationStrategy.serializesPerCard()) {
+                applied = balanceMutationStrategy.applyInOrder(cardId, mutations);
+            } else {
+                CompletableFuture<List<CompletableFuture<Card>>> group = startLocked("batch transaction",
+                        "batch of " + mutations.size() + " transactions", cardId,
+                        () -> balanceMutationStrategy.applyInOrder(cardId, mutations));
+                applied = new ArrayList<>(mutations.size());
+                for (int i = 0; i < mutations.size(); i++) {
+                    int position = i;
+                    applied.add(group.thenCompose(results -> results.get(position)));
                 }
-            } catch (IllegalArgumentException e) {
-                // Business logic errors that shouldn't be retried
-                throw e;
             }
+        } catch (RuntimeException e) {
+            applied = mutations.stream().map(mutation -> CompletableFuture.<Card>failedFuture(e)).toList();
+        }
+
+        for (int i = 0; i < mutations.size(); i++) {
+            String operation = mutations.get(i).type() == Transaction.TransactionType.SPEND ? "spend" : "topup";
+            applied.get(i).whenComplete((card, error) -> {
+                record(sample, operation, error);
+                refreshReadCache(cardId, card, error);
+            });
         }
-        
-        throw new RuntimeException("Unable to complete top-up transaction after " + MAX_RETRY_ATTEMPTS 
-            + " attempts due to concurrent modifications. The @Version field detected concurrent updates.", lastException);
+        return applied;
+    }
+
+    // The card returned by a mutation is the latest committed state; an insufficient balance changes nothing, but
+    // after any other failure the cached state is unknown
+    private void refreshReadCache(UUID cardId, Card card, Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (cause == null) {
+            cardReadCache.update(card);
+        } else if (!(cause instanceof IllegalStateException)) {
+            cardReadCache.invalidate(cardId);
+        }
+    }
+
+    private void record(Timer.Sample sample, String operation, Throwable error) {
+        sample.stop(Timer.builder("card.balance.mutations")
+                .description("Balance mutations applied through the configured strategy")
+                .tag("strategy", balanceMutationStrategy.name())
+                .tag("operation", operation)
+                .tag("outcome", outcome(error))
+                .register(meterRegistry));
+    }
+
+    private static String outcome(Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (cause == null) {
+            return "success";
+        }
+        if (cause instanceof IllegalArgumentException) {
+            return "not_found";
+        }
+        if (cause instanceof IllegalStateException) {
+            return "insufficient_balance";
+        }
+        return "error";
     }
 
     /**
-     * Performs the actual top-up transaction leveraging JPA's optimistic locking.
-     * The @Version field in Card entity automatically handles concurrency control.
-     * @param cardId The ID of the card.
-     * @param amount The amount to top-up.
-     * @return The updated Card object after the transaction.
-     * @throws IllegalArgumentException If the card is not found.
-     * @throws OptimisticLockingFailureException If concurrent modification is detected.
+     * Waits for an asynchronous mutation, rethrowing its original exception.
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    private Card performTopUpTransactionWithOptimisticLocking(UUID cardId, BigDecimal amount) {
-        // Fresh read from database - JPA will load current version
-        Card card = cardRepository.findById(cardId)
-                .orElseThrow(() -> new IllegalArgumentException("Card not found with ID: " + cardId));
+    private static Card await(CompletableFuture<Card> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves one page of the transactions of a card together with the ETag of the history, in a single query:
+     * the card row is joined with the page, so an unknown card and an empty page are told apart without an extra
+     * lookup. Same page as getCardTransactions.
+     * @return The tag and the page, or empty if the card does not exist.
+     */
+    public Optional<TransactionHistory> getTransactionHistory(UUID cardId, TransactionCursor after, int limit) {
+        // Taken before the query: the tag must not be newer than the page
+        LongFunction<String> tagger = balanceMutationStrategy.stateTagger(cardId);
+        Limit fetched = Limit.of(limit + 1);
+        List<CardHistoryRow> rows = after == null
+                ? transactionRepository.findCardWithFirstPage(cardId, fetched)
+                : transactionRepository.findCardWithPageAfter(cardId, after.createdAt(), after.id(), fetched);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        List<TransactionRow> transactions = new ArrayList<>(rows.size());
+        for (CardHistoryRow row : rows) {
+            if (row.transaction() != null) {
+                transactions.add(row.transaction());
+            }
+        }
+        return Optional.of(new TransactionHistory(tagger.apply(rows.get(0).cardVersion()), page(transactions, limit)));
+    }
+
+    /**
+     * Checks whether a card exists, without loading it.
+     */
+    public boolean cardExists(UUID cardId) {
+        return cardRepository.existsById(cardId);
+    }
 
-        // Update card balance - the version will be automatically incremented by JPA
-        card.setBalance(card.getBalance().add(amount));
-        
-        // This save() will check the version field and throw OptimisticLockingFailureException
-        // if another transaction modified the entity since we loaded it
-        Card updatedCard = cardRepository.save(card);
+    /**
+     * Streams every transaction of a card, oldest first, to the given consumer.
+     * The rows are read from an open database cursor (see TransactionRepository.streamByCardId) and are not kept
+     * after being consumed, so the memory used does not depend on the length of the history.
+     * @return The number of transactions exported.
+     */
+    @Transactional(readOnly = true)
+    public long exportCardTransactions(UUID cardId, Consumer<TransactionRow> consumer) {
+        try (Stream<TransactionRow> rows = transactionRepository.streamByCardId(cardId)) {
+            return export(rows, consumer);
+        }
+    }
 
-        // Record the transaction only after successful card update
-        Transaction transaction = new Transaction(cardId, Transaction.TransactionType.TOPUP, amount);
-        transactionRepository.save(transaction);
+    /**
+     * Streams the transactions of all cards created in [from, to), oldest first, to the given consumer.
+     * @see #exportCardTransactions(UUID, Consumer)
+     */
+    @Transactional(readOnly = true)
+    public long exportTransactions(LocalDateTime from, LocalDateTime to, Consumer<TransactionRow> consumer) {
+        try (Stream<TransactionRow> rows = transactionRepository.streamByCreatedAtBetween(from, to)) {
+            return export(rows, consumer);
+        }
+    }
 
-        return updatedCard;
+    private static <T> long export(Stream<T> rows, Consumer<T> consumer) {
+        long count = 0;
+        for (Iterator<T> iterator = rows.iterator(); iterator.hasNext(); count++) {
+            consumer.accept(iterator.next());
+        }
+        return count;
     }
 
     /**
-     * Retrieves all transactions for a specific card.
+     * Retrieves one page of the transactions of a card, oldest first (transactions created at the same instant are
+     * ordered by ID). Keyset pagination: the page starts right after the given cursor instead of at an offset.
      * @param cardId The ID of the card.
-     * @return A list of Transaction objects for the given card.
+     * @param after Cursor returned with the previous page, or null for the first page.
+     * @param limit Maximum number of transactions in the page.
+     * @return The page, with the cursor of the next page if there are more transactions.
      */
-    public List<Transaction> getCardTransactions(UUID cardId) {
-        return transactionRepository.findByCardId(cardId);
+    public TransactionPage getCardTransactions(UUID cardId, TransactionCursor after, int limit) {
+        // One extra row tells whether there is a next page
+        Limit fetched = Limit.of(limit + 1);
+        List<TransactionRow> transactions = after == null
+                ? transactionRepository.findFirstPage(cardId, fetched)
+                : transactionRepository.findPageAfter(cardId, after.createdAt(), after.id(), fetched);
+        return page(transactions, limit);
+    }
+
+    // Up to limit + 1 transactions: the extra one only tells that there is a next page
+    private static TransactionPage page(List<TransactionRow> transactions, int limit) {
+        if (transactions.size() <= limit) {
+            return new TransactionPage(transactions, null);
+        }
+        List<TransactionRow> page = transactions.subList(0, limit);
+        return new TransactionPage(page, TransactionCursor.of(page.get(limit - 1)));
     }
 }
\ No newline at end of file
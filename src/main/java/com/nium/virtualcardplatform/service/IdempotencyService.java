@@ -0,0 +1,276 @@
+package com.nium.virtualcardplatform.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.IdempotencyRecord;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for spend / top-up.
+ * The first request with a key claims it (a row of idempotency_keys), runs, and stores its response in that row.
+ * A retry with the same key gets the stored response and the mutation is not applied again.
+ * Responses are also kept in a bounded in-memory cache (card.idempotency.cache.max-bytes, expiring
+ * card.idempotency.cache.ttl-seconds after they are written), so most retries need no query; a retry arriving
+ * while the first request is still running on this node waits for its response.
+ * The response is stored after the mutation has committed, in another write: a claim without response may belong
+ * to a request still running, or to one whose node stopped before or after applying it. Such a claim is never run
+ * again (that could apply the mutation twice): retries get 409 until the key expires, and the client reconciles
+ * with the card's balance and history.
+ * Rows are deleted after card.idempotency.retention-hours.
+ */
+@Service
+public class IdempotencyService implements DisposableBean {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    /**
+     * A response as stored. Only final responses (2xx, 400, 404) are replayable: after a 409 or a server error,
+     * the claim is released and the request can be sent again with the same key.
+     */
+    record StoredResponse(String fingerprint, int status, String body, boolean replayable) {
+
+        // Approximate heap size: the strings (2 bytes per char) plus the objects around them
+        int weight(String key) {
+            int chars = key.length() + fingerprint.length() + (body != null ? body.length() : 0);
+            return 2 * chars + 128;
+        }
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Executor completionExecutor;
+    private final Duration retention;
+    private final AsyncCache<String, StoredResponse> cache;
+    private final ScheduledExecutorService purger;
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepository repository, ObjectMapper objectMapper,
+                              TaskExecutor completionExecutor, MeterRegistry meterRegistry,
+                              @Value("${card.idempotency.cache.max-bytes:67108864}") long maxBytes,
+                              @Value("${card.idempotency.cache.ttl-seconds:600}") long ttlSeconds,
+                              @Value("${card.idempotency.retention-hours:24}") long retentionHours,
+                              @Value("${card.idempotency.purge-interval-seconds:3600}") long purgeIntervalSeconds) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.completionExecutor = completionExecutor;
+        this.retention = Duration.ofHours(retentionHours);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<String, StoredResponse>weigher((key, response) -> response.weight(key))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+
+        // cache.gets (hit / miss), cache.size, cache.evictions... tagged cache=idempotency
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency");
+        Gauge.builder("card.idempotency.cache.weight", cache, IdempotencyService::weightedSize)
+                .baseUnit("bytes")
+                .description("Approximate memory used by the cached idempotent responses")
+                .register(meterRegistry);
+
+        this.purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (purgeIntervalSeconds > 0) {
+            purger.scheduleWithFixedDelay(this::purge, purgeIntervalSeconds, purgeIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Key accepted in the Idempotency-Key header: non-blank and at most MAX_KEY_LENGTH characters.
+     */
+    public static boolean isValidKey(String key) {
+        return !key.isBlank() && key.length() <= MAX_KEY_LENGTH;
+    }
+
+    /**
+     * Runs the request once per idempotency key.
+     * @param key The Idempotency-Key header, or null to just run the request.
+     * @param type The operation of the request.
+     * @param cardId The card of the request.
+     * @param amount The amount of the request. A key reused with another operation, card or amount gets 422.
+     * @param request Runs the request; only called when the key is not already used.
+     * @return The response of the request, or the stored response of the first request with this key. 409 if that
+     *         request has no stored response (in progress on another node, or its outcome is unknown).
+     */
+    public CompletableFuture<ResponseEntity<Card>> execute(String key, Transaction.TransactionType type, UUID cardId,
+                                                           Money amount,
+                                                           Supplier<CompletableFuture<ResponseEntity<Card>>> request) {
+        if (key == null) {
+            return request.get();
+        }
+        // 30.00 and 30 are the same amount: trailing zeros are dropped
+        String fingerprint = type + ":" + cardId + ":" + amount.toBigDecimal().stripTrailingZeros().toPlainString();
+        // Only the pending response is installed under the cache lock; the first caller loads it outside
+        CompletableFuture<StoredResponse> pending = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> response = cache.get(key, (k, executor) -> pending);
+        if (response == pending) {
+            load(key, fingerprint, request).whenComplete((stored, error) -> {
+                if (error != null) {
+                    pending.completeExceptionally(error);
+                } else {
+                    pending.complete(stored);
+                }
+            });
+        }
+        return response.handle((stored, error) -> {
+            if (error != null || !stored.replayable()) {
+                cache.asMap().remove(key, response);
+            }
+            if (error != null) {
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+            if (!stored.fingerprint().equals(fingerprint)) {
+                return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY); // Key already used for another request
+            }
+            return toResponse(stored);
+        });
+    }
+
+    // Cache miss: the response is read from the table, or the key is claimed and the request runs
+    private CompletableFuture<StoredResponse> load(String key, String fingerprint,
+                                                   Supplier<CompletableFuture<ResponseEntity<Card>>> request) {
+        IdempotencyRecord claim;
+        try {
+            Optional<IdempotencyRecord> existing = repository.findById(key);
+            if (existing.isPresent() && isExpired(existing.get())) {
+                repository.delete(existing.get());
+                existing = Optional.empty();
+            }
+            if (existing.isPresent()) {
+                return CompletableFuture.completedFuture(toStored(existing.get()));
+            }
+            claim = claim(key, fingerprint);
+            if (claim == null) {
+                // Claimed at the same time by a request on another node
+                return CompletableFuture.completedFuture(repository.findById(key)
+                        .map(this::toStored)
+                        .orElseGet(() -> inProgress(fingerprint)));
+            }
+            // Stored off the thread completing the request, which may be a strategy worker
+            return request.get().handleAsync((response, error) -> complete(claim, response, error),
+                    completionExecutor);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Inserts the claim row; null if another request inserted it first
+    private IdempotencyRecord claim(String key, String fingerprint) {
+        try {
+            return repository.saveAndFlush(new IdempotencyRecord(key, fingerprint));
+        } catch (DataIntegrityViolationException e) {
+            return null;
+        }
+    }
+
+    private StoredResponse complete(IdempotencyRecord claim, ResponseEntity<Card> response, Throwable error) {
+        if (error != null) {
+            repository.delete(claim);
+            throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+        }
+        HttpStatusCode status = response.getStatusCode();
+        String body = response.getBody() != null ? toJson(response.getBody()) : null;
+        if (!isFinal(status)) {
+            repository.delete(claim);
+            return new StoredResponse(claim.getFingerprint(), status.value(), body, false);
+        }
+        claim.setStatus(status.value());
+        claim.setBody(body);
+        repository.save(claim);
+        return new StoredResponse(claim.getFingerprint(), status.value(), body, true);
+    }
+
+    private static boolean isFinal(HttpStatusCode status) {
+        return status.is2xxSuccessful() || status.value() == HttpStatus.BAD_REQUEST.value()
+                || status.value() == HttpStatus.NOT_FOUND.value();
+    }
+
+    private boolean isExpired(IdempotencyRecord record) {
+        return record.getCreatedAt().isBefore(LocalDateTime.now().minus(retention));
+    }
+
+    private StoredResponse toStored(IdempotencyRecord record) {
+        if (record.getStatus() == null) {
+            return inProgress(record.getFingerprint());
+        }
+        return new StoredResponse(record.getFingerprint(), record.getStatus(), record.getBody(), true);
+    }
+
+    private static StoredResponse inProgress(String fingerprint) {
+        return new StoredResponse(fingerprint, HttpStatus.CONFLICT.value(), null, false);
+    }
+
+    private ResponseEntity<Card> toResponse(StoredResponse stored) {
+        try {
+            Card card = stored.body() != null ? objectMapper.readValue(stored.body(), Card.class) : null;
+            return ResponseEntity.status(stored.status()).body(card);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String toJson(Card card) {
+        try {
+            return objectMapper.writeValueAsString(card);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long weightedSize(AsyncCache<String, StoredResponse> cache) {
+        return cache.synchronous().policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    void purge() {
+        try {
+            repository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+        } catch (RuntimeException e) {
+            log.warn("Could not delete expired idempotency keys, retrying at the next interval", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        purger.shutdownNow();
+    }
+}
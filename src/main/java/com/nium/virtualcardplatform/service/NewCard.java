@@ -0,0 +1,14 @@
+package com.nium.virtualcardplatform.service;
+
+import com.nium.virtualcardplatform.model.Money;
+
+/**
+ * One card of a bulk issuance.
+ */
+public record NewCard(String cardholderName, Money initialBalance) {
+
+    public boolean isValid() {
+        return cardholderName != null && !cardholderName.trim().isEmpty()
+                && initialBalance != null && initialBalance.signum() >= 0;
+    }
+}
@@ -0,0 +1,42 @@
+package com.nium.virtualcardplatform.service;
+
+import com.nium.virtualcardplatform.model.TransactionRow;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in the transaction history of a card: the (createdAt, id) key of the last transaction of a page.
+ * Sent to clients as an opaque URL-safe string.
+ */
+public record TransactionCursor(LocalDateTime createdAt, UUID id) {
+
+    public static TransactionCursor of(TransactionRow transaction) {
+        return new TransactionCursor(transaction.createdAt(), transaction.id());
+    }
+
+    public String encode() {
+        String key = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value is not a cursor returned by encode()
+     */
+    public static TransactionCursor decode(String value) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = key.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + value);
+            }
+            return new TransactionCursor(LocalDateTime.parse(key.substring(0, separator)),
+                    UUID.fromString(key.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.nium.virtualcardplatform.service;
+
+/**
+ * One page of the transaction history of a card, with the ETag of the history it was read at.
+ */
+public record TransactionHistory(String tag, TransactionPage page) {
+}
@@ -0,0 +1,16 @@
+package com.nium.virtualcardplatform.service;
+
+import com.nium.virtualcardplatform.model.TransactionRow;
+
+import java.util.List;
+
+/**
+ * One page of the transaction history of a card.
+ * @param next Cursor of the following page, or null if this is the last one.
+ */
+public record TransactionPage(List<TransactionRow> transactions, TransactionCursor next) {
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
@@ -0,0 +1,145 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Strategy that lets the database apply the mutation with a single conditional UPDATE
+ * (balance check, balance change and version bump in one statement).
+ * The row lock taken by the UPDATE serializes writers on the same card, so there is no
+ * read-compare-write window and nothing to retry. A spend or top-up gets the updated card from the UPDATE itself,
+ * so it costs the UPDATE and the INSERT of its transaction, without reading the card again.
+ * Selected with card.balance.strategy=atomic.
+ */
+@Component
+@ConditionalOnProperty(name = "card.balance.strategy", havingValue = "atomic")
+public class AtomicBalanceMutationStrategy implements BalanceMutationStrategy {
+
+    private final CardRepository cardRepository;
+    private final TransactionRepository transactionRepository;
+    private final Cache secondLevelCache;
+
+    @Autowired
+    public AtomicBalanceMutationStrategy(CardRepository cardRepository, TransactionRepository transactionRepository,
+                                         EntityManagerFactory entityManagerFactory) {
+        this.cardRepository = cardRepository;
+        this.transactionRepository = transactionRepository;
+        this.secondLevelCache = entityManagerFactory.getCache();
+    }
+
+    @Override
+    public String name() {
+        return "atomic";
+    }
+
+    @Override
+    @Transactional
+    public CompletableFuture<Card> spend(UUID cardId, Money amount) {
+        Card card = cardRepository.debitReturningCard(cardId, amount.toBigDecimal()).orElseThrow(() -> {
+            // No row matched: only now do we pay for a second query to tell the two cases apart
+            if (!cardRepository.existsById(cardId)) {
+                return new IllegalArgumentException("Card not found with ID: " + cardId);
+            }
+            return new IllegalStateException("Insufficient balance for card ID: " + cardId);
+        });
+        return CompletableFuture.completedFuture(recordTransaction(card, Transaction.TransactionType.SPEND, amount));
+    }
+
+    @Override
+    @Transactional
+    public CompletableFuture<Card> topUp(UUID cardId, Money amount) {
+        Card card = cardRepository.creditReturningCard(cardId, amount.toBigDecimal())
+                .orElseThrow(() -> new IllegalArgumentException("Card not found with ID: " + cardId));
+        return CompletableFuture.completedFuture(recordTransaction(card, Transaction.TransactionType.TOPUP, amount));
+    }
+
+    /**
+     * Runs the conditional updates of the group in one transaction and inserts its transactions in one
+     * JDBC batch. The card is read once at the end: the balance and version after each mutation are derived from it
+     * (each applied UPDATE adds 1 to the version), as the row stays locked from the first update to the commit.
+     * The existence of the card is only checked once, if the first updates match no row.
+     */
+    @Override
+    @Transactional
+    public List<CompletableFuture<Card>> applyInOrder(UUID cardId, List<BalanceMutation> mutations) {
+        List<Transaction> transactions = new ArrayList<>(mutations.size());
+        boolean[] applied = new boolean[mutations.size()];
+        boolean exists = false;
+        for (int i = 0; i < mutations.size(); i++) {
+            BalanceMutation mutation = mutations.get(i);
+            applied[i] = (mutation.type() == Transaction.TransactionType.SPEND
+                    ? cardRepository.debitIfSufficientBalance(cardId, mutation.amount())
+                    : cardRepository.credit(cardId, mutation.amount())) == 1;
+            if (applied[i]) {
+                transactions.add(new Transaction(cardId, mutation.type(), mutation.amount()));
+                exists = true;
+            } else if (!exists) {
+                if (!cardRepository.existsById(cardId)) {
+                    throw new IllegalArgumentException("Card not found with ID: " + cardId);
+                }
+                exists = true;
+            }
+        }
+
+        Card card = null;
+        if (!transactions.isEmpty()) {
+            transactionRepository.saveAll(transactions);
+            card = cardRepository.reloadById(cardId)
+                    .orElseThrow(() -> new IllegalArgumentException("Card not found with ID: " + cardId));
+        }
+        CardMutationGroup.Outcome[] outcomes = new CardMutationGroup.Outcome[mutations.size()];
+        Money balance = card != null ? card.getBalance() : null;
+        long version = card != null ? card.getVersion() : 0;
+        for (int i = mutations.size() - 1; i >= 0; i--) {
+            BalanceMutation mutation = mutations.get(i);
+            if (!applied[i]) {
+                outcomes[i] = new CardMutationGroup.Outcome(null,
+                        new IllegalStateException("Insufficient balance for card ID: " + cardId));
+                continue;
+            }
+            Card after = CardMutationGroup.copyWithBalance(card, balance);
+            after.setVersion(version);
+            outcomes[i] = new CardMutationGroup.Outcome(after, null);
+            // Balance and version before this mutation, i.e. after the previous one
+            balance = mutation.type() == Transaction.TransactionType.SPEND
+                    ? balance.add(mutation.amount())
+                    : balance.subtract(mutation.amount());
+            version--;
+        }
+        return CardMutationGroup.split(CompletableFuture.completedFuture(List.of(outcomes)), mutations.size());
+    }
+
+    private Card recordTransaction(Card card, Transaction.TransactionType type, Money amount) {
+        transactionRepository.save(new Transaction(card.getId(), type, amount));
+        evictAfterCompletion(card.getId());
+        return card;
+    }
+
+    // The UPDATE returning the card is a native query, which Hibernate does not treat as a change of the cards
+    // region: the card is evicted from the second-level cache (l2-cache profile) once the transaction has committed
+    // or rolled back, so a reader that cached the previous state in the meantime is not served it afterwards
+    private void evictAfterCompletion(UUID cardId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                secondLevelCache.evict(Card.class, cardId);
+            }
+        });
+    }
+}
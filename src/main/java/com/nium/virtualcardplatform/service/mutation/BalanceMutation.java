@@ -0,0 +1,10 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+
+/**
+ * A spend or top-up of a given (positive) amount, as applied by BalanceMutationStrategy.applyInOrder.
+ */
+public record BalanceMutation(Transaction.TransactionType type, Money amount) {
+}
@@ -0,0 +1,128 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongFunction;
+
+/**
+ * Strategy used by CardService to apply balance mutations (spend / top-up) to a card.
+ * Amounts are validated by CardService before reaching the strategy, so implementations
+ * only deal with persistence and concurrency control.
+ *
+ * Mutations are asynchronous: implementations must not park the calling thread to wait
+ * (backoff, queueing on their own threads); they may either throw or return a failed future.
+ *
+ * Error contract shared by all implementations:
+ * - IllegalArgumentException if the card does not exist.
+ * - IllegalStateException if the card has insufficient balance (spend only).
+ * - RuntimeException mentioning "concurrent modifications" if the mutation could not be applied
+ *   because of concurrent updates.
+ *
+ * The active implementation is selected with the "card.balance.strategy" property.
+ */
+public interface BalanceMutationStrategy {
+
+    /**
+     * Name of the strategy, as used in the "card.balance.strategy" property and in metrics tags.
+     */
+    String name();
+
+    /**
+     * Subtracts the amount from the card balance and records a SPEND transaction.
+     * @param cardId The ID of the card.
+     * @param amount The amount to spend (positive).
+     * @return A future completed with the updated Card object.
+     */
+    CompletableFuture<Card> spend(UUID cardId, Money amount);
+
+    /**
+     * Adds the amount to the card balance and records a TOPUP transaction.
+     * @param cardId The ID of the card.
+     * @param amount The amount to top-up (positive).
+     * @return A future completed with the updated Card object.
+     */
+    CompletableFuture<Card> topUp(UUID cardId, Money amount);
+
+    /**
+     * Applies a spend or a top-up.
+     */
+    default CompletableFuture<Card> apply(UUID cardId, BalanceMutation mutation) {
+        return mutation.type() == Transaction.TransactionType.SPEND
+                ? spend(cardId, mutation.amount())
+                : topUp(cardId, mutation.amount());
+    }
+
+    /**
+     * Applies several mutations of the same card in the given order. Each one succeeds or fails on its own,
+     * with the error contract of spend / topUp (e.g. a rejected spend does not stop the next mutations).
+     * The default starts each mutation once the previous one has completed; strategies override it to apply
+     * the whole group in one database transaction, or to queue it at once when they keep per-card order.
+     * @return One future per mutation, in the same order.
+     */
+    default List<CompletableFuture<Card>> applyInOrder(UUID cardId, List<BalanceMutation> mutations) {
+        List<CompletableFuture<Card>> results = new ArrayList<>(mutations.size());
+        CompletableFuture<?> previous = CompletableFuture.completedFuture(null);
+        for (BalanceMutation mutation : mutations) {
+            CompletableFuture<Card> result = previous
+                    .handle((card, error) -> null)
+                    .thenCompose(ignored -> apply(cardId, mutation));
+            results.add(result);
+            previous = result;
+        }
+        return results;
+    }
+
+    /**
+     * Whether the strategy already applies mutations of the same card one at a time on this node,
+     * either on its own threads or by taking the local card lock itself around each attempt.
+     * When true, CardService does not take the local per-card lock.
+     */
+    default boolean serializesPerCard() {
+        return false;
+    }
+
+    /**
+     * Returns the card as it must be exposed to readers. Strategies that keep Card.balance up to date
+     * return the card as loaded; strategies that store the balance elsewhere (e.g. event-sourced)
+     * return a copy carrying the current balance.
+     * @param card The card as loaded from the database.
+     */
+    default Card currentState(Card card) {
+        return card;
+    }
+
+    /**
+     * Same as currentState for several cards, as read by the list, page and stream endpoints. By default one call of
+     * currentState per card; strategies whose currentState may query the database override it to read the state of
+     * all the cards with one query.
+     * @param cards The cards as loaded from the database.
+     * @return The cards to expose, in the same order.
+     */
+    default List<Card> currentStates(List<Card> cards) {
+        return cards.stream().map(this::currentState).toList();
+    }
+
+    /**
+     * Returns a tag of the current state of the card and of its transaction history, used as HTTP ETag:
+     * it must change whenever the balance or the history changes. By default the row version, as every mutation
+     * increments it; strategies that change the balance without writing the row add their own position.
+     * @param version The version of the card row, read before the state it tags is served.
+     */
+    default String stateTag(UUID cardId, long version) {
+        return stateTagger(cardId).apply(version);
+    }
+
+    /**
+     * Same tag as stateTag, for a version read afterwards, in the same query as the state it tags. The strategy's
+     * own position is taken when this is called, before that query, so the tag is never newer than the state served.
+     */
+    default LongFunction<String> stateTagger(UUID cardId) {
+        return Long::toString;
+    }
+}
@@ -0,0 +1,21 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import java.util.UUID;
+
+/**
+ * Hashing shared by components that partition work by card ID (shards, lock stripes).
+ */
+final class CardIdHash {
+
+    private CardIdHash() {}
+
+    /**
+     * Folds the 128 UUID bits into a well spread int, so that similar IDs still land on
+     * different partitions.
+     */
+    static int spread(UUID cardId) {
+        long bits = cardId.getMostSignificantBits() ^ cardId.getLeastSignificantBits();
+        int hash = (int) (bits ^ (bits >>> 32));
+        return hash ^ (hash >>> 16);
+    }
+}
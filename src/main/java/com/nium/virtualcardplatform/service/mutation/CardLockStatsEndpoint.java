@@ -0,0 +1,42 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint (GET /actuator/cardlocks) with the contention stats of the per-card lock table,
+ * used to size card.balance.local-locks.stripes.
+ */
+@Component
+@Endpoint(id = "cardlocks")
+public class CardLockStatsEndpoint {
+
+    private static final int HOTTEST_STRIPES_LIMIT = 20;
+
+    private final StripedCardLockManager lockManager;
+
+    @Autowired
+    public CardLockStatsEndpoint(StripedCardLockManager lockManager) {
+        this.lockManager = lockManager;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        long acquisitions = lockManager.getTotalAcquisitions();
+        long contended = lockManager.getTotalContendedAcquisitions();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", lockManager.isEnabled());
+        stats.put("stripes", lockManager.getStripeCount());
+        stats.put("acquisitions", acquisitions);
+        stats.put("contendedAcquisitions", contended);
+        stats.put("contendedRatio", acquisitions == 0 ? 0.0 : (double) contended / acquisitions);
+        stats.put("hottestStripes", lockManager.getHottestStripes(HOTTEST_STRIPES_LIMIT));
+        return stats;
+    }
+}
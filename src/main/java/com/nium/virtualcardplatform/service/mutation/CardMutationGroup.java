@@ -0,0 +1,94 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Applies a group of mutations of one card, loaded in the current transaction, with a single write:
+ * the card row is updated once and the Transaction rows are inserted in one JDBC batch.
+ * Used by the strategies that read the card row (optimistic, pessimistic) to implement applyInOrder;
+ * Outcome and split are shared with the atomic strategy.
+ */
+final class CardMutationGroup {
+
+    private CardMutationGroup() {
+    }
+
+    /**
+     * Result of one mutation of the group: the card after it, or the reason it was rejected.
+     */
+    record Outcome(Card card, RuntimeException error) {
+
+        Card orThrow() {
+            if (error != null) {
+                throw error;
+            }
+            return card;
+        }
+    }
+
+    /**
+     * Applies the mutations in order to the (managed) card and writes them.
+     * A spend exceeding the balance at its turn is rejected with IllegalStateException and the others still apply.
+     */
+    static List<Outcome> apply(Card card, List<BalanceMutation> mutations,
+                               CardRepository cardRepository, TransactionRepository transactionRepository) {
+        List<Outcome> outcomes = new ArrayList<>(mutations.size());
+        List<Transaction> transactions = new ArrayList<>(mutations.size());
+        Money balance = card.getBalance();
+        for (BalanceMutation mutation : mutations) {
+            if (mutation.type() == Transaction.TransactionType.SPEND && balance.compareTo(mutation.amount()) < 0) {
+                outcomes.add(new Outcome(null,
+                        new IllegalStateException("Insufficient balance for card ID: " + card.getId())));
+                continue;
+            }
+            balance = mutation.type() == Transaction.TransactionType.SPEND
+                    ? balance.subtract(mutation.amount())
+                    : balance.add(mutation.amount());
+            transactions.add(new Transaction(card.getId(), mutation.type(), mutation.amount()));
+            outcomes.add(new Outcome(copyWithBalance(card, balance), null));
+        }
+        if (transactions.isEmpty()) {
+            return outcomes;
+        }
+
+        card.setBalance(balance);
+        transactionRepository.saveAll(transactions);
+        // Flushed here so that the version check happens now and the new version can be returned
+        Card updated = cardRepository.saveAndFlush(card);
+        for (Outcome outcome : outcomes) {
+            if (outcome.card() != null) {
+                outcome.card().setVersion(updated.getVersion());
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * One future per mutation of a group applied as a whole.
+     */
+    static List<CompletableFuture<Card>> split(CompletableFuture<List<Outcome>> group, int size) {
+        List<CompletableFuture<Card>> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int index = i;
+            results.add(group.thenApply(outcomes -> outcomes.get(index).orThrow()));
+        }
+        return results;
+    }
+
+    static Card copyWithBalance(Card card, Money balance) {
+        Card copy = new Card(card.getCardholderName(), balance);
+        copy.setId(card.getId());
+        copy.setCreatedAt(card.getCreatedAt());
+        copy.setVersion(card.getVersion());
+        copy.setSnapshotSequence(card.getSnapshotSequence());
+        return copy;
+    }
+}
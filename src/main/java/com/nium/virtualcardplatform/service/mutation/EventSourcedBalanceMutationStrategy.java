@@ -0,0 +1,237 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Event-sourced ledger: the transactions table is the append-only source of truth. Every mutation appends one
+ * Transaction with the next per-card sequence number, and the unique key (card_id, sequence_number) rejects a
+ * second writer of the same position, which is retried through the RetryScheduler like a version conflict.
+ *
+ * Card.balance is no longer updated on every mutation: it is a snapshot of the balance at Card.snapshotSequence,
+ * written every card.balance.event-sourced.snapshot-every transactions. The current balance is the snapshot plus
+ * the transactions recorded after it. The projection of each card used on this node (snapshot + in-memory delta)
+ * is kept in memory and advanced on every append, so reads and balance checks are O(1); it is rebuilt by
+ * replaying the transactions after the snapshot when a card is first used or after a conflict. Up to
+ * card.balance.event-sourced.max-cached-cards projections are kept (least recently used evicted first).
+ * Lists and streams of cards compute the balances of cards without projection with one set-based query and do not
+ * add them to the projections, nor does the ETag of a card (version and last ledger position).
+ *
+ * When local card locks are enabled, every attempt (including retries) runs under the card's stripe, as with the
+ * optimistic strategy.
+ *
+ * Switching back to another strategy requires the snapshots to be up to date (Card.balance is then stale).
+ * Selected with card.balance.strategy=event-sourced.
+ */
+@Component
+@ConditionalOnProperty(name = "card.balance.strategy", havingValue = "event-sourced")
+public class EventSourcedBalanceMutationStrategy implements BalanceMutationStrategy {
+
+    private final CardRepository cardRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StripedCardLockManager cardLockManager;
+    private final RetryScheduler retryScheduler;
+    private final int maxAttempts;
+    private final long snapshotEvery;
+    // One entry per recently used card of this node (a few objects each); an evicted card is replayed again
+    private final Cache<UUID, LedgerState> ledgers;
+
+    @Autowired
+    public EventSourcedBalanceMutationStrategy(CardRepository cardRepository,
+                                               TransactionRepository transactionRepository,
+                                               PlatformTransactionManager transactionManager,
+                                               StripedCardLockManager cardLockManager,
+                                               RetryScheduler retryScheduler,
+                                               @Value("${card.balance.optimistic.max-attempts:3}") int maxAttempts,
+                                               @Value("${card.balance.event-sourced.snapshot-every:100}") long snapshotEvery,
+                                               @Value("${card.balance.event-sourced.max-cached-cards:100000}") long maxCachedCards) {
+        if (snapshotEvery <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be a positive number.");
+        }
+        this.cardRepository = cardRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cardLockManager = cardLockManager;
+        this.retryScheduler = retryScheduler;
+        this.maxAttempts = maxAttempts;
+        this.snapshotEvery = snapshotEvery;
+        this.ledgers = Caffeine.newBuilder().maximumSize(maxCachedCards).build();
+    }
+
+    @Override
+    public String name() {
+        return "event-sourced";
+    }
+
+    @Override
+    public boolean serializesPerCard() {
+        return cardLockManager.isEnabled();
+    }
+
+    @Override
+    public CompletableFuture<Card> spend(UUID cardId, Money amount) {
+        return retryScheduler.execute("spend transaction", maxAttempts,
+                () -> runAttempt(cardId, () -> append(cardId, Transaction.TransactionType.SPEND, amount)));
+    }
+
+    @Override
+    public CompletableFuture<Card> topUp(UUID cardId, Money amount) {
+        return retryScheduler.execute("top-up transaction", maxAttempts,
+                () -> runAttempt(cardId, () -> append(cardId, Transaction.TransactionType.TOPUP, amount)));
+    }
+
+    // Runs one attempt under the local card lock when enabled
+    private <T> T runAttempt(UUID cardId, Supplier<T> attempt) {
+        return cardLockManager.isEnabled() ? cardLockManager.runLocked(cardId, attempt) : attempt.get();
+    }
+
+    // The card may be a copy returned by an earlier mutation (e.g. from the read cache), whose balance already
+    // includes the transactions after its snapshot: the projection is only rebuilt from the database row
+    @Override
+    public Card currentState(Card card) {
+        LedgerState state = ledgers.getIfPresent(card.getId());
+        if (state == null) {
+            state = advance(card.getId(), load(card.getId()));
+        }
+        return CardMutationGroup.copyWithBalance(card, state.balance());
+    }
+
+    // Cards without projection: snapshot plus delta, all read by one query
+    @Override
+    public List<Card> currentStates(List<Card> cards) {
+        Map<UUID, LedgerState> projected = ledgers.getAllPresent(cards.stream().map(Card::getId).toList());
+        List<UUID> missing = cards.stream().map(Card::getId).filter(id -> !projected.containsKey(id)).toList();
+        Map<UUID, TransactionRepository.CardLedgerDelta> deltas = new HashMap<>();
+        if (!missing.isEmpty()) {
+            transactionRepository.replayAfterSnapshots(missing).forEach(delta -> deltas.put(delta.getCardId(), delta));
+        }
+
+        List<Card> states = new ArrayList<>(cards.size());
+        for (Card card : cards) {
+            LedgerState state = projected.get(card.getId());
+            TransactionRepository.CardLedgerDelta delta = deltas.get(card.getId());
+            Money balance;
+            if (state != null) {
+                balance = state.balance();
+            } else if (delta != null && delta.getSnapshotSequence() == card.getSnapshotSequence().longValue()) {
+                balance = card.getBalance().add(Money.ofDecimal(delta.getDelta()));
+            } else {
+                balance = replay(card).balance(); // A snapshot was written since the card was read
+            }
+            states.add(CardMutationGroup.copyWithBalance(card, balance));
+        }
+        return states;
+    }
+
+    // The row version only changes with snapshots: the ledger position changes with every transaction
+    @Override
+    public LongFunction<String> stateTagger(UUID cardId) {
+        LedgerState current = ledgers.getIfPresent(cardId);
+        long sequence = current != null ? current.sequence() : transactionRepository.findLastSequence(cardId);
+        return version -> version + "." + sequence;
+    }
+
+    /**
+     * Appends the transaction at the next position of the card's ledger, in its own database transaction.
+     * @throws OptimisticLockingFailureException If the position was taken by another writer (retried).
+     */
+    private Card append(UUID cardId, Transaction.TransactionType type, Money amount) {
+        LedgerState committed;
+        try {
+            committed = transactionTemplate.execute(status -> {
+                LedgerState state = ledgers.getIfPresent(cardId);
+                if (state == null) {
+                    state = load(cardId);
+                } else if (type == Transaction.TransactionType.SPEND && state.balance().compareTo(amount) < 0) {
+                    // The in-memory projection may lag behind another node: check again before rejecting
+                    state = load(cardId);
+                }
+                if (type == Transaction.TransactionType.SPEND && state.balance().compareTo(amount) < 0) {
+                    throw new IllegalStateException("Insufficient balance for card ID: " + cardId);
+                }
+
+                long sequence = state.sequence() + 1;
+                Money balance = type == Transaction.TransactionType.SPEND
+                        ? state.balance().subtract(amount)
+                        : state.balance().add(amount);
+                try {
+                    transactionRepository.saveAndFlush(new Transaction(cardId, type, amount, sequence));
+                } catch (DataIntegrityViolationException e) {
+                    throw new OptimisticLockingFailureException(
+                            "Ledger position " + sequence + " of card " + cardId + " was taken by another writer", e);
+                }
+
+                long snapshotSequence = state.snapshotSequence();
+                if (sequence - snapshotSequence >= snapshotEvery) {
+                    cardRepository.snapshot(cardId, balance, sequence);
+                    snapshotSequence = sequence;
+                }
+                return new LedgerState(state.card(), balance, sequence, snapshotSequence);
+            });
+        } catch (OptimisticLockingFailureException e) {
+            // The projection is behind the ledger: rebuild it on the next attempt
+            ledgers.invalidate(cardId);
+            throw e;
+        }
+        advance(cardId, committed);
+        return CardMutationGroup.copyWithBalance(committed.card(), committed.balance());
+    }
+
+    /**
+     * Rebuilds the projection of the card from its snapshot and the transactions recorded after it.
+     */
+    private LedgerState load(UUID cardId) {
+        Card card = cardRepository.findById(cardId)
+                .orElseThrow(() -> new IllegalArgumentException("Card not found with ID: " + cardId));
+        return replay(card);
+    }
+
+    /**
+     * Projection of the card from a row read from the database: Card.balance is the snapshot at snapshotSequence.
+     */
+    private LedgerState replay(Card card) {
+        long snapshotSequence = card.getSnapshotSequence();
+        TransactionRepository.LedgerDelta delta = transactionRepository.replayAfter(card.getId(), snapshotSequence);
+        long sequence = delta.getLastSequence() != null ? delta.getLastSequence() : snapshotSequence;
+        return new LedgerState(CardMutationGroup.copyWithBalance(card, card.getBalance()),
+                card.getBalance().add(Money.ofDecimal(delta.getDelta())), sequence, snapshotSequence);
+    }
+
+    // Keeps the most advanced of two committed states, whichever thread gets there first
+    private LedgerState advance(UUID cardId, LedgerState state) {
+        return ledgers.asMap()
+                .merge(cardId, state, (current, next) -> next.sequence() > current.sequence() ? next : current);
+    }
+
+    /**
+     * Committed projection of a card: balance after the transaction at the given sequence number.
+     * @param card Detached copy of the card (ID, cardholder, creation date).
+     */
+    private record LedgerState(Card card, Money balance, long sequence, long snapshotSequence) {
+    }
+}
@@ -0,0 +1,236 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Group commit: mutations of the same card arriving within a short window (card.balance.group-commit.window-micros)
+ * or until max-batch-size commands are pending are applied together, in arrival order, against one loaded Card.
+ * A batch costs one SELECT, one Card UPDATE and one batch of Transaction INSERTs, so a hot card turns a
+ * retry storm into fewer, larger transactions. Each caller is completed individually: spends that the running
+ * balance cannot cover are rejected with IllegalStateException without affecting the rest of the batch.
+ *
+ * Batches of a card are committed one at a time, in order. A version conflict (another node) re-runs the whole
+ * batch through the RetryScheduler.
+ * Flush threads come from MutationThreadFactory (virtual threads when spring.threads.virtual.enabled is set).
+ * Selected with card.balance.strategy=group-commit.
+ */
+@Component
+@ConditionalOnProperty(name = "card.balance.strategy", havingValue = "group-commit")
+public class GroupCommitBalanceMutationStrategy implements BalanceMutationStrategy, DisposableBean {
+
+    private static final int IDLE = 0;
+    private static final int ARMED = 1;
+    private static final int RUNNING = 2;
+
+    private final CardRepository cardRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RetryScheduler retryScheduler;
+    private final DistributionSummary batchSizes;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final int maxAttempts;
+    private final ConcurrentHashMap<UUID, CardQueue> queues = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+    private final ExecutorService flushExecutor;
+
+    @Autowired
+    public GroupCommitBalanceMutationStrategy(CardRepository cardRepository,
+                                              TransactionRepository transactionRepository,
+                                              PlatformTransactionManager transactionManager,
+                                              RetryScheduler retryScheduler,
+                                              MeterRegistry meterRegistry,
+                                              MutationThreadFactory threadFactory,
+                                              @Value("${card.balance.group-commit.window-micros:1000}") long windowMicros,
+                                              @Value("${card.balance.group-commit.max-batch-size:64}") int maxBatchSize,
+                                              @Value("${card.balance.group-commit.flush-threads:4}") int flushThreads,
+                                              @Value("${card.balance.optimistic.max-attempts:3}") int maxAttempts) {
+        this.cardRepository = cardRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.retryScheduler = retryScheduler;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.maxAttempts = maxAttempts;
+        this.batchSizes = DistributionSummary.builder("card.balance.group-commit.batch-size")
+                .description("Commands applied per group-commit transaction")
+                .register(meterRegistry);
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "group-commit-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flushExecutor = Executors.newFixedThreadPool(flushThreads, threadFactory.named("group-commit-flush-"));
+    }
+
+    @Override
+    public String name() {
+        return "group-commit";
+    }
+
+    @Override
+    public boolean serializesPerCard() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Card> spend(UUID cardId, Money amount) {
+        return submit(cardId, new Command(new BalanceMutation(Transaction.TransactionType.SPEND, amount)));
+    }
+
+    @Override
+    public CompletableFuture<Card> topUp(UUID cardId, Money amount) {
+        return submit(cardId, new Command(new BalanceMutation(Transaction.TransactionType.TOPUP, amount)));
+    }
+
+    /**
+     * Commands of a card are queued in submission order, so the whole group is submitted at once.
+     */
+    @Override
+    public List<CompletableFuture<Card>> applyInOrder(UUID cardId, List<BalanceMutation> mutations) {
+        return mutations.stream().map(mutation -> apply(cardId, mutation)).toList();
+    }
+
+    private CompletableFuture<Card> submit(UUID cardId, Command command) {
+        // Enqueue inside compute so an idle queue cannot be removed between lookup and add
+        CardQueue queue = queues.compute(cardId, (id, existing) -> {
+            CardQueue target = existing != null ? existing : new CardQueue(id);
+            target.pending.incrementAndGet();
+            target.commands.add(command);
+            return target;
+        });
+
+        if (queue.state.compareAndSet(IDLE, ARMED)) {
+            // First command of a batch: wait for the window so that followers can join it
+            timer.schedule(() -> fire(queue), windowMicros, TimeUnit.MICROSECONDS);
+        } else if (queue.pending.get() >= maxBatchSize && queue.state.get() == ARMED) {
+            // Batch already full: no need to wait for the rest of the window
+            fire(queue);
+        }
+        return command.result;
+    }
+
+    private void fire(CardQueue queue) {
+        if (queue.state.compareAndSet(ARMED, RUNNING)) {
+            flushExecutor.execute(() -> flushNext(queue));
+        }
+    }
+
+    /**
+     * Commits the next batch of the card, then continues with the following one once it completes,
+     * so batches of a card never overlap.
+     */
+    private void flushNext(CardQueue queue) {
+        List<Command> batch = new ArrayList<>();
+        Command command;
+        while (batch.size() < maxBatchSize && (command = queue.commands.poll()) != null) {
+            batch.add(command);
+        }
+        queue.pending.addAndGet(-batch.size());
+
+        if (batch.isEmpty()) {
+            queue.state.set(IDLE);
+            // A command may have been added after the poll; if so, take over again
+            if (queue.pending.get() > 0 && queue.state.compareAndSet(IDLE, RUNNING)) {
+                flushExecutor.execute(() -> flushNext(queue));
+            } else {
+                queues.computeIfPresent(queue.cardId,
+                        (id, current) -> current == queue && current.pending.get() == 0 && current.state.get() == IDLE
+                                ? null : current);
+            }
+            return;
+        }
+
+        batchSizes.record(batch.size());
+        retryScheduler.execute("group-commit transaction", maxAttempts, () -> applyBatch(queue.cardId, batch))
+                .whenComplete((committed, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        batch.forEach(pending -> pending.result.completeExceptionally(cause));
+                    } else {
+                        completeCallers(batch, committed);
+                    }
+                    flushExecutor.execute(() -> flushNext(queue));
+                });
+    }
+
+    /**
+     * Applies the batch in arrival order in one transaction, as CardMutationGroup does for applyInOrder.
+     * Returns the outcome of each command: the card right after it, or the reason it was rejected.
+     */
+    private List<CardMutationGroup.Outcome> applyBatch(UUID cardId, List<Command> batch) {
+        return transactionTemplate.execute(status -> {
+            Card card = cardRepository.findById(cardId)
+                    .orElseThrow(() -> new IllegalArgumentException("Card not found with ID: " + cardId));
+            List<BalanceMutation> mutations = batch.stream().map(command -> command.mutation).toList();
+            return CardMutationGroup.apply(card, mutations, cardRepository, transactionRepository);
+        });
+    }
+
+    private void completeCallers(List<Command> batch, List<CardMutationGroup.Outcome> outcomes) {
+        for (int i = 0; i < batch.size(); i++) {
+            CardMutationGroup.Outcome outcome = outcomes.get(i);
+            if (outcome.error() != null) {
+                batch.get(i).result.completeExceptionally(outcome.error());
+            } else {
+                batch.get(i).result.complete(outcome.card());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        timer.shutdown();
+        flushExecutor.shutdown();
+        flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private static final class Command {
+        private final BalanceMutation mutation;
+        private final CompletableFuture<Card> result = new CompletableFuture<>();
+
+        private Command(BalanceMutation mutation) {
+            this.mutation = mutation;
+        }
+    }
+
+    private static final class CardQueue {
+        private final UUID cardId;
+        private final ConcurrentLinkedQueue<Command> commands = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+
+        private CardQueue(UUID cardId) {
+            this.cardId = cardId;
+        }
+    }
+}
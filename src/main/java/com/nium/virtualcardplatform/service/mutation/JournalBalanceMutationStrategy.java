@@ -0,0 +1,421 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * Write-ahead journal strategy: a mutation is acknowledged once its record is durable in the MutationJournal
+ * (memory-mapped segments, one fsync shared by every record of a flush), without waiting for the database.
+ * The database becomes a materialization of the journal, updated asynchronously in batches by a background
+ * thread: one transaction per batch inserts the Transaction rows (with their per-card sequence number) and stores
+ * the balance of each card as of its last record (Card.balance at Card.snapshotSequence).
+ *
+ * The balance of each card used on this node is kept in memory and is the authority for balance checks and reads,
+ * so GET /cards/{id} is up to date while the database catches up; the transaction history is eventually consistent.
+ * The balance check, the new balance and the hand-off of the record to the journal are one step per card, so the
+ * records of a card are in the journal in sequence order: a record is only durable (and acknowledged) after every
+ * earlier record of its card, and a torn tail never keeps a record whose balance includes a lost one. The hand-off
+ * only queues the record: the journal's writer thread writes it, rolls over segments and forces them.
+ * If the record cannot be made durable the reservation is undone, or the card's state is dropped and reloaded when
+ * later mutations were reserved on top of it. The journal then rejects every later record until the application is
+ * restarted (which recovers the valid prefix of the journal), and JournalHealthIndicator reports DOWN.
+ * Beyond max-cached-cards, the states of cards whose records are all in the database are dropped after each
+ * materialized batch.
+ *
+ * Mutations are rejected (RejectedExecutionException) while max-backlog records are waiting to be written to the
+ * database, so a database outage cannot grow the journal and the queue without bound; the backlog is exposed as the
+ * card.balance.journal.materialization.lag gauge and by JournalHealthIndicator.
+ * On startup, the records of the journal tail that the database does not have yet are materialized before the
+ * application serves requests; fully materialized segments are deleted.
+ *
+ * The journal is local to the node: this strategy assumes a single writer node per database.
+ * Selected with card.balance.strategy=journal.
+ */
+@Component
+@ConditionalOnProperty(name = "card.balance.strategy", havingValue = "journal")
+public class JournalBalanceMutationStrategy implements BalanceMutationStrategy, InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalBalanceMutationStrategy.class);
+
+    private final CardRepository cardRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final MutationThreadFactory threadFactory;
+    private final Path directory;
+    private final int segmentRecords;
+    private final long fsyncIntervalMicros;
+    private final int fsyncBatchSize;
+    private final int materializeBatchSize;
+    private final long maxBacklog;
+    private final int maxCachedCards;
+    private final ConcurrentHashMap<UUID, CardState> states = new ConcurrentHashMap<>();
+    // Durable records waiting to be written to the database, in journal order
+    private final BlockingQueue<MutationJournal.Entry> toMaterialize = new LinkedBlockingQueue<>();
+    private final DistributionSummary fsyncBatchSizes;
+    private volatile long materializedIndex;
+    private volatile int failedAttempts; // Of the batch being materialized, 0 once it is written
+    private volatile boolean stopping;
+    private MutationJournal journal;
+    private Thread materializer;
+
+    @Autowired
+    public JournalBalanceMutationStrategy(CardRepository cardRepository,
+                                          TransactionRepository transactionRepository,
+                                          PlatformTransactionManager transactionManager,
+                                          MeterRegistry meterRegistry,
+                                          MutationThreadFactory threadFactory,
+                                          @Value("${card.balance.journal.directory:journal}") Path directory,
+                                          @Value("${card.balance.journal.segment-records:65536}") int segmentRecords,
+                                          @Value("${card.balance.journal.fsync-interval-micros:1000}") long fsyncIntervalMicros,
+                                          @Value("${card.balance.journal.fsync-batch-size:256}") int fsyncBatchSize,
+                                          @Value("${card.balance.journal.materialize-batch-size:500}") int materializeBatchSize,
+                                          @Value("${card.balance.journal.max-backlog:1000000}") long maxBacklog,
+                                          @Value("${card.balance.journal.max-cached-cards:100000}") int maxCachedCards) {
+        this.cardRepository = cardRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        this.threadFactory = threadFactory;
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.fsyncIntervalMicros = fsyncIntervalMicros;
+        this.fsyncBatchSize = fsyncBatchSize;
+        this.materializeBatchSize = materializeBatchSize;
+        this.maxBacklog = maxBacklog;
+        this.maxCachedCards = maxCachedCards;
+        this.fsyncBatchSizes = DistributionSummary.builder("card.balance.journal.fsync.batch-size")
+                .description("Journal records made durable by one fsync")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens the journal and materializes its tail before the application starts serving requests.
+     */
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        journal = new MutationJournal(directory, segmentRecords, fsyncIntervalMicros, fsyncBatchSize, this::onDurable);
+        List<MutationJournal.Entry> recovered = journal.recovered();
+        for (int from = 0; from < recovered.size(); from += materializeBatchSize) {
+            List<MutationJournal.Entry> batch = recovered.subList(from, Math.min(recovered.size(), from + materializeBatchSize));
+            transactionTemplate.executeWithoutResult(status -> materialize(batch, true));
+        }
+        materializedIndex = journal.lastIndex();
+        journal.release(materializedIndex);
+
+        Gauge.builder("card.balance.journal.materialization.lag", this, JournalBalanceMutationStrategy::backlog)
+                .description("Journal records not yet written to the database")
+                .register(meterRegistry);
+        materializer = threadFactory.named("journal-materializer-").newThread(this::materializeLoop);
+        materializer.start();
+    }
+
+    /**
+     * Journal records not yet written to the database.
+     */
+    long backlog() {
+        return journal.lastIndex() - materializedIndex;
+    }
+
+    long maxBacklog() {
+        return maxBacklog;
+    }
+
+    /**
+     * The error that made the journal reject every record until restart, or null.
+     */
+    IOException journalFailure() {
+        return journal.failure();
+    }
+
+    /**
+     * Failed attempts to write the current batch to the database (0 when the last attempt succeeded).
+     */
+    int failedAttempts() {
+        return failedAttempts;
+    }
+
+    @Override
+    public String name() {
+        return "journal";
+    }
+
+    @Override
+    public boolean serializesPerCard() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Card> spend(UUID cardId, Money amount) {
+        return append(cardId, Transaction.TransactionType.SPEND, amount);
+    }
+
+    @Override
+    public CompletableFuture<Card> topUp(UUID cardId, Money amount) {
+        return append(cardId, Transaction.TransactionType.TOPUP, amount);
+    }
+
+    /**
+     * Commands of a card are queued in submission order, so the whole group is submitted at once.
+     */
+    @Override
+    public List<CompletableFuture<Card>> applyInOrder(UUID cardId, List<BalanceMutation> mutations) {
+        return mutations.stream().map(mutation -> apply(cardId, mutation)).toList();
+    }
+
+    @Override
+    public Card currentState(Card card) {
+        CardState state = states.get(card.getId());
+        // No state means no record of the card since startup: the database row is up to date
+        return state == null ? card : CardMutationGroup.copyWithBalance(card, state.balance());
+    }
+
+    // The row version only changes when the journal is written to the database: the journal position of the
+    // card changes with every mutation
+    @Override
+    public LongFunction<String> stateTagger(UUID cardId) {
+        CardState state = states.get(cardId);
+        return version -> state == null ? Long.toString(version) : version + "." + state.sequence();
+    }
+
+    private CompletableFuture<Card> append(UUID cardId, Transaction.TransactionType type, Money amount) {
+        long backlog = backlog();
+        if (backlog >= maxBacklog) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Journal backlog is full (" + backlog
+                    + " records not in the database), rejecting mutation for card ID: " + cardId));
+        }
+        CardState[] previous = new CardState[1];
+        List<CompletableFuture<MutationJournal.Entry>> durable = new ArrayList<>(1);
+        CardState next;
+        try {
+            do {
+                if (!states.containsKey(cardId)) {
+                    states.putIfAbsent(cardId, load(cardId));
+                }
+                // The balance check, the new balance and the hand-off to the journal (in memory, no I/O) are one
+                // step per card, which keeps the records of the card in sequence order. Null if the state was
+                // dropped since
+                next = states.computeIfPresent(cardId, (id, state) -> {
+                    if (type == Transaction.TransactionType.SPEND && state.balance().compareTo(amount) < 0) {
+                        throw new IllegalStateException("Insufficient balance for card ID: " + cardId);
+                    }
+                    Money balance = type == Transaction.TransactionType.SPEND
+                            ? state.balance().subtract(amount)
+                            : state.balance().add(amount);
+                    long sequence = state.sequence() + 1;
+                    // Throws if the journal is closed or has failed: the state is left unchanged
+                    durable.add(journal.append(type, cardId, sequence, amount, balance, System.currentTimeMillis()));
+                    previous[0] = state;
+                    return new CardState(state.card(), balance, sequence, state.materialized());
+                });
+            } while (next == null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CardState reserved = next;
+        return durable.get(0).handle((entry, error) -> {
+            if (error != null) {
+                release(cardId, previous[0], reserved);
+                throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+            }
+            return CardMutationGroup.copyWithBalance(reserved.card(), entry.balanceAfter());
+        });
+    }
+
+    // Undoes a reservation whose record could not be made durable: restores the state before it if nothing was
+    // reserved since, otherwise drops the state, which was computed on top of it, so that it is reloaded. The later
+    // records of the card are in the journal after it, so they fail as well
+    private void release(UUID cardId, CardState previous, CardState reserved) {
+        states.computeIfPresent(cardId, (id, current) -> current == reserved ? previous : null);
+    }
+
+    // Balance and last sequence number of the card, as materialized in the database
+    private CardState load(UUID cardId) {
+        Card card = cardRepository.findById(cardId)
+                .orElseThrow(() -> new IllegalArgumentException("Card not found with ID: " + cardId));
+        // Ledger entries recorded after the snapshot by the event-sourced strategy, if it was used before
+        TransactionRepository.LedgerDelta delta = transactionRepository.replayAfter(cardId, card.getSnapshotSequence());
+        long sequence = delta.getLastSequence() != null ? delta.getLastSequence() : card.getSnapshotSequence();
+        return new CardState(CardMutationGroup.copyWithBalance(card, card.getBalance()),
+                card.getBalance().add(Money.ofDecimal(delta.getDelta())), sequence, sequence);
+    }
+
+    private void onDurable(List<MutationJournal.Entry> entries) {
+        fsyncBatchSizes.record(entries.size());
+        toMaterialize.addAll(entries);
+    }
+
+    private void materializeLoop() {
+        while (!stopping || !toMaterialize.isEmpty()) {
+            List<MutationJournal.Entry> batch = new ArrayList<>(materializeBatchSize);
+            try {
+                MutationJournal.Entry first = toMaterialize.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                return;
+            }
+            toMaterialize.drainTo(batch, materializeBatchSize - 1);
+
+            if (!materializeWithRetries(batch)) {
+                // Still in the journal: materialized on the next startup
+                return;
+            }
+            materializedIndex = batch.get(batch.size() - 1).index();
+            markMaterialized(batch);
+            try {
+                journal.release(materializedIndex);
+            } catch (IOException e) {
+                log.warn("Unable to delete materialized journal segments", e);
+            }
+        }
+    }
+
+    // Records the last sequence number of each card now in the database, then drops states beyond max-cached-cards
+    // if all their records are in the database (reloaded from the row when the card is used again)
+    private void markMaterialized(List<MutationJournal.Entry> batch) {
+        Map<UUID, Long> lastSequences = new LinkedHashMap<>();
+        for (MutationJournal.Entry entry : batch) {
+            lastSequences.merge(entry.cardId(), entry.cardSequence(), Math::max);
+        }
+        lastSequences.forEach((cardId, sequence) -> states.computeIfPresent(cardId, (id, state) ->
+                sequence > state.materialized() ? state.withMaterialized(sequence) : state));
+        if (states.size() > maxCachedCards) {
+            states.values().removeIf(state -> state.materialized() >= state.sequence());
+        }
+    }
+
+    private boolean materializeWithRetries(List<MutationJournal.Entry> batch) {
+        for (int attempt = 1; ; attempt++) {
+            // After a failed attempt the outcome of its commit is unknown: skip what the database already has
+            boolean skipMaterialized = attempt > 1;
+            try {
+                transactionTemplate.executeWithoutResult(status -> materialize(batch, skipMaterialized));
+                failedAttempts = 0;
+                return true;
+            } catch (RuntimeException e) {
+                failedAttempts = attempt;
+                log.warn("Unable to materialize journal records {}..{} (attempt {})",
+                        batch.get(0).index(), batch.get(batch.size() - 1).index(), attempt, e);
+                if (stopping && attempt >= 3) {
+                    return false;
+                }
+                try {
+                    Thread.sleep(Math.min(1000L, 10L << Math.min(attempt, 6)));
+                } catch (InterruptedException interrupted) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the records to the database, in the current transaction.
+     * @param skipMaterialized Whether to skip the records already materialized (recovery, retries).
+     */
+    private void materialize(List<MutationJournal.Entry> entries, boolean skipMaterialized) {
+        Map<UUID, List<MutationJournal.Entry>> byCard = new LinkedHashMap<>();
+        for (MutationJournal.Entry entry : entries) {
+            byCard.computeIfAbsent(entry.cardId(), id -> new ArrayList<>()).add(entry);
+        }
+
+        List<Transaction> transactions = new ArrayList<>(entries.size());
+        for (Map.Entry<UUID, List<MutationJournal.Entry>> card : byCard.entrySet()) {
+            UUID cardId = card.getKey();
+            // In sequence order: records of a card are journaled in the order of their sequence numbers
+            List<MutationJournal.Entry> records = card.getValue();
+            if (skipMaterialized) {
+                if (!cardRepository.existsById(cardId)) {
+                    log.warn("Skipping {} journal records of unknown card {}", records.size(), cardId);
+                    continue;
+                }
+                Set<Long> stored = new HashSet<>(transactionRepository.findSequenceNumbers(cardId,
+                        records.stream().map(MutationJournal.Entry::cardSequence).toList()));
+                records = records.stream().filter(entry -> !stored.contains(entry.cardSequence())).toList();
+                if (records.isEmpty()) {
+                    continue;
+                }
+            }
+
+            for (MutationJournal.Entry entry : records) {
+                Transaction transaction = new Transaction(cardId, entry.type(), entry.amount(), entry.cardSequence());
+                transaction.setCreatedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.timestampMillis()),
+                        ZoneId.systemDefault()));
+                transactions.add(transaction);
+            }
+            // Ignored by the database if a record with a higher sequence number was written by an earlier batch
+            MutationJournal.Entry last = records.get(records.size() - 1);
+            cardRepository.snapshot(cardId, last.balanceAfter(), last.cardSequence());
+        }
+        transactionRepository.saveAll(transactions);
+    }
+
+    /**
+     * Flushes and acknowledges the pending records, then lets the materializer catch up with the journal.
+     */
+    @Override
+    public void destroy() throws IOException, InterruptedException {
+        if (journal != null) {
+            journal.close();
+        }
+        stopping = true;
+        if (materializer != null) {
+            materializer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    /**
+     * Balance of a card after its last journaled mutation.
+     * @param card Detached copy of the card (ID, cardholder, creation date).
+     * @param sequence Sequence number of the last journaled mutation of the card.
+     * @param materialized Highest sequence number of the card written to the database by this node.
+     */
+    private record CardState(Card card, Money balance, long sequence, long materialized) {
+
+        CardState withMaterialized(long sequence) {
+            return new CardState(card, balance, this.sequence, sequence);
+        }
+    }
+}
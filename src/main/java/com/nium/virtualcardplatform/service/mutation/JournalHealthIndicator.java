@@ -0,0 +1,39 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Health of the journal strategy (GET /actuator/health, component "journal"): DOWN once the journal has failed
+ * to write or force a record, as every mutation is then rejected until the application is restarted;
+ * OUT_OF_SERVICE while the materialization backlog is full, i.e. while mutations are rejected because the
+ * database does not keep up.
+ */
+@Component("journal")
+@ConditionalOnProperty(name = "card.balance.strategy", havingValue = "journal")
+public class JournalHealthIndicator implements HealthIndicator {
+
+    private final JournalBalanceMutationStrategy strategy;
+
+    @Autowired
+    public JournalHealthIndicator(JournalBalanceMutationStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    @Override
+    public Health health() {
+        long backlog = strategy.backlog();
+        IOException failure = strategy.journalFailure();
+        Health.Builder health = failure != null ? Health.down(failure)
+                : backlog >= strategy.maxBacklog() ? Health.outOfService() : Health.up();
+        return health.withDetail("backlog", backlog)
+                .withDetail("maxBacklog", strategy.maxBacklog())
+                .withDetail("failedAttempts", strategy.failedAttempts())
+                .build();
+    }
+}
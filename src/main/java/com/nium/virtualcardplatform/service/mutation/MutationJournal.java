@@ -0,0 +1,456 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead journal of balance mutations, stored in memory-mapped segment files of fixed-size
+ * records. Appends only give the record its index and queue it, without any I/O. A single writer thread (the
+ * flusher) takes the queued records every fsync interval, or earlier once fsync-batch-size records are waiting,
+ * copies them into the mapping (rolling over to a new segment when the current one is full), forces the written
+ * range to disk and then acknowledges all of them at once, so many mutations share one fsync.
+ *
+ * If a record cannot be written or forced, the journal fails: that batch and every later append are rejected
+ * (a later record may depend on a lost one) and failure() returns the cause. The journal is only usable again
+ * once it is opened again, e.g. by restarting the application, which keeps the valid prefix of the log.
+ *
+ * Record layout (64 bytes, little endian):
+ * <pre>
+ *  0 int  CRC32C of bytes 4..63
+ *  4 byte type (1 = SPEND, 2 = TOPUP)
+ *  5 byte amount scale (Money.SCALE)
+ *  6 byte balance scale (Money.SCALE)
+ *  7 byte reserved
+ *  8 long index (position in the journal, starting at 1)
+ * 16 long card ID (most significant bits)
+ * 24 long card ID (least significant bits)
+ * 32 long sequence number of the mutation in the card's ledger
+ * 40 long amount (minor units)
+ * 48 long balance after the mutation (minor units)
+ * 56 long timestamp (epoch millis)
+ * </pre>
+ * Segments are named after the index of their first record. On open, records are read until the first one
+ * with a bad CRC or an unexpected index (torn write); the rest of the log is discarded. A valid record whose scales
+ * are not Money.SCALE fails the opening of the journal.
+ */
+final class MutationJournal implements Closeable {
+
+    static final int RECORD_SIZE = 64;
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final long fsyncIntervalNanos;
+    private final int fsyncBatchSize;
+    private final Consumer<List<Entry>> durableListener;
+    private final List<Entry> recovered;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchFull = lock.newCondition();
+    // Segments not deleted yet, oldest first; the last one is being written
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    // Appended but not yet written, in index order
+    private List<Pending> pending = new ArrayList<>();
+    // Segment being written: only used by the flusher thread once the journal is open
+    private Segment current;
+    private long nextIndex;
+    private long syncCount;
+    private IOException failure;
+    private volatile boolean closed;
+    private final Thread flusher;
+
+    /**
+     * Opens (or creates) the journal in the directory and reads the records it already holds.
+     * @param durableListener Receives every batch of records once durable, in index order, on the flusher thread.
+     */
+    MutationJournal(Path directory, int segmentRecords, long fsyncIntervalMicros, int fsyncBatchSize,
+                    Consumer<List<Entry>> durableListener) throws IOException {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.fsyncIntervalNanos = TimeUnit.MICROSECONDS.toNanos(fsyncIntervalMicros);
+        this.fsyncBatchSize = fsyncBatchSize;
+        this.durableListener = durableListener;
+        Files.createDirectories(directory);
+        this.recovered = Collections.unmodifiableList(open());
+        this.flusher = new Thread(this::flushLoop, "mutation-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Records found in the journal when it was opened, in index order.
+     */
+    List<Entry> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Appends the mutation: gives it the next index and queues it for the flusher thread, which writes it into the
+     * journal. Records are written in the order of the calls.
+     * @return A future completed with the record once it has been forced to disk.
+     * @throws IllegalStateException If the journal is closed.
+     * @throws UncheckedIOException If the journal has failed (see failure()).
+     */
+    CompletableFuture<Entry> append(Transaction.TransactionType type, UUID cardId, long cardSequence,
+                                    Money amount, Money balanceAfter, long timestampMillis) {
+        CompletableFuture<Entry> durable = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Mutation journal is closed");
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Mutation journal is unavailable", failure);
+            }
+            Entry entry = new Entry(nextIndex, type, cardId, cardSequence, amount, balanceAfter, timestampMillis);
+            nextIndex++;
+            pending.add(new Pending(entry, durable));
+            if (pending.size() >= fsyncBatchSize) {
+                batchFull.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return durable;
+    }
+
+    /**
+     * Deletes the segments whose records all have an index lower than or equal to the given one
+     * (e.g. once materialized). The segment being written is never deleted.
+     */
+    void release(long upToIndex) throws IOException {
+        List<Segment> released = new ArrayList<>();
+        lock.lock();
+        try {
+            while (segments.size() > 1) {
+                Segment oldest = segments.removeFirst();
+                // The last record of a segment is the one before the first record of the next segment
+                if (segments.getFirst().firstIndex - 1 > upToIndex) {
+                    segments.addFirst(oldest);
+                    break;
+                }
+                released.add(oldest);
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Segment segment : released) {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        }
+    }
+
+    /**
+     * Number of fsyncs performed since the journal was opened.
+     */
+    long syncCount() {
+        lock.lock();
+        try {
+            return syncCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The error that made the journal unavailable, or null while it accepts records.
+     */
+    IOException failure() {
+        lock.lock();
+        try {
+            return failure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Index of the last record appended, written or not.
+     */
+    long lastIndex() {
+        lock.lock();
+        try {
+            return nextIndex - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces the records still pending, acknowledges them and stops the flusher.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            batchFull.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<Pending> batch;
+            IOException failed;
+            lock.lock();
+            try {
+                long deadline = System.nanoTime() + fsyncIntervalNanos;
+                while (!closed && pending.size() < fsyncBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    batchFull.awaitNanos(remaining);
+                }
+                if (pending.isEmpty()) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                failed = failure;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            if (failed != null) {
+                // Appended after a record that could not be written or forced: acknowledging them would make
+                // durable a record whose balance includes a lost one
+                batch.forEach(p -> p.durable().completeExceptionally(new UncheckedIOException(failed)));
+                continue;
+            }
+            try {
+                // Outside the lock: appends keep going while the records are written and the disk flushes
+                write(batch);
+                current.buffer.force();
+            } catch (IOException | RuntimeException e) {
+                IOException cause = e instanceof IOException io
+                        ? io : new IOException("Unable to write the mutation journal", e);
+                lock.lock();
+                try {
+                    failure = cause;
+                } finally {
+                    lock.unlock();
+                }
+                batch.forEach(p -> p.durable().completeExceptionally(new UncheckedIOException(cause)));
+                continue;
+            }
+
+            lock.lock();
+            try {
+                syncCount++;
+            } finally {
+                lock.unlock();
+            }
+            List<Entry> entries = new ArrayList<>(batch.size());
+            for (Pending p : batch) {
+                entries.add(p.entry());
+            }
+            try {
+                durableListener.accept(entries);
+            } finally {
+                batch.forEach(p -> p.durable().complete(p.entry()));
+            }
+        }
+    }
+
+    // Flusher thread: copies the records into the mapping, rolling over to a new segment when the current one is full
+    private void write(List<Pending> batch) throws IOException {
+        for (Pending p : batch) {
+            Entry entry = p.entry();
+            if (entry.index() - current.firstIndex >= current.capacity) {
+                rollOver(entry.index());
+            }
+            int offset = (int) (entry.index() - current.firstIndex) * RECORD_SIZE;
+            encode(entry, current.buffer.slice(offset, RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    private void rollOver(long firstIndex) throws IOException {
+        // The records of the old segment must be durable before any record of the new one
+        current.buffer.force();
+        Segment next = Segment.open(directory, firstIndex, segmentRecords);
+        lock.lock();
+        try {
+            segments.addLast(next);
+        } finally {
+            lock.unlock();
+        }
+        current = next;
+    }
+
+    /**
+     * Reads the existing segments, keeps the valid prefix of the log and positions the writer after it.
+     */
+    private List<Entry> open() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        long expectedIndex = -1;
+        boolean truncated = false;
+        for (Path path : paths) {
+            long firstIndex = Long.parseLong(path.getFileName().toString().replace(SEGMENT_SUFFIX, ""));
+            if (truncated || (expectedIndex != -1 && firstIndex != expectedIndex)) {
+                // Written after a torn record, or a gap: not part of the log
+                truncated = true;
+                Files.delete(path);
+                continue;
+            }
+            Segment segment = Segment.open(directory, firstIndex, segmentRecords);
+            segments.addLast(segment);
+            expectedIndex = firstIndex;
+            for (int slot = 0; slot < segment.capacity; slot++) {
+                ByteBuffer record = segment.buffer.slice(slot * RECORD_SIZE, RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                Entry entry = decode(record);
+                if (entry == null || entry.index() != expectedIndex) {
+                    // End of the log: clear the rest of the segment so that stale records can never reappear
+                    for (int offset = slot * RECORD_SIZE; offset < segment.capacity * RECORD_SIZE; offset++) {
+                        segment.buffer.put(offset, (byte) 0);
+                    }
+                    segment.buffer.force();
+                    truncated = true;
+                    break;
+                }
+                entries.add(entry);
+                expectedIndex++;
+            }
+        }
+
+        if (segments.isEmpty()) {
+            segments.addLast(Segment.open(directory, 1, segmentRecords));
+            nextIndex = 1;
+        } else {
+            nextIndex = expectedIndex;
+        }
+        current = segments.getLast();
+        return entries;
+    }
+
+    private static void encode(Entry entry, ByteBuffer record) {
+        record.put(4, (byte) (entry.type() == Transaction.TransactionType.SPEND ? 1 : 2));
+        record.put(5, (byte) Money.SCALE);
+        record.put(6, (byte) Money.SCALE);
+        record.putLong(8, entry.index());
+        record.putLong(16, entry.cardId().getMostSignificantBits());
+        record.putLong(24, entry.cardId().getLeastSignificantBits());
+        record.putLong(32, entry.cardSequence());
+        record.putLong(40, entry.amount().minorUnits());
+        record.putLong(48, entry.balanceAfter().minorUnits());
+        record.putLong(56, entry.timestampMillis());
+        record.putInt(0, checksum(record));
+    }
+
+    /**
+     * Returns null if the slot does not hold a valid record.
+     * @throws IOException If a valid record holds amounts at another scale than Money.SCALE (e.g. written by a
+     *                     version with other minor units): its amounts cannot be read as minor units.
+     */
+    private static Entry decode(ByteBuffer record) throws IOException {
+        if (record.getInt(0) != checksum(record)) {
+            return null;
+        }
+        byte type = record.get(4);
+        if (type != 1 && type != 2) {
+            return null;
+        }
+        if (record.get(5) != Money.SCALE || record.get(6) != Money.SCALE) {
+            throw new IOException("Journal record " + record.getLong(8) + " has amounts at scale " + record.get(5)
+                    + "/" + record.get(6) + ", expected " + Money.SCALE);
+        }
+        return new Entry(record.getLong(8),
+                type == 1 ? Transaction.TransactionType.SPEND : Transaction.TransactionType.TOPUP,
+                new UUID(record.getLong(16), record.getLong(24)),
+                record.getLong(32),
+                Money.ofMinor(record.getLong(40)),
+                Money.ofMinor(record.getLong(48)),
+                record.getLong(56));
+    }
+
+    private static int checksum(ByteBuffer record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.slice(4, RECORD_SIZE - 4));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * One journal record.
+     * @param index Position in the journal (1, 2, 3...).
+     * @param cardSequence Position of the mutation in the card's ledger (Transaction.sequenceNumber).
+     */
+    record Entry(long index, Transaction.TransactionType type, UUID cardId, long cardSequence,
+                 Money amount, Money balanceAfter, long timestampMillis) {
+    }
+
+    private record Pending(Entry entry, CompletableFuture<Entry> durable) {
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final long firstIndex;
+        private final int capacity;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private Segment(Path path, long firstIndex, int capacity, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.firstIndex = firstIndex;
+            this.capacity = capacity;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        private static Segment open(Path directory, long firstIndex, int records) throws IOException {
+            // Zero-padded so that the lexical order of the file names is the order of the log
+            Path path = directory.resolve(String.format("%020d%s", firstIndex, SEGMENT_SUFFIX));
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // An existing segment keeps its size, even if card.balance.journal.segment-records has changed since
+            int capacity = (int) Math.max(records, channel.size() / RECORD_SIZE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+            return new Segment(path, firstIndex, capacity, channel, buffer);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Preallocated ring of slots handed from producers to a fixed chain of consumer stages by sequence numbers
+ * (Disruptor-style). Producers claim the next sequence, fill the slot it maps to and publish it; stage 0
+ * processes published slots, and every other stage processes the slots the previous stage is done with.
+ * Each stage is run by one thread, so a slot is only ever touched by one thread at a time and needs no lock;
+ * the handoff is a volatile sequence write. A stage can process every available slot in one go (batching).
+ *
+ * A claim fails at once while the ring is full, i.e. while the last stage has not released the slot of the next
+ * sequence one lap ago, so producers (request threads) never wait for the stages. Stage threads waiting for
+ * slots spin briefly, then park until a sequence they wait for moves.
+ */
+final class MutationRing<T> {
+
+    private static final int SPIN_TRIES = 100;
+    // Upper bound of a park; progress normally wakes waiting threads earlier
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Object[] slots;
+    private final int mask;
+    // Sequence last published in each slot (-1 before the first one)
+    private final AtomicLongArray published;
+    // Last sequence claimed by a producer
+    private final AtomicLong claimed = new AtomicLong(-1);
+    // Last sequence processed by each stage
+    private final AtomicLongArray processed;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition progress = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private volatile boolean halted;
+
+    /**
+     * @param size Number of slots, a power of two.
+     * @param factory Creates the slots, once.
+     * @param stages Number of consumer stages.
+     */
+    MutationRing(int size, Supplier<T> factory, int stages) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two.");
+        }
+        this.slots = new Object[size];
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = factory.get();
+            published.set(i, -1);
+        }
+        this.processed = new AtomicLongArray(stages);
+        for (int i = 0; i < stages; i++) {
+            processed.set(i, -1);
+        }
+    }
+
+    int size() {
+        return slots.length;
+    }
+
+    /**
+     * Claims the next sequence. The slot must then be filled and published.
+     * @throws RejectedExecutionException If the ring is full (its slot is still held by a stage) or has been halted.
+     */
+    long claim() {
+        if (halted) {
+            throw new RejectedExecutionException("Mutation ring is shut down");
+        }
+        int last = processed.length() - 1;
+        long current;
+        do {
+            current = claimed.get();
+            if (current + 1 - slots.length > processed.get(last)) {
+                throw new RejectedExecutionException("Mutation ring is full (" + slots.length + " slots)");
+            }
+        } while (!claimed.compareAndSet(current, current + 1));
+        return current + 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(long sequence) {
+        return (T) slots[(int) sequence & mask];
+    }
+
+    /**
+     * Makes the slot of the claimed sequence visible to the first stage.
+     */
+    void publish(long sequence) {
+        published.set((int) sequence & mask, sequence);
+        signal();
+    }
+
+    /**
+     * Waits until the stage can process the sequence.
+     * @return The highest sequence the stage can process (at least the given one), or -1 once the ring is halted
+     *         or the thread is interrupted.
+     */
+    long waitFor(int stage, long sequence) {
+        int tries = 0;
+        long available;
+        while ((available = available(stage, sequence)) < sequence) {
+            if (halted) {
+                return -1;
+            }
+            if (++tries < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (!park(() -> available(stage, sequence), sequence)) {
+                return -1;
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Releases the slots up to the sequence (included) to the next stage, or to producers for the last stage.
+     */
+    void advance(int stage, long sequence) {
+        processed.set(stage, sequence);
+        signal();
+    }
+
+    long processed(int stage) {
+        return processed.get(stage);
+    }
+
+    long claimed() {
+        return claimed.get();
+    }
+
+    /**
+     * Stops the stages (waitFor returns -1) and rejects new claims. Slots not processed yet are abandoned.
+     */
+    void halt() {
+        halted = true;
+        lock.lock();
+        try {
+            progress.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long available(int stage, long sequence) {
+        if (stage > 0) {
+            return processed.get(stage - 1);
+        }
+        // Producers publish out of order: only the contiguous published run can be processed
+        long highest = sequence - 1;
+        long claimedUpTo = claimed.get();
+        while (highest < claimedUpTo && published.get((int) (highest + 1) & mask) == highest + 1) {
+            highest++;
+        }
+        return highest;
+    }
+
+    /**
+     * Parks until signalled or for PARK_NANOS. The condition is checked again after registering as a waiter,
+     * so a sequence moved concurrently is never missed.
+     * @return false if the thread was interrupted.
+     */
+    private boolean park(LongSupplier current, long target) {
+        lock.lock();
+        try {
+            waiters.incrementAndGet();
+            try {
+                if (current.getAsLong() < target && !halted) {
+                    progress.awaitNanos(PARK_NANOS);
+                }
+            } finally {
+                waiters.decrementAndGet();
+            }
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void signal() {
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                progress.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the worker threads of the mutation strategies (shard threads, group-commit flushers).
+ * Follows spring.threads.virtual.enabled, like Tomcat and the application task executor: when it is set
+ * (Java 21+), workers are virtual threads, so a worker blocked on JDBC or on the connection pool releases
+ * its carrier. Timer threads are not created here: they only hand work over and never block.
+ */
+@Component
+public class MutationThreadFactory {
+
+    private final boolean virtualThreads;
+
+    @Autowired
+    public MutationThreadFactory(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Returns a factory of threads named namePrefix0, namePrefix1, ...
+     * @throws UnsupportedOperationException If virtual threads are enabled on a JVM older than 21.
+     */
+    public ThreadFactory named(String namePrefix) {
+        if (virtualThreads) {
+            return new VirtualThreadTaskExecutor(namePrefix).getVirtualThreadFactory();
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> new Thread(runnable, namePrefix + threadCount.getAndIncrement());
+    }
+}
@@ -0,0 +1,168 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Default strategy: read-modify-write relying on the @Version field of Card, with a bounded
+ * number of retries when a concurrent modification is detected. Retries are re-scheduled by the
+ * RetryScheduler (full-jitter backoff, deadline and retry budget) instead of sleeping on the request thread.
+ * When local card locks are enabled, every attempt (including retries) runs under the card's stripe.
+ * Selected with card.balance.strategy=optimistic (or when the property is not set).
+ */
+@Component
+@ConditionalOnProperty(name = "card.balance.strategy", havingValue = "optimistic", matchIfMissing = true)
+public class OptimisticBalanceMutationStrategy implements BalanceMutationStrategy {
+
+    private final CardRepository cardRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StripedCardLockManager cardLockManager;
+    private final RetryScheduler retryScheduler;
+    private final int maxRetryAttempts;
+
+    @Autowired
+    public OptimisticBalanceMutationStrategy(CardRepository cardRepository,
+                                             TransactionRepository transactionRepository,
+                                             PlatformTransactionManager transactionManager,
+                                             StripedCardLockManager cardLockManager,
+                                             RetryScheduler retryScheduler,
+                                             @Value("${card.balance.optimistic.max-attempts:3}") int maxRetryAttempts) {
+        if (maxRetryAttempts <= 0) {
+            throw new IllegalArgumentException("Max retry attempts must be a positive number.");
+        }
+        this.cardRepository = cardRepository;
+        this.transactionRepository = transactionRepository;
+        this.cardLockManager = cardLockManager;
+        this.retryScheduler = retryScheduler;
+        this.maxRetryAttempts = maxRetryAttempts;
+        // Every attempt runs in a fresh transaction so a retry never sees stale state
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public String name() {
+        return "optimistic";
+    }
+
+    @Override
+    public boolean serializesPerCard() {
+        return cardLockManager.isEnabled();
+    }
+
+    @Override
+    public CompletableFuture<Card> spend(UUID cardId, Money amount) {
+        // Business errors (not found, insufficient balance) fail the future right away, only version conflicts are retried
+        return retryScheduler.execute("spend transaction", maxRetryAttempts,
+                () -> runAttempt(cardId, () -> performSpendTransactionWithOptimisticLocking(cardId, amount)));
+    }
+
+    /**
+     * Performs the actual spend transaction leveraging JPA's optimistic locking.
+     * The @Version field in Card entity automatically handles concurrency control.
+     * @param cardId The ID of the card.
+     * @param amount The amount to spend.
+     * @return The updated Card object after the transaction.
+     * @throws IllegalArgumentException If the card is not found.
+     * @throws IllegalStateException If the card has insufficient balance.
+     * @throws OptimisticLockingFailureException If concurrent modification is detected.
+     */
+    private Card performSpendTransactionWithOptimisticLocking(UUID cardId, Money amount) {
+        // Fresh read from database - JPA will load current version
+        Card card = cardRepository.findById(cardId)
+                .orElseThrow(() -> new IllegalArgumentException("Card not found with ID: " + cardId));
+
+        // Business logic validation
+        if (card.getBalance().compareTo(amount) < 0) {
+            throw new IllegalStateException("Insufficient balance for card ID: " + cardId);
+        }
+
+        // Update card balance - the version will be automatically incremented by JPA
+        card.setBalance(card.getBalance().subtract(amount));
+
+        // This save() will check the version field and throw OptimisticLockingFailureException
+        // if another transaction modified the entity since we loaded it
+        Card updatedCard = cardRepository.save(card);
+
+        // Record the transaction only after successful card update
+        Transaction transaction = new Transaction(cardId, Transaction.TransactionType.SPEND, amount);
+        transactionRepository.save(transaction);
+
+        return updatedCard;
+    }
+
+    @Override
+    public CompletableFuture<Card> topUp(UUID cardId, Money amount) {
+        return retryScheduler.execute("top-up transaction", maxRetryAttempts,
+                () -> runAttempt(cardId, () -> performTopUpTransactionWithOptimisticLocking(cardId, amount)));
+    }
+
+    /**
+     * Performs the actual top-up transaction leveraging JPA's optimistic locking.
+     * The @Version field in Card entity automatically handles concurrency control.
+     * @param cardId The ID of the card.
+     * @param amount The amount to top-up.
+     * @return The updated Card object after the transaction.
+     * @throws IllegalArgumentException If the card is not found.
+     * @throws OptimisticLockingFailureException If concurrent modification is detected.
+     */
+    private Card performTopUpTransactionWithOptimisticLocking(UUID cardId, Money amount) {
+        // Fresh read from database - JPA will load current version
+        Card card = cardRepository.findById(cardId)
+                .orElseThrow(() -> new IllegalArgumentException("Card not found with ID: " + cardId));
+
+        // Update card balance - the version will be automatically incremented by JPA
+        card.setBalance(card.getBalance().add(amount));
+
+        // This save() will check the version field and throw OptimisticLockingFailureException
+        // if another transaction modified the entity since we loaded it
+        Card updatedCard = cardRepository.save(card);
+
+        // Record the transaction only after successful card update
+        Transaction transaction = new Transaction(cardId, Transaction.TransactionType.TOPUP, amount);
+        transactionRepository.save(transaction);
+
+        return updatedCard;
+    }
+
+    /**
+     * Applies the whole group in one transaction: the card is read once, updated once (one version check)
+     * and the transactions are inserted in one JDBC batch. A version conflict retries the whole group.
+     */
+    @Override
+    public List<CompletableFuture<Card>> applyInOrder(UUID cardId, List<BalanceMutation> mutations) {
+        CompletableFuture<List<CardMutationGroup.Outcome>> group = retryScheduler.execute(
+                "batch transaction", "batch of " + mutations.size() + " transactions", maxRetryAttempts,
+                () -> runAttempt(cardId, () -> {
+                    Card card = cardRepository.findById(cardId)
+                            .orElseThrow(() -> new IllegalArgumentException("Card not found with ID: " + cardId));
+                    return CardMutationGroup.apply(card, mutations, cardRepository, transactionRepository);
+                }));
+        return CardMutationGroup.split(group, mutations.size());
+    }
+
+    /**
+     * Runs one attempt in its own transaction, under the local card lock when enabled.
+     */
+    private <T> T runAttempt(UUID cardId, Supplier<T> attempt) {
+        Supplier<T> transactional = () -> transactionTemplate.execute(status -> attempt.get());
+        return cardLockManager.isEnabled() ? cardLockManager.runLocked(cardId, transactional) : transactional.get();
+    }
+}
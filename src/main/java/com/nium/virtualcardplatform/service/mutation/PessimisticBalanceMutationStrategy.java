@@ -0,0 +1,88 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Strategy that locks the card row (SELECT ... FOR UPDATE) before reading the balance, so writers
+ * of the same card queue on the database row lock instead of failing and retrying.
+ * Works across nodes, at the cost of holding the row lock for the whole transaction.
+ * Selected with card.balance.strategy=pessimistic.
+ */
+@Component
+@ConditionalOnProperty(name = "card.balance.strategy", havingValue = "pessimistic")
+public class PessimisticBalanceMutationStrategy implements BalanceMutationStrategy {
+
+    private final CardRepository cardRepository;
+    private final TransactionRepository transactionRepository;
+
+    @Autowired
+    public PessimisticBalanceMutationStrategy(CardRepository cardRepository, TransactionRepository transactionRepository) {
+        this.cardRepository = cardRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    @Override
+    public String name() {
+        return "pessimistic";
+    }
+
+    @Override
+    @Transactional
+    public CompletableFuture<Card> spend(UUID cardId, Money amount) {
+        Card card = lockCard(cardId);
+
+        if (card.getBalance().compareTo(amount) < 0) {
+            throw new IllegalStateException("Insufficient balance for card ID: " + cardId);
+        }
+
+        card.setBalance(card.getBalance().subtract(amount));
+        Card updatedCard = cardRepository.save(card);
+        transactionRepository.save(new Transaction(cardId, Transaction.TransactionType.SPEND, amount));
+        return CompletableFuture.completedFuture(updatedCard);
+    }
+
+    @Override
+    @Transactional
+    public CompletableFuture<Card> topUp(UUID cardId, Money amount) {
+        Card card = lockCard(cardId);
+
+        card.setBalance(card.getBalance().add(amount));
+        Card updatedCard = cardRepository.save(card);
+        transactionRepository.save(new Transaction(cardId, Transaction.TransactionType.TOPUP, amount));
+        return CompletableFuture.completedFuture(updatedCard);
+    }
+
+    /**
+     * Applies the whole group under one row lock: one card update and one JDBC batch of transaction inserts.
+     */
+    @Override
+    @Transactional
+    public List<CompletableFuture<Card>> applyInOrder(UUID cardId, List<BalanceMutation> mutations) {
+        List<CardMutationGroup.Outcome> outcomes =
+                CardMutationGroup.apply(lockCard(cardId), mutations, cardRepository, transactionRepository);
+        return CardMutationGroup.split(CompletableFuture.completedFuture(outcomes), mutations.size());
+    }
+
+    private Card lockCard(UUID cardId) {
+        try {
+            return cardRepository.findByIdForUpdate(cardId)
+                    .orElseThrow(() -> new IllegalArgumentException("Card not found with ID: " + cardId));
+        } catch (PessimisticLockingFailureException e) {
+            throw new RuntimeException("Timed out waiting for the row lock of card ID: " + cardId
+                    + " due to concurrent modifications.", e);
+        }
+    }
+}
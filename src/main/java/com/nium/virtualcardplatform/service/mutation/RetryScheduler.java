@@ -0,0 +1,195 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs an operation and, when it fails with an OptimisticLockingFailureException, re-schedules it on a timer
+ * instead of sleeping on the calling thread. Every attempt, the first one included, runs on the application task
+ * executor (retries once their delay has elapsed), so the caller only gets a future and no thread is ever parked
+ * waiting for a backoff.
+ *
+ * An attempt failing with CannotAcquireLockException found the local card lock held (see StripedCardLockManager)
+ * and did nothing: it is run again after a backoff delay until the deadline, without counting as an attempt or
+ * using the retry budget.
+ *
+ * Retries are limited by:
+ * - the number of attempts given by the caller,
+ * - a per-request deadline (card.balance.retry.deadline-ms), measured from the first attempt,
+ * - a node-wide retry budget (card.balance.retry.budget-per-second), so a conflict storm cannot turn into
+ *   a retry storm.
+ * The delay before attempt n+1 uses full jitter: random(0, min(max-delay, base-delay * 2^(n-1))).
+ */
+@Component
+public class RetryScheduler implements DisposableBean {
+
+    private final TaskExecutor attemptExecutor;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService timer;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final long deadlineMs;
+    private final int budgetPerSecond;
+    // Retry budget of the current second: epoch second in the high 32 bits, retries used in the low 32 bits
+    private final AtomicLong budget = new AtomicLong();
+
+    @Autowired
+    public RetryScheduler(TaskExecutor attemptExecutor,
+                          MeterRegistry meterRegistry,
+                          @Value("${card.balance.retry.base-delay-ms:10}") long baseDelayMs,
+                          @Value("${card.balance.retry.max-delay-ms:200}") long maxDelayMs,
+                          @Value("${card.balance.retry.deadline-ms:2000}") long deadlineMs,
+                          @Value("${card.balance.retry.budget-per-second:500}") int budgetPerSecond) {
+        this.attemptExecutor = attemptExecutor;
+        this.meterRegistry = meterRegistry;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.deadlineMs = deadlineMs;
+        this.budgetPerSecond = budgetPerSecond;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "balance-retry-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Executes the operation, retrying it on optimistic locking failures.
+     * @param description What is being executed, used in metrics and error messages (e.g. "spend transaction").
+     * @param maxAttempts Maximum number of attempts, including the first one.
+     * @param operation The operation; any exception other than OptimisticLockingFailureException or
+     *                  CannotAcquireLockException fails immediately.
+     * @return A future completed with the operation result, or failed with a RuntimeException mentioning
+     *         "concurrent modifications" once no more retries are allowed.
+     */
+    public <T> CompletableFuture<T> execute(String description, int maxAttempts, Supplier<T> operation) {
+        return execute(description, description, maxAttempts, operation);
+    }
+
+    /**
+     * Same as execute(description, maxAttempts, operation), with a metric tag distinct from the error message.
+     * @param tag Value of the "operation" tag of the retry metrics: must take a bounded set of values.
+     * @param description What is being executed, used in error messages (e.g. "batch of 12 transactions").
+     */
+    public <T> CompletableFuture<T> execute(String tag, String description, int maxAttempts, Supplier<T> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        attemptExecutor.execute(() -> attempt(tag, description, maxAttempts, operation, 1, 0, deadline, result));
+        return result;
+    }
+
+    private <T> void attempt(String tag, String description, int maxAttempts, Supplier<T> operation,
+                             int attempt, int lockRetries, long deadline, CompletableFuture<T> result) {
+        try {
+            result.complete(operation.get());
+        } catch (CannotAcquireLockException e) {
+            long delayMs = fullJitterDelay(lockRetries + 1);
+            if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs) > deadline) {
+                reject(tag, "lock", "Unable to complete " + description + " due to concurrent modifications."
+                        + " The card lock was held until the retry deadline.", e, result);
+                return;
+            }
+
+            schedule(() -> attempt(tag, description, maxAttempts, operation, attempt, lockRetries + 1, deadline, result),
+                    delayMs);
+        } catch (OptimisticLockingFailureException e) {
+            RuntimeException lastFailure = new RuntimeException("Optimistic locking failure on attempt " + attempt, e);
+
+            if (attempt >= maxAttempts) {
+                reject(tag, description, attempt, "attempts", "", lastFailure, result);
+                return;
+            }
+
+            long delayMs = fullJitterDelay(attempt);
+            if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs) > deadline) {
+                reject(tag, description, attempt, "deadline", " Retry deadline exceeded.", lastFailure, result);
+                return;
+            }
+            if (!tryAcquireBudget()) {
+                reject(tag, description, attempt, "budget", " Retry budget exhausted.", lastFailure, result);
+                return;
+            }
+
+            Counter.builder("card.balance.retries")
+                    .description("Retries scheduled after an optimistic locking failure")
+                    .tag("operation", tag)
+                    .register(meterRegistry)
+                    .increment();
+            Timer.builder("card.balance.retry.wait")
+                    .description("Backoff delay scheduled before a retry")
+                    .tag("operation", tag)
+                    .register(meterRegistry)
+                    .record(delayMs, TimeUnit.MILLISECONDS);
+
+            schedule(() -> attempt(tag, description, maxAttempts, operation, attempt + 1, lockRetries, deadline, result),
+                    delayMs);
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+        }
+    }
+
+    private void schedule(Runnable attempt, long delayMs) {
+        timer.schedule(() -> attemptExecutor.execute(attempt), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void reject(String tag, String description, int attempts, String reason, String detail,
+                        RuntimeException lastFailure, CompletableFuture<?> result) {
+        reject(tag, reason, "Unable to complete " + description + " after " + attempts + " attempts due to concurrent"
+                + " modifications. The @Version field detected concurrent updates." + detail, lastFailure, result);
+    }
+
+    private void reject(String tag, String reason, String message, RuntimeException cause, CompletableFuture<?> result) {
+        Counter.builder("card.balance.retries.rejected")
+                .description("Operations given up after optimistic locking failures or a held card lock")
+                .tag("operation", tag)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        result.completeExceptionally(new RuntimeException(message, cause));
+    }
+
+    long fullJitterDelay(int attempt) {
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    boolean tryAcquireBudget() {
+        long second = System.currentTimeMillis() / 1000;
+        while (true) {
+            long state = budget.get();
+            if ((state >>> 32) != second) {
+                if (budget.compareAndSet(state, (second << 32) | 1)) {
+                    return true;
+                }
+                continue;
+            }
+            if ((int) state >= budgetPerSecond) {
+                return false;
+            }
+            if (budget.compareAndSet(state, state + 1)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,446 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Pipeline engine: spend / top-up commands are written into the preallocated slots of a MutationRing and
+ * handed by sequence number through four single-threaded stages, with no queue node allocated and no lock taken
+ * per command:
+ * 1. validate - resolves the card (loaded from the database the first time it is used on this node);
+ * 2. apply    - checks and updates the card balance held in memory, in command order;
+ * 3. journal  - builds the ledger entry (Transaction with the next per-card sequence number);
+ * 4. persist  - writes every command available in one database transaction: a JDBC batch of Transaction inserts
+ *               and one version-checked update per card, then completes the callers' futures.
+ *
+ * Mutations of a card are serialized by the apply stage, so they never conflict on this node. A card modified by
+ * another writer fails the version check: the commands of that card that were computed from the stale balance
+ * are rejected as concurrent modifications, and the card is reloaded for the next ones.
+ *
+ * A command published while the ring is full is rejected at once with RejectedExecutionException (503), so request
+ * threads never wait for the stages. Beyond max-cached-cards, the persist stage drops the in-memory state of the
+ * cards with no command in flight whose balance is the one stored in the database; they are loaded again when used.
+ * Stage threads come from MutationThreadFactory. Selected with card.balance.strategy=ring-buffer.
+ */
+@Component
+@ConditionalOnProperty(name = "card.balance.strategy", havingValue = "ring-buffer")
+public class RingBufferBalanceMutationStrategy implements BalanceMutationStrategy, DisposableBean {
+
+    private static final int VALIDATE = 0;
+    private static final int APPLY = 1;
+    private static final int JOURNAL = 2;
+    private static final int PERSIST = 3;
+
+    private final CardRepository cardRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MutationRing<Command> ring;
+    private final int persistBatchSize;
+    private final int maxCachedCards;
+    // Balance of each card used on this node, written by the validate (first load) and apply stages, entries
+    // removed by the persist stage (evictIdleCards)
+    private final ConcurrentHashMap<UUID, CardState> states = new ConcurrentHashMap<>();
+    // Cards found modified by another writer: states loaded up to this epoch are stale (written by persist)
+    private final ConcurrentHashMap<UUID, Long> staleEpochs = new ConcurrentHashMap<>();
+    private final AtomicLong epochs = new AtomicLong();
+    // Version and ledger position of each card row as last written by this node. Confined to the persist stage
+    // thread (write, evictIdleCards), which is why it is a plain HashMap: no other thread may read or write it
+    private final Map<UUID, StoredVersion> storedVersions = new HashMap<>();
+    private final DistributionSummary batchSizes;
+    private final List<Thread> stages = new ArrayList<>();
+
+    @Autowired
+    public RingBufferBalanceMutationStrategy(CardRepository cardRepository,
+                                             TransactionRepository transactionRepository,
+                                             PlatformTransactionManager transactionManager,
+                                             MeterRegistry meterRegistry,
+                                             MutationThreadFactory threadFactory,
+                                             @Value("${card.balance.ring-buffer.size:1024}") int size,
+                                             @Value("${card.balance.ring-buffer.persist-batch-size:256}") int persistBatchSize,
+                                             @Value("${card.balance.ring-buffer.max-cached-cards:100000}") int maxCachedCards) {
+        this.cardRepository = cardRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ring = new MutationRing<>(size, Command::new, 4);
+        this.persistBatchSize = persistBatchSize;
+        this.maxCachedCards = maxCachedCards;
+        this.batchSizes = DistributionSummary.builder("card.balance.ring.persist.batch-size")
+                .description("Commands written by one database transaction of the ring-buffer strategy")
+                .register(meterRegistry);
+        Gauge.builder("card.balance.ring.backlog", ring, r -> r.claimed() - r.processed(PERSIST))
+                .description("Commands in the ring not yet completed")
+                .register(meterRegistry);
+
+        stages.add(threadFactory.named("balance-ring-validate-").newThread(() -> runStage(VALIDATE, this::validate)));
+        stages.add(threadFactory.named("balance-ring-apply-").newThread(() -> runStage(APPLY, this::apply)));
+        stages.add(threadFactory.named("balance-ring-journal-").newThread(() -> runStage(JOURNAL, this::journal)));
+        stages.add(threadFactory.named("balance-ring-persist-").newThread(this::runPersistStage));
+        stages.forEach(Thread::start);
+    }
+
+    @Override
+    public String name() {
+        return "ring-buffer";
+    }
+
+    @Override
+    public boolean serializesPerCard() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Card> spend(UUID cardId, Money amount) {
+        return publish(Transaction.TransactionType.SPEND, cardId, amount);
+    }
+
+    @Override
+    public CompletableFuture<Card> topUp(UUID cardId, Money amount) {
+        return publish(Transaction.TransactionType.TOPUP, cardId, amount);
+    }
+
+    /**
+     * Commands of a card are queued in submission order, so the whole group is submitted at once.
+     */
+    @Override
+    public List<CompletableFuture<Card>> applyInOrder(UUID cardId, List<BalanceMutation> mutations) {
+        return mutations.stream().map(mutation -> apply(cardId, mutation)).toList();
+    }
+
+    private CompletableFuture<Card> publish(Transaction.TransactionType type, UUID cardId, Money amount) {
+        CompletableFuture<Card> result = new CompletableFuture<>();
+        long sequence;
+        try {
+            sequence = ring.claim();
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    e.getMessage() + ", rejecting mutation for card ID: " + cardId, e));
+        }
+        Command command = ring.get(sequence);
+        command.sequence = sequence;
+        command.type = type;
+        command.cardId = cardId;
+        command.amount = amount;
+        command.result = result;
+        ring.publish(sequence);
+        return result;
+    }
+
+    private void runStage(int stage, Consumer<Command> handler) {
+        long next = 0;
+        while (true) {
+            long available = ring.waitFor(stage, next);
+            if (available < 0) {
+                return;
+            }
+            for (long sequence = next; sequence <= available; sequence++) {
+                Command command = ring.get(sequence);
+                if (command.error == null) {
+                    try {
+                        handler.accept(command);
+                    } catch (RuntimeException e) {
+                        command.error = e;
+                    }
+                }
+            }
+            ring.advance(stage, available);
+            next = available + 1;
+        }
+    }
+
+    private void validate(Command command) {
+        if (!states.containsKey(command.cardId)) {
+            states.putIfAbsent(command.cardId, load(command.cardId, command.sequence));
+        }
+    }
+
+    private void apply(Command command) {
+        CardState state = states.get(command.cardId);
+        Long staleEpoch = staleEpochs.get(command.cardId);
+        // No state: evicted by the persist stage since the validate stage, the database row is up to date
+        if (state == null || (staleEpoch != null && state.epoch() <= staleEpoch)) {
+            state = load(command.cardId, command.sequence);
+            states.put(command.cardId, state);
+        }
+        if (command.type == Transaction.TransactionType.SPEND && state.balance().compareTo(command.amount) < 0) {
+            throw new IllegalStateException("Insufficient balance for card ID: " + command.cardId);
+        }
+
+        Money balance = command.type == Transaction.TransactionType.SPEND
+                ? state.balance().subtract(command.amount)
+                : state.balance().add(command.amount);
+        CardState next = state.next(balance);
+        states.put(command.cardId, next);
+        command.card = next.card();
+        command.balanceAfter = next.balance();
+        command.cardSequence = next.sequence();
+        command.epoch = next.epoch();
+    }
+
+    private void journal(Command command) {
+        Transaction transaction = new Transaction(command.cardId, command.type, command.amount, command.cardSequence);
+        transaction.setCreatedAt(LocalDateTime.now());
+        command.transaction = transaction;
+    }
+
+    private void runPersistStage() {
+        long next = 0;
+        while (true) {
+            long available = ring.waitFor(PERSIST, next);
+            if (available < 0) {
+                return;
+            }
+            long end = Math.min(available, next + persistBatchSize - 1);
+            persist(next, end);
+            ring.advance(PERSIST, end);
+            next = end + 1;
+        }
+    }
+
+    /**
+     * Writes the commands of the range, then completes them.
+     */
+    private void persist(long from, long to) {
+        Map<UUID, List<Command>> byCard = new LinkedHashMap<>();
+        for (long sequence = from; sequence <= to; sequence++) {
+            Command command = ring.get(sequence);
+            if (command.error != null) {
+                continue;
+            }
+            Long staleEpoch = staleEpochs.get(command.cardId);
+            if (staleEpoch != null && command.epoch <= staleEpoch) {
+                // Computed from a balance another writer has since changed
+                command.error = concurrentModification(command.cardId, null);
+                continue;
+            }
+            byCard.computeIfAbsent(command.cardId, id -> new ArrayList<>()).add(command);
+        }
+
+        if (!byCard.isEmpty()) {
+            batchSizes.record(byCard.values().stream().mapToInt(List::size).sum());
+            try {
+                write(byCard.values());
+            } catch (RuntimeException e) {
+                if (byCard.size() == 1) {
+                    reject(byCard.values().iterator().next(), e);
+                } else {
+                    // Write the cards one by one, so that a card changed by another writer does not fail the others
+                    retryPerCard(byCard.values());
+                }
+            }
+        }
+
+        // Before completing the callers, so that a card is no longer held once its last command is acknowledged
+        if (states.size() > maxCachedCards) {
+            evictIdleCards(to);
+        }
+        for (long sequence = from; sequence <= to; sequence++) {
+            Command command = ring.get(sequence);
+            if (command.error != null) {
+                command.result.completeExceptionally(command.error);
+            } else {
+                Card card = CardMutationGroup.copyWithBalance(command.card, command.balanceAfter);
+                card.setVersion(command.version);
+                card.setSnapshotSequence(command.cardSequence);
+                command.result.complete(card);
+            }
+            command.clear();
+        }
+    }
+
+    private void retryPerCard(Collection<List<Command>> byCard) {
+        for (List<Command> commands : byCard) {
+            try {
+                write(List.of(commands));
+            } catch (RuntimeException cardError) {
+                reject(commands, cardError);
+            }
+        }
+    }
+
+    /**
+     * Inserts the ledger entries and stores the last balance of each card, in one transaction.
+     * @throws OptimisticLockingFailureException If a card was modified by another writer.
+     */
+    private void write(Collection<List<Command>> byCard) {
+        Map<UUID, StoredVersion> written = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Transaction> transactions = new ArrayList<>();
+            for (List<Command> commands : byCard) {
+                commands.forEach(command -> transactions.add(command.transaction));
+            }
+            transactionRepository.saveAll(transactions);
+
+            for (List<Command> commands : byCard) {
+                Command last = commands.get(commands.size() - 1);
+                StoredVersion stored = storedVersions.get(last.cardId);
+                long version = stored != null && stored.epoch() == last.epoch
+                        ? stored.version()
+                        : last.card.getVersion();
+                if (cardRepository.storeBalance(last.cardId, last.balanceAfter, last.cardSequence, version) == 0) {
+                    throw new OptimisticLockingFailureException("Card " + last.cardId + " was modified by another writer");
+                }
+                written.put(last.cardId, new StoredVersion(last.epoch, version + 1, last.cardSequence));
+            }
+        });
+        storedVersions.putAll(written);
+        for (List<Command> commands : byCard) {
+            long version = written.get(commands.get(0).cardId).version();
+            commands.forEach(command -> command.version = version);
+        }
+    }
+
+    /**
+     * Fails the commands of a card that could not be written. Its in-memory balance is ahead of the database,
+     * so it is marked stale: the commands already applied after these ones fail too, and it is reloaded.
+     */
+    private void reject(List<Command> commands, RuntimeException error) {
+        Command last = commands.get(commands.size() - 1);
+        staleEpochs.merge(last.cardId, last.epoch, Math::max);
+        RuntimeException failure = error instanceof OptimisticLockingFailureException
+                || error instanceof DataIntegrityViolationException
+                ? concurrentModification(last.cardId, error)
+                : error;
+        commands.forEach(command -> command.error = failure);
+    }
+
+    /**
+     * Drops the states of the cards with no command in flight whose balance is the one stored in the database:
+     * loaded before the given ring sequence (all persisted), not stale, and either unchanged since loaded or
+     * changed only by commands this stage has written. A command of the card still in the ring finds no state
+     * in the apply stage and loads the card again. Runs on the persist stage thread.
+     * @param persisted Last ring sequence whose command has been written (or rejected).
+     */
+    private void evictIdleCards(long persisted) {
+        for (Map.Entry<UUID, CardState> entry : states.entrySet()) {
+            UUID cardId = entry.getKey();
+            CardState state = entry.getValue();
+            if (state.loadedAt() > persisted) {
+                continue;
+            }
+            Long staleEpoch = staleEpochs.get(cardId);
+            if (staleEpoch != null) {
+                if (state.epoch() <= staleEpoch) {
+                    continue; // Reloaded by the apply stage on its next command
+                }
+                // Reloaded before the persisted commands, so the ones computed from the stale balance are done
+                staleEpochs.remove(cardId, staleEpoch);
+            }
+            StoredVersion stored = storedVersions.get(cardId);
+            boolean written = state.sequence() == state.loadedSequence()
+                    || (stored != null && stored.epoch() == state.epoch() && stored.sequence() == state.sequence());
+            if (written && states.remove(cardId, state)) {
+                storedVersions.remove(cardId);
+            }
+        }
+    }
+
+    private static RuntimeException concurrentModification(UUID cardId, Throwable cause) {
+        return new RuntimeException("Unable to complete transaction due to "
+                + "concurrent modifications from another writer for card ID: " + cardId, cause);
+    }
+
+    // Balance and last ledger position of the card, as stored in the database
+    private CardState load(UUID cardId, long loadedAt) {
+        Card card = cardRepository.findById(cardId)
+                .orElseThrow(() -> new IllegalArgumentException("Card not found with ID: " + cardId));
+        TransactionRepository.LedgerDelta delta = transactionRepository.replayAfter(cardId, card.getSnapshotSequence());
+        long sequence = delta.getLastSequence() != null ? delta.getLastSequence() : card.getSnapshotSequence();
+        return new CardState(CardMutationGroup.copyWithBalance(card, card.getBalance()),
+                card.getBalance().add(Money.ofDecimal(delta.getDelta())), sequence, epochs.incrementAndGet(),
+                sequence, loadedAt);
+    }
+
+    /**
+     * Stops accepting commands, waits for the ones in the ring to complete and stops the stages.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (ring.processed(PERSIST) < ring.claimed() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        ring.halt();
+        for (Thread stage : stages) {
+            stage.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Slot of the ring, reused for every command published at the same position.
+     * Filled by the producer, completed field by field by the stages.
+     */
+    private static final class Command {
+        long sequence;
+        Transaction.TransactionType type;
+        UUID cardId;
+        Money amount;
+        CompletableFuture<Card> result;
+        RuntimeException error;
+        Card card;
+        Money balanceAfter;
+        long cardSequence;
+        long epoch;
+        Transaction transaction;
+        long version;
+
+        void clear() {
+            type = null;
+            cardId = null;
+            amount = null;
+            result = null;
+            error = null;
+            card = null;
+            balanceAfter = null;
+            transaction = null;
+        }
+    }
+
+    /**
+     * In-memory balance of a card after its last applied command.
+     * @param card Detached copy of the card as loaded (ID, cardholder, creation date, version).
+     * @param epoch Identifies the load the balance derives from.
+     * @param loadedSequence Ledger position of the card when loaded.
+     * @param loadedAt Ring sequence of the command that loaded the card.
+     */
+    private record CardState(Card card, Money balance, long sequence, long epoch, long loadedSequence, long loadedAt) {
+
+        CardState next(Money balance) {
+            return new CardState(card, balance, sequence + 1, epoch, loadedSequence, loadedAt);
+        }
+    }
+
+    private record StoredVersion(long epoch, long version, long sequence) {
+    }
+}
@@ -0,0 +1,163 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-writer engine: card IDs are partitioned across N shards, each owning one thread and one
+ * mailbox. Every mutation of a given card is executed by the same shard thread, one after the other,
+ * so mutations on the same card never race on this node and need neither locks nor retries.
+ * Callers are handed a future and never wait on the shard.
+ * Cards on different shards are processed in parallel, so throughput grows with the shard count
+ * as long as traffic is spread across cards (and the connection pool is sized accordingly).
+ *
+ * A version conflict can still happen if another node writes the same card; it is reported as a
+ * concurrent modification instead of being retried.
+ * Shard threads come from MutationThreadFactory (virtual threads when spring.threads.virtual.enabled is set).
+ * Selected with card.balance.strategy=sharded.
+ */
+@Component
+@ConditionalOnProperty(name = "card.balance.strategy", havingValue = "sharded")
+public class ShardedBalanceMutationStrategy implements BalanceMutationStrategy, DisposableBean {
+
+    private final CardRepository cardRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService[] shards;
+
+    @Autowired
+    public ShardedBalanceMutationStrategy(CardRepository cardRepository,
+                                          TransactionRepository transactionRepository,
+                                          PlatformTransactionManager transactionManager,
+                                          MutationThreadFactory threadFactory,
+                                          @Value("${card.balance.sharded.shards:0}") int shardCount,
+                                          @Value("${card.balance.sharded.mailbox-capacity:10000}") int mailboxCapacity) {
+        this.cardRepository = cardRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // 0 (default) means one shard per available core
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(mailboxCapacity),
+                    threadFactory.named("balance-shard-" + i + "-"));
+        }
+    }
+
+    @Override
+    public String name() {
+        return "sharded";
+    }
+
+    @Override
+    public CompletableFuture<Card> spend(UUID cardId, Money amount) {
+        return submit(cardId, () -> transactionTemplate.execute(status -> {
+            Card card = cardRepository.findById(cardId)
+                    .orElseThrow(() -> new IllegalArgumentException("Card not found with ID: " + cardId));
+
+            if (card.getBalance().compareTo(amount) < 0) {
+                throw new IllegalStateException("Insufficient balance for card ID: " + cardId);
+            }
+
+            card.setBalance(card.getBalance().subtract(amount));
+            Card updatedCard = cardRepository.save(card);
+            transactionRepository.save(new Transaction(cardId, Transaction.TransactionType.SPEND, amount));
+            return updatedCard;
+        }));
+    }
+
+    @Override
+    public CompletableFuture<Card> topUp(UUID cardId, Money amount) {
+        return submit(cardId, () -> transactionTemplate.execute(status -> {
+            Card card = cardRepository.findById(cardId)
+                    .orElseThrow(() -> new IllegalArgumentException("Card not found with ID: " + cardId));
+
+            card.setBalance(card.getBalance().add(amount));
+            Card updatedCard = cardRepository.save(card);
+            transactionRepository.save(new Transaction(cardId, Transaction.TransactionType.TOPUP, amount));
+            return updatedCard;
+        }));
+    }
+
+    /**
+     * Commands of a card are queued in submission order, so the whole group is submitted at once.
+     */
+    @Override
+    public List<CompletableFuture<Card>> applyInOrder(UUID cardId, List<BalanceMutation> mutations) {
+        return mutations.stream().map(mutation -> apply(cardId, mutation)).toList();
+    }
+
+    @Override
+    public boolean serializesPerCard() {
+        return true;
+    }
+
+    /**
+     * Returns the index of the shard owning the card.
+     */
+    int shardIndex(UUID cardId) {
+        return Math.floorMod(CardIdHash.spread(cardId), shards.length);
+    }
+
+    int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Queues the command in the mailbox of the card's shard. The caller gets a future and is not blocked
+     * while the command waits for its turn.
+     */
+    private CompletableFuture<Card> submit(UUID cardId, Callable<Card> command) {
+        CompletableFuture<Card> result = new CompletableFuture<>();
+        try {
+            shards[shardIndex(cardId)].execute(() -> {
+                try {
+                    result.complete(command.call());
+                } catch (OptimisticLockingFailureException e) {
+                    // Only another node can have written this card in the meantime
+                    result.completeExceptionally(new RuntimeException("Unable to complete transaction due to "
+                            + "concurrent modifications from another node for card ID: " + cardId, e));
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(
+                    new RuntimeException("Balance shard mailbox is full, rejecting mutation for card ID: " + cardId, e));
+        }
+        return result;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+        for (ExecutorService shard : shards) {
+            shard.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed-size table of locks ("stripes") keyed by card ID. Every mutation attempt of a card runs while
+ * holding the card's stripe, so concurrent requests for the same card on this node take turns here
+ * instead of racing on Card.version in the database; the optimistic check then only has to resolve
+ * races with other nodes. Different cards may share a stripe, which is why stats are kept per stripe:
+ * a high contended ratio with many distinct cards means the stripe count is too low.
+ *
+ * A stripe is only ever taken with tryLock(): no thread waits for it. An attempt that finds the stripe
+ * held fails with CannotAcquireLockException, and the RetryScheduler runs it again on its timer.
+ */
+@Component
+public class StripedCardLockManager implements MeterBinder {
+
+    private final boolean enabled;
+    private final ReentrantLock[] stripes;
+    private final AtomicLongArray acquisitions;
+    private final AtomicLongArray contendedAcquisitions;
+
+    @Autowired
+    public StripedCardLockManager(@Value("${card.balance.local-locks.enabled:true}") boolean enabled,
+                                  @Value("${card.balance.local-locks.stripes:1024}") int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be a positive number.");
+        }
+        this.enabled = enabled;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.acquisitions = new AtomicLongArray(stripeCount);
+        this.contendedAcquisitions = new AtomicLongArray(stripeCount);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs the action while holding the stripe of the given card, if the stripe is free.
+     * @throws CannotAcquireLockException If another attempt holds the stripe: the caller tries again later
+     *         instead of waiting (see RetryScheduler).
+     */
+    public <T> T runLocked(UUID cardId, Supplier<T> action) {
+        int stripe = stripeIndex(cardId);
+        ReentrantLock lock = stripes[stripe];
+        acquisitions.incrementAndGet(stripe);
+
+        if (!lock.tryLock()) {
+            contendedAcquisitions.incrementAndGet(stripe);
+            throw new CannotAcquireLockException("The local lock of card ID: " + cardId + " is held by another mutation");
+        }
+
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int stripeIndex(UUID cardId) {
+        return Math.floorMod(CardIdHash.spread(cardId), stripes.length);
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    public long getTotalAcquisitions() {
+        return sum(acquisitions);
+    }
+
+    public long getTotalContendedAcquisitions() {
+        return sum(contendedAcquisitions);
+    }
+
+    /**
+     * Returns the stats of the most contended stripes, most contended first.
+     * @param limit Maximum number of stripes returned.
+     */
+    public List<StripeStats> getHottestStripes(int limit) {
+        List<StripeStats> stats = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            long acquired = acquisitions.get(i);
+            if (acquired > 0) {
+                stats.add(new StripeStats(i, acquired, contendedAcquisitions.get(i), stripes[i].isLocked()));
+            }
+        }
+        stats.sort(Comparator.comparingLong(StripeStats::contendedAcquisitions).reversed());
+        return stats.subList(0, Math.min(limit, stats.size()));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("card.locks.stripes", this, StripedCardLockManager::getStripeCount)
+                .description("Number of lock stripes in the per-card lock table")
+                .register(registry);
+        FunctionCounter.builder("card.locks.acquisitions", this, StripedCardLockManager::getTotalAcquisitions)
+                .description("Card lock acquisition attempts")
+                .register(registry);
+        FunctionCounter.builder("card.locks.contended", this, StripedCardLockManager::getTotalContendedAcquisitions)
+                .description("Card lock acquisition attempts that found the lock held and were re-scheduled")
+                .register(registry);
+    }
+
+    private static long sum(AtomicLongArray values) {
+        long total = 0;
+        for (int i = 0; i < values.length(); i++) {
+            total += values.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Point-in-time stats of one stripe.
+     */
+    public record StripeStats(int stripe, long acquisitions, long contendedAcquisitions, boolean held) {}
+}
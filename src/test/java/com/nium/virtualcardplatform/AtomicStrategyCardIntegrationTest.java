@@ -0,0 +1,11 @@
+package com.nium.virtualcardplatform;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the full CardIntegrationTest suite (including the concurrent spend scenario)
+ * against the atomic conditional-UPDATE strategy.
+ */
+@TestPropertySource(properties = "card.balance.strategy=atomic")
+class AtomicStrategyCardIntegrationTest extends CardIntegrationTest {
+}
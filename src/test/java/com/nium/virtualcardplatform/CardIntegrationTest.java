@@ -1,8 +1,13 @@
 package com.nium.virtualcardplatform;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.IdempotencyRecord;
+import com.nium.virtualcardplatform.model.Money;
 import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.model.TransactionRow;
 import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.IdempotencyRecordRepository;
 import com.nium.virtualcardplatform.repository.TransactionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,9 +15,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.boot.test.context.TestConfiguration;
@@ -20,10 +28,13 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.HttpClientErrorException;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -36,6 +47,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 class CardIntegrationTest {
 
+    private static final int HISTORY_LIMIT = 10_000;
+
     @Autowired
     private TestRestTemplate restTemplate;
 
@@ -48,6 +61,12 @@ class CardIntegrationTest {
     @Autowired
     private TaskExecutor taskExecutor;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
     @BeforeEach
     void setUp() {
         // We clean the database before each test to ensure a clean state
@@ -59,7 +78,7 @@ class CardIntegrationTest {
     void testCreateCard_and_GetCardById_shouldReturnCreatedCard() {
         // Given: Request to create a new card
         String cardholderName = "John Doe";
-        BigDecimal initialBalance = BigDecimal.valueOf(100.00);
+        Money initialBalance = Money.ofUnits(100);
         Map<String, Object> requestBody = Map.of(
                 "cardholderName", cardholderName,
                 "initialBalance", initialBalance);
@@ -90,7 +109,7 @@ class CardIntegrationTest {
     void testCreateCard_withInvalidInitialBalance_shouldReturnBadRequest() {
         // Given: a request with a negative initial balance
         String cardholderName = "John Doe";
-        BigDecimal initialBalance = BigDecimal.valueOf(-10.00);
+        Money initialBalance = Money.ofUnits(-10);
         Map<String, Object> requestBody = Map.of(
                 "cardholderName", cardholderName,
                 "initialBalance", initialBalance);
@@ -106,12 +125,12 @@ class CardIntegrationTest {
     @Test
     void testSpendAndTopUpTransactions_shouldUpdateBalanceAndRecordTransactions() {
         // Given: Create a card with an initial balance of 100.00
-        Card initialCard = new Card("Jane Doe", BigDecimal.valueOf(100.00));
+        Card initialCard = new Card("Jane Doe", Money.ofUnits(100));
         Card savedCard = cardRepository.save(initialCard);
         UUID cardId = savedCard.getId();
 
         // When: Spend 25.00
-        Map<String, Object> spendRequestBody = Map.of("amount", BigDecimal.valueOf(25.00));
+        Map<String, Object> spendRequestBody = Map.of("amount", Money.ofUnits(25));
         ResponseEntity<Card> spendResponse = restTemplate.exchange(
                 "/cards/" + cardId + "/spend",
                 HttpMethod.POST,
@@ -121,10 +140,10 @@ class CardIntegrationTest {
 
         // Then: Verify balance
         Card cardAfterSpend = spendResponse.getBody();
-        assertThat(cardAfterSpend.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(75.00));
+        assertThat(cardAfterSpend.getBalance()).isEqualByComparingTo(Money.ofUnits(75));
 
         // When: Top up with 50.00
-        Map<String, Object> topUpRequestBody = Map.of("amount", BigDecimal.valueOf(50.00));
+        Map<String, Object> topUpRequestBody = Map.of("amount", Money.ofUnits(50));
         ResponseEntity<Card> topUpResponse = restTemplate.exchange(
                 "/cards/" + cardId + "/topup",
                 HttpMethod.POST,
@@ -134,7 +153,7 @@ class CardIntegrationTest {
 
         // Then: Verify balance
         Card cardAfterTopUp = topUpResponse.getBody();
-        assertThat(cardAfterTopUp.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(125.00));
+        assertThat(cardAfterTopUp.getBalance()).isEqualByComparingTo(Money.ofUnits(125));
 
         // And: Verify transaction history
         ResponseEntity<List<Transaction>> transactionsResponse = restTemplate.exchange(
@@ -150,22 +169,22 @@ class CardIntegrationTest {
 
         // Verify first transaction (spend)
         assertThat(transactions.get(0).getType()).isEqualTo(Transaction.TransactionType.SPEND);
-        assertThat(transactions.get(0).getAmount()).isEqualByComparingTo(BigDecimal.valueOf(25.00));
+        assertThat(transactions.get(0).getAmount()).isEqualByComparingTo(Money.ofUnits(25));
 
         // Verify second transaction (top-up)
         assertThat(transactions.get(1).getType()).isEqualTo(Transaction.TransactionType.TOPUP);
-        assertThat(transactions.get(1).getAmount()).isEqualByComparingTo(BigDecimal.valueOf(50.00));
+        assertThat(transactions.get(1).getAmount()).isEqualByComparingTo(Money.ofUnits(50));
     }
 
     @Test
     void testSpend_withInsufficientBalance_shouldReturnBadRequest() {
         // Given: A card with a balance of 50.00
-        Card initialCard = new Card("Test User", BigDecimal.valueOf(50.00));
+        Card initialCard = new Card("Test User", Money.ofUnits(50));
         Card savedCard = cardRepository.save(initialCard);
         UUID cardId = savedCard.getId();
 
         // When: Attempt to spend 75.00
-        Map<String, Object> spendRequestBody = Map.of("amount", BigDecimal.valueOf(75.00));
+        Map<String, Object> spendRequestBody = Map.of("amount", Money.ofUnits(75));
         ResponseEntity<String> response = restTemplate.exchange(
                 "/cards/" + cardId + "/spend",
                 HttpMethod.POST,
@@ -176,19 +195,19 @@ class CardIntegrationTest {
         // change
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
         Card card = cardRepository.findById(cardId).orElseThrow();
-        assertThat(card.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(50.00));
-        assertThat(transactionRepository.findByCardId(cardId)).isEmpty();
+        assertThat(card.getBalance()).isEqualByComparingTo(Money.ofUnits(50));
+        assertThat(history(cardId)).isEmpty();
     }
 
     @Test
     void testSpend_withInvalidAmount_shouldReturnBadRequest() {
         // Given: A card with a positive balance
-        Card initialCard = new Card("Test User", BigDecimal.valueOf(100.00));
+        Card initialCard = new Card("Test User", Money.ofUnits(100));
         Card savedCard = cardRepository.save(initialCard);
         UUID cardId = savedCard.getId();
 
         // When: Attempt to spend a negative amount
-        Map<String, Object> spendRequestBody = Map.of("amount", BigDecimal.valueOf(-10.00));
+        Map<String, Object> spendRequestBody = Map.of("amount", Money.ofUnits(-10));
         ResponseEntity<String> negativeAmountResponse = restTemplate.exchange(
                 "/cards/" + cardId + "/spend",
                 HttpMethod.POST,
@@ -199,7 +218,7 @@ class CardIntegrationTest {
         assertThat(negativeAmountResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
 
         // When: Attempt to spend an amount of zero
-        Map<String, Object> zeroAmountRequestBody = Map.of("amount", BigDecimal.valueOf(0.00));
+        Map<String, Object> zeroAmountRequestBody = Map.of("amount", Money.ofUnits(0));
         ResponseEntity<String> zeroAmountResponse = restTemplate.exchange(
                 "/cards/" + cardId + "/spend",
                 HttpMethod.POST,
@@ -209,22 +228,49 @@ class CardIntegrationTest {
         // Then: The response should also be a Bad Request (400)
         assertThat(zeroAmountResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
 
+        // When: Attempt to spend a fraction of a cent
+        ResponseEntity<String> fractionResponse = restTemplate.exchange(
+                "/cards/" + cardId + "/spend",
+                HttpMethod.POST,
+                new HttpEntity<>(Map.of("amount", new BigDecimal("10.005"))),
+                String.class);
+
+        // Then: The response should also be a Bad Request (400)
+        assertThat(fractionResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
         // And: The balance should not have changed and no transactions should be
         // recorded
         Card card = cardRepository.findById(cardId).orElseThrow();
-        assertThat(card.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(100.00));
-        assertThat(transactionRepository.findByCardId(cardId)).isEmpty();
+        assertThat(card.getBalance()).isEqualByComparingTo(Money.ofUnits(100));
+        assertThat(history(cardId)).isEmpty();
+    }
+
+    @Test
+    void testSpend_shouldWriteAmountsWithTwoDecimals() {
+        // Given: A card created with a whole initial balance
+        Map<String, Object> createRequestBody = Map.of("cardholderName", "Test User", "initialBalance", 100);
+        UUID cardId = restTemplate.postForEntity("/cards", createRequestBody, Card.class).getBody().getId();
+
+        // When: Spending an amount with one decimal
+        ResponseEntity<String> response = restTemplate.postForEntity("/cards/" + cardId + "/spend",
+                Map.of("amount", 0.5), String.class);
+
+        // Then: The balance is written as a JSON number with two decimals, as stored in the database
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).contains("\"balance\":99.50");
+        assertThat(restTemplate.getForObject("/cards/" + cardId + "/transactions", String.class))
+                .contains("\"amount\":0.50");
     }
 
     @Test
     void testTopUp_withInvalidAmount_shouldReturnBadRequest() {
         // Given: A card with a positive balance
-        Card initialCard = new Card("Test User", BigDecimal.valueOf(100.00));
+        Card initialCard = new Card("Test User", Money.ofUnits(100));
         Card savedCard = cardRepository.save(initialCard);
         UUID cardId = savedCard.getId();
 
         // When: Attempt to top up with a negative amount
-        Map<String, Object> topUpRequestBody = Map.of("amount", BigDecimal.valueOf(-10.00));
+        Map<String, Object> topUpRequestBody = Map.of("amount", Money.ofUnits(-10));
         ResponseEntity<String> negativeAmountResponse = restTemplate.exchange(
                 "/cards/" + cardId + "/topup",
                 HttpMethod.POST,
@@ -235,7 +281,7 @@ class CardIntegrationTest {
         assertThat(negativeAmountResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
 
         // When: Attempt to top up with an amount of zero
-        Map<String, Object> zeroAmountRequestBody = Map.of("amount", BigDecimal.valueOf(0.00));
+        Map<String, Object> zeroAmountRequestBody = Map.of("amount", Money.ofUnits(0));
         ResponseEntity<String> zeroAmountResponse = restTemplate.exchange(
                 "/cards/" + cardId + "/topup",
                 HttpMethod.POST,
@@ -248,8 +294,8 @@ class CardIntegrationTest {
         // And: The balance should not have changed and no transactions should be
         // recorded
         Card card = cardRepository.findById(cardId).orElseThrow();
-        assertThat(card.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(100.00));
-        assertThat(transactionRepository.findByCardId(cardId)).isEmpty();
+        assertThat(card.getBalance()).isEqualByComparingTo(Money.ofUnits(100));
+        assertThat(history(cardId)).isEmpty();
     }
 
     @Test
@@ -258,7 +304,7 @@ class CardIntegrationTest {
         UUID nonExistentCardId = UUID.randomUUID();
 
         // When: Attempt to spend on the non-existent card
-        Map<String, Object> spendRequestBody = Map.of("amount", BigDecimal.valueOf(10.00));
+        Map<String, Object> spendRequestBody = Map.of("amount", Money.ofUnits(10));
         ResponseEntity<String> response = restTemplate.exchange(
                 "/cards/" + nonExistentCardId + "/spend",
                 HttpMethod.POST,
@@ -275,7 +321,7 @@ class CardIntegrationTest {
         UUID nonExistentCardId = UUID.randomUUID();
 
         // When: Attempt to top up on the non-existent card
-        Map<String, Object> topUpRequestBody = Map.of("amount", BigDecimal.valueOf(10.00));
+        Map<String, Object> topUpRequestBody = Map.of("amount", Money.ofUnits(10));
         ResponseEntity<String> response = restTemplate.exchange(
                 "/cards/" + nonExistentCardId + "/topup",
                 HttpMethod.POST,
@@ -289,12 +335,12 @@ class CardIntegrationTest {
     @Test
     void testConcurrentSpend_shouldMaintainDataIntegrity() throws InterruptedException {
         // Given: a card with an initial balance of 1000.00
-        Card initialCard = new Card("Concurrency Test", BigDecimal.valueOf(1000.00));
+        Card initialCard = new Card("Concurrency Test", Money.ofUnits(1000));
         Card savedCard = cardRepository.save(initialCard);
         UUID cardId = savedCard.getId();
 
         int numberOfConcurrentRequests = 100;
-        BigDecimal spendAmount = BigDecimal.valueOf(10.00);
+        Money spendAmount = Money.ofUnits(10);
         CountDownLatch startLatch = new CountDownLatch(1);
         CountDownLatch endLatch = new CountDownLatch(numberOfConcurrentRequests);
         AtomicInteger successCount = new AtomicInteger(0);
@@ -362,8 +408,8 @@ class CardIntegrationTest {
         // Then: The final balance should be the initial balance minus the total spent
         // amount
         Card finalCard = cardRepository.findById(cardId).orElseThrow();
-        BigDecimal expectedFinalBalance = BigDecimal.valueOf(1000.00)
-                .subtract(spendAmount.multiply(BigDecimal.valueOf(successCount.get())));
+        Money expectedFinalBalance = Money.ofUnits(1000)
+                .subtract(Money.ofMinor(spendAmount.minorUnits() * successCount.get()));
 
         System.out.println("Expected final balance: " + expectedFinalBalance);
         System.out.println("Actual final balance: " + finalCard.getBalance());
@@ -372,7 +418,7 @@ class CardIntegrationTest {
 
         // And: The number of transactions recorded should match the number of
         // successful requests
-        List<Transaction> transactions = transactionRepository.findByCardId(cardId);
+        List<TransactionRow> transactions = history(cardId);
         assertThat(transactions).hasSize(successCount.get());
 
         // Verify that successful + failed requests equal total requests
@@ -383,4 +429,390 @@ class CardIntegrationTest {
         // In high concurrency, some failures are expected, but most should succeed
         assertThat(successCount.get()).isGreaterThan(numberOfConcurrentRequests / 2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBatch_shouldApplyTransactionsInOrderWithOneResultPerItem() {
+        // Given: two cards
+        UUID first = cardRepository.save(new Card("Batch One", Money.ofUnits(100))).getId();
+        UUID second = cardRepository.save(new Card("Batch Two", Money.ofUnits(50))).getId();
+        List<Map<String, Object>> batch = List.of(
+                Map.of("cardId", first.toString(), "type", "SPEND", "amount", 60.00),
+                Map.of("cardId", second.toString(), "type", "SPEND", "amount", 10.00),
+                Map.of("cardId", first.toString(), "type", "SPEND", "amount", 50.00),
+                Map.of("cardId", first.toString(), "type", "TOPUP", "amount", 20.00),
+                Map.of("cardId", UUID.randomUUID().toString(), "type", "TOPUP", "amount", 5.00),
+                Map.of("cardId", second.toString(), "type", "SPEND", "amount", -5.00));
+
+        // When
+        ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange("/cards/transactions/batch",
+                HttpMethod.POST, new HttpEntity<>(batch), new ParameterizedTypeReference<>() { });
+
+        // Then: the second spend of the first card sees the first one (40.00 left), the top-up comes after it
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).extracting(result -> result.get("status")).containsExactly(
+                "OK", "OK", "INSUFFICIENT_BALANCE", "OK", "NOT_FOUND", "INVALID");
+        assertThat(restTemplate.getForObject("/cards/" + first, Card.class).getBalance())
+                .isEqualByComparingTo(Money.ofUnits(60));
+        assertThat(restTemplate.getForObject("/cards/" + second, Card.class).getBalance())
+                .isEqualByComparingTo(Money.ofUnits(40));
+        assertThat(history(first)).hasSize(2);
+        assertThat(history(second)).hasSize(1);
+    }
+
+    @Test
+    void testBatch_withNullItem_shouldReportItAsInvalid() {
+        // Given
+        UUID cardId = cardRepository.save(new Card("Batch Null", Money.ofUnits(100))).getId();
+        List<Map<String, Object>> batch = new ArrayList<>();
+        batch.add(null);
+        batch.add(Map.of("cardId", cardId.toString(), "type", "SPEND", "amount", 30.00));
+        batch.add(null);
+
+        // When
+        ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange("/cards/transactions/batch",
+                HttpMethod.POST, new HttpEntity<>(batch), new ParameterizedTypeReference<>() { });
+
+        // Then: the other items are applied
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).extracting(result -> result.get("status"))
+                .containsExactly("INVALID", "OK", "INVALID");
+        assertThat(restTemplate.getForObject("/cards/" + cardId, Card.class).getBalance())
+                .isEqualByComparingTo(Money.ofUnits(70));
+    }
+
+    @Test
+    void testBatch_exceedingMaxSize_shouldReturnBadRequest() {
+        // Given
+        Map<String, Object> item = Map.of("cardId", UUID.randomUUID().toString(), "type", "TOPUP", "amount", 1.00);
+        List<Map<String, Object>> batch = Collections.nCopies(1001, item);
+
+        // When
+        ResponseEntity<String> response = restTemplate.postForEntity("/cards/transactions/batch", batch, String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void testBulkCreate_shouldCreateAllCardsAndStreamTheirIdsInRequestOrder() {
+        // Given: more cards than a chunk (card.bulk.chunk-size = 1000)
+        List<Map<String, Object>> cards = new ArrayList<>();
+        for (int i = 0; i < 1_500; i++) {
+            cards.add(Map.of("cardholderName", "Bulk " + i, "initialBalance", i));
+        }
+
+        // When
+        ResponseEntity<List<UUID>> response = restTemplate.exchange("/cards/bulk",
+                HttpMethod.POST, new HttpEntity<>(cards), new ParameterizedTypeReference<>() { });
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        List<UUID> ids = response.getBody();
+        assertThat(ids).hasSize(1_500).doesNotHaveDuplicates();
+        assertThat(cardRepository.count()).isEqualTo(1_500);
+        Card last = restTemplate.getForObject("/cards/" + ids.get(1_499), Card.class);
+        assertThat(last.getCardholderName()).isEqualTo("Bulk 1499");
+        assertThat(last.getBalance()).isEqualByComparingTo(Money.ofUnits(1_499));
+    }
+
+    @Test
+    void testBulkCreate_withInvalidCard_shouldReturnBadRequestAndCreateNothing() {
+        // Given: the last card has a negative balance
+        List<Map<String, Object>> cards = List.of(
+                Map.of("cardholderName", "Bulk A", "initialBalance", 10.00),
+                Map.of("cardholderName", "Bulk B", "initialBalance", -1.00));
+
+        // When
+        ResponseEntity<String> response = restTemplate.postForEntity("/cards/bulk", cards, String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(cardRepository.count()).isZero();
+    }
+
+    @Test
+    void testBulkCreate_withMissingCardInLaterChunk_shouldReturnBadRequestAndCreateNothing() {
+        // Given: more cards than a chunk (card.bulk.chunk-size = 1000), the last item null
+        List<Map<String, Object>> cards = new ArrayList<>();
+        for (int i = 0; i < 1_200; i++) {
+            cards.add(Map.of("cardholderName", "Bulk " + i, "initialBalance", i));
+        }
+        cards.add(null);
+
+        // When
+        ResponseEntity<String> response = restTemplate.postForEntity("/cards/bulk", cards, String.class);
+
+        // Then: refused before the first chunk is created
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(cardRepository.count()).isZero();
+    }
+
+    @Test
+    void testSpend_withSameIdempotencyKey_shouldApplyOnceAndReplayTheResponse() {
+        // Given
+        UUID cardId = cardRepository.save(new Card("Idempotent", Money.ofUnits(100))).getId();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Idempotency-Key", UUID.randomUUID().toString());
+        HttpEntity<Map<String, Object>> spend = new HttpEntity<>(Map.of("amount", 30.00), headers);
+
+        // When: the client retries the same request
+        ResponseEntity<Card> first = restTemplate.postForEntity("/cards/" + cardId + "/spend", spend, Card.class);
+        ResponseEntity<Card> retry = restTemplate.postForEntity("/cards/" + cardId + "/spend", spend, Card.class);
+
+        // Then: the spend is applied once and the retry gets the same response
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(retry.getBody().getBalance()).isEqualByComparingTo(Money.ofUnits(70));
+        assertThat(retry.getBody().getVersion()).isEqualTo(first.getBody().getVersion());
+        assertThat(restTemplate.getForObject("/cards/" + cardId, Card.class).getBalance())
+                .isEqualByComparingTo(Money.ofUnits(70));
+        assertThat(history(cardId)).hasSize(1);
+
+        // And: the key cannot be reused for another amount
+        HttpEntity<Map<String, Object>> other = new HttpEntity<>(Map.of("amount", 40.00), headers);
+        ResponseEntity<String> reused = restTemplate.postForEntity("/cards/" + cardId + "/spend", other, String.class);
+        assertThat(reused.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @Test
+    void testSpend_retriedAfterClaimLeftWithoutResponse_shouldNotApplyAgain() {
+        // Given: the spend committed, but its node stopped before storing the response of its claim
+        UUID cardId = cardRepository.save(new Card("Unknown Outcome", Money.ofUnits(100))).getId();
+        String key = UUID.randomUUID().toString();
+        idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(key, "SPEND:" + cardId + ":30"));
+        restTemplate.postForEntity("/cards/" + cardId + "/spend", Map.of("amount", 30.00), Card.class);
+
+        // When: the client retries with the key
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Idempotency-Key", key);
+        ResponseEntity<Card> retry = restTemplate.postForEntity("/cards/" + cardId + "/spend",
+                new HttpEntity<>(Map.of("amount", 30.00), headers), Card.class);
+
+        // Then: the outcome is reported as unknown and the card is debited once
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(restTemplate.getForObject("/cards/" + cardId, Card.class).getBalance())
+                .isEqualByComparingTo(Money.ofUnits(70));
+        assertThat(history(cardId)).hasSize(1);
+    }
+
+    @Test
+    void testGetCardAndTransactions_withIfNoneMatch_shouldReturnNotModifiedUntilCardChanges() {
+        // Given: the current ETags of the card and of its history
+        UUID cardId = cardRepository.save(new Card("Polled", Money.ofUnits(100))).getId();
+        String cardTag = restTemplate.getForEntity("/cards/" + cardId, Card.class).getHeaders().getETag();
+        String historyTag = restTemplate.getForEntity("/cards/" + cardId + "/transactions", String.class)
+                .getHeaders().getETag();
+        assertThat(cardTag).isNotNull();
+        assertThat(historyTag).isNotNull();
+
+        // When & Then: nothing changed
+        assertThat(getIfNoneMatch("/cards/" + cardId, cardTag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(getIfNoneMatch("/cards/" + cardId + "/transactions", historyTag).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        // When: the card changes
+        restTemplate.postForEntity("/cards/" + cardId + "/spend", Map.of("amount", 10.00), Card.class);
+
+        // Then: both are sent again, with new tags
+        ResponseEntity<String> card = getIfNoneMatch("/cards/" + cardId, cardTag);
+        assertThat(card.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(card.getHeaders().getETag()).isNotEqualTo(cardTag);
+        ResponseEntity<String> history = getIfNoneMatch("/cards/" + cardId + "/transactions", historyTag);
+        assertThat(history.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(history.getHeaders().getETag()).isNotEqualTo(historyTag);
+    }
+
+    @Test
+    void testGetTransactions_shouldPageThroughHistoryWithNextLinks() {
+        // Given: five transactions, two of them created at the same instant
+        UUID cardId = cardRepository.save(new Card("Paged", Money.ofUnits(100))).getId();
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<Transaction> history = new ArrayList<>();
+        for (int seconds : new int[]{0, 1, 1, 2, 3}) {
+            Transaction transaction = new Transaction(cardId, Transaction.TransactionType.TOPUP, Money.ofUnits(1));
+            transaction.setCreatedAt(start.plusSeconds(seconds));
+            history.add(transactionRepository.save(transaction));
+        }
+
+        // When: pages of two are read, following the Link header
+        List<UUID> read = new ArrayList<>();
+        int pages = 0;
+        String next = "/cards/" + cardId + "/transactions?limit=2";
+        while (next != null) {
+            ResponseEntity<List<Transaction>> page = restTemplate.exchange(next, HttpMethod.GET, null,
+                    new ParameterizedTypeReference<List<Transaction>>() {
+                    });
+            assertThat(page.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(page.getBody()).hasSizeBetween(1, 2);
+            page.getBody().forEach(transaction -> read.add(transaction.getId()));
+            String link = page.getHeaders().getFirst(HttpHeaders.LINK);
+            next = link != null ? link.substring(link.indexOf('<') + 1, link.indexOf('>')) : null;
+            pages++;
+        }
+
+        // Then: every transaction once, oldest first
+        assertThat(pages).isEqualTo(3);
+        assertThat(read).containsExactlyInAnyOrderElementsOf(history.stream().map(Transaction::getId).toList());
+        assertThat(read.get(0)).isEqualTo(history.get(0).getId());
+        assertThat(read.subList(1, 3)).containsExactlyInAnyOrder(history.get(1).getId(), history.get(2).getId());
+        assertThat(read.subList(3, 5)).containsExactly(history.get(3).getId(), history.get(4).getId());
+    }
+
+    @Test
+    void testGetTransactions_shouldReturnEmptyListForCardWithoutHistoryAndNotFoundForUnknownCard() {
+        // Given
+        UUID cardId = cardRepository.save(new Card("No history", Money.ofUnits(100))).getId();
+
+        // When
+        ResponseEntity<String> empty = restTemplate.getForEntity("/cards/" + cardId + "/transactions", String.class);
+        ResponseEntity<String> unknown = restTemplate.getForEntity("/cards/" + UUID.randomUUID() + "/transactions",
+                String.class);
+
+        // Then
+        assertThat(empty.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(empty.getBody()).isEqualTo("[]");
+        assertThat(empty.getHeaders().getETag()).isNotNull();
+        assertThat(unknown.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void testGetTransactions_withInvalidCursorOrLimit_shouldReturnBadRequest() {
+        // Given
+        UUID cardId = cardRepository.save(new Card("Paged", Money.ofUnits(100))).getId();
+
+        // When & Then
+        assertThat(restTemplate.getForEntity("/cards/" + cardId + "/transactions?after=garbage", String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(restTemplate.getForEntity("/cards/" + cardId + "/transactions?limit=0", String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void testExportCardTransactions_shouldStreamNdjsonAndCsv() throws Exception {
+        // Given
+        UUID cardId = cardRepository.save(new Card("Audited", Money.ofUnits(100))).getId();
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<Transaction> history = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Transaction transaction = new Transaction(cardId, Transaction.TransactionType.SPEND, Money.ofUnits(i + 1));
+            transaction.setCreatedAt(start.plusMinutes(i));
+            history.add(transactionRepository.save(transaction));
+        }
+
+        // When
+        ResponseEntity<String> ndjson = restTemplate.getForEntity("/cards/" + cardId + "/transactions/export", String.class);
+        ResponseEntity<String> csv = restTemplate.getForEntity("/cards/" + cardId + "/transactions/export?format=csv",
+                String.class);
+
+        // Then
+        assertThat(ndjson.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(ndjson.getHeaders().getContentType().toString()).isEqualTo("application/x-ndjson");
+        String[] lines = ndjson.getBody().split("\n");
+        assertThat(lines).hasSize(3);
+        for (int i = 0; i < 3; i++) {
+            Transaction exported = objectMapper.readValue(lines[i], Transaction.class);
+            assertThat(exported.getId()).isEqualTo(history.get(i).getId());
+            assertThat(exported.getAmount()).isEqualByComparingTo(Money.ofUnits(i + 1));
+            assertThat(lines[i]).doesNotContain("sequenceNumber");
+        }
+
+        assertThat(csv.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(csv.getHeaders().getContentDisposition().getFilename()).isEqualTo("transactions-" + cardId + ".csv");
+        assertThat(csv.getBody().split("\n")).containsExactly(
+                "id,cardId,type,amount,createdAt",
+                history.get(0).getId() + "," + cardId + ",SPEND,1.00," + start,
+                history.get(1).getId() + "," + cardId + ",SPEND,2.00," + start.plusMinutes(1),
+                history.get(2).getId() + "," + cardId + ",SPEND,3.00," + start.plusMinutes(2));
+    }
+
+    @Test
+    void testExportTransactions_byTimeRange_shouldIncludeAllCardsWithinRange() {
+        // Given: transactions of two cards, one of them outside the range
+        UUID first = cardRepository.save(new Card("First", Money.ofUnits(100))).getId();
+        UUID second = cardRepository.save(new Card("Second", Money.ofUnits(100))).getId();
+        LocalDateTime from = LocalDateTime.of(2020, 3, 1, 0, 0);
+        UUID inRangeFirst = saveTransaction(first, from).getId();
+        UUID inRangeSecond = saveTransaction(second, from.plusDays(1)).getId();
+        saveTransaction(second, from.plusDays(2));
+
+        // When
+        ResponseEntity<String> export = restTemplate.getForEntity(
+                "/cards/transactions/export?format=csv&from=" + from + "&to=" + from.plusDays(2), String.class);
+
+        // Then: from is inclusive, to exclusive
+        assertThat(export.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String[] lines = export.getBody().split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[1]).startsWith(inRangeFirst + "," + first);
+        assertThat(lines[2]).startsWith(inRangeSecond + "," + second);
+    }
+
+    @Test
+    void testExportTransactions_withUnknownCardOrInvalidParameters_shouldFail() {
+        UUID cardId = cardRepository.save(new Card("Audited", Money.ofUnits(100))).getId();
+
+        assertThat(restTemplate.getForEntity("/cards/" + UUID.randomUUID() + "/transactions/export", String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(restTemplate.getForEntity("/cards/" + cardId + "/transactions/export?format=xml", String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(restTemplate.getForEntity("/cards/transactions/export?from=2025-02-01T00:00:00&to=2025-01-01T00:00:00",
+                String.class).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(restTemplate.getForEntity("/cards/transactions/export?from=2025-02-01T00:00:00", String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void testGetCards_shouldPageByIdAndStreamAsNdjson() throws Exception {
+        // Given
+        List<UUID> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(cardRepository.save(new Card("Listed " + i, Money.ofUnits(i))).getId());
+        }
+
+        // When: pages of two are read, following the Link header
+        List<UUID> paged = new ArrayList<>();
+        String next = "/cards?limit=2";
+        while (next != null) {
+            ResponseEntity<List<Card>> page = restTemplate.exchange(next, HttpMethod.GET, null,
+                    new ParameterizedTypeReference<List<Card>>() {
+                    });
+            assertThat(page.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(page.getBody()).hasSizeLessThanOrEqualTo(2);
+            page.getBody().forEach(card -> paged.add(card.getId()));
+            String link = page.getHeaders().getFirst(HttpHeaders.LINK);
+            next = link != null ? link.substring(link.indexOf('<') + 1, link.indexOf('>')) : null;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON));
+        ResponseEntity<String> stream = restTemplate.exchange("/cards", HttpMethod.GET, new HttpEntity<>(headers),
+                String.class);
+
+        // Then: every card once, in the same (database) ID order in both modes
+        assertThat(paged).doesNotHaveDuplicates().containsAll(created);
+        assertThat(stream.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(stream.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+        List<UUID> streamed = new ArrayList<>();
+        for (String line : stream.getBody().split("\n")) {
+            streamed.add(objectMapper.readValue(line, Card.class).getId());
+        }
+        assertThat(streamed).isEqualTo(paged);
+    }
+
+    // History of a card read through the paged query: bounded, like every history read of the application
+    protected List<TransactionRow> history(UUID cardId) {
+        return transactionRepository.findFirstPage(cardId, Limit.of(HISTORY_LIMIT));
+    }
+
+    private Transaction saveTransaction(UUID cardId, LocalDateTime createdAt) {
+        Transaction transaction = new Transaction(cardId, Transaction.TransactionType.TOPUP, Money.ofUnits(1));
+        transaction.setCreatedAt(createdAt);
+        return transactionRepository.save(transaction);
+    }
+
+    private ResponseEntity<String> getIfNoneMatch(String path, String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
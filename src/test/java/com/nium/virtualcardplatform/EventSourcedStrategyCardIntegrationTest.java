@@ -0,0 +1,66 @@
+package com.nium.virtualcardplatform;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.TransactionRow;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the full CardIntegrationTest suite against the event-sourced strategy. Snapshots are written after
+ * every transaction so that the card rows read by the inherited tests hold the current balance.
+ */
+@TestPropertySource(properties = {"card.balance.strategy=event-sourced", "card.balance.event-sourced.snapshot-every=1"})
+class EventSourcedStrategyCardIntegrationTest extends CardIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Test
+    void testConcurrentSpend_shouldAppendContiguousSequenceNumbers() throws Exception {
+        // Given
+        UUID cardId = cardRepository.save(new Card("Ledger Test", Money.ofUnits(1000))).getId();
+
+        // When: 50 concurrent spends
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        Callable<ResponseEntity<Card>> spend = () -> restTemplate.postForEntity(
+                "/cards/" + cardId + "/spend", Map.of("amount", Money.ofUnits(1)), Card.class);
+        List<Future<ResponseEntity<Card>>> responses = executor.invokeAll(Collections.nCopies(50, spend));
+        executor.shutdown();
+        long successes = 0;
+        for (Future<ResponseEntity<Card>> response : responses) {
+            if (response.get().getStatusCode() == HttpStatus.OK) {
+                successes++;
+            }
+        }
+
+        // Then: the ledger has one transaction per success, at positions 1..n without gaps
+        List<TransactionRow> transactions = history(cardId);
+        assertThat(transactions).extracting(TransactionRow::sequenceNumber)
+                .containsExactlyInAnyOrderElementsOf(LongStream.rangeClosed(1, successes).boxed().toList());
+
+        // And: the balance read through the API is the initial balance minus the successful spends
+        Card card = restTemplate.getForObject("/cards/" + cardId, Card.class);
+        assertThat(card.getBalance()).isEqualByComparingTo(Money.ofUnits(1000 - successes));
+    }
+}
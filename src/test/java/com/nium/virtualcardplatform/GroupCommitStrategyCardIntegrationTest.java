@@ -0,0 +1,11 @@
+package com.nium.virtualcardplatform;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the full CardIntegrationTest suite (including the concurrent spend scenario)
+ * against the group-commit strategy.
+ */
+@TestPropertySource(properties = "card.balance.strategy=group-commit")
+class GroupCommitStrategyCardIntegrationTest extends CardIntegrationTest {
+}
@@ -0,0 +1,164 @@
+package com.nium.virtualcardplatform;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.model.TransactionRow;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The journal strategy acknowledges mutations before the database is updated, so this suite does not reuse
+ * CardIntegrationTest (which reads history and card rows right after each call): database state is awaited.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class JournalStrategyCardIntegrationTest {
+
+    @TempDir
+    static Path journalDirectory;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("card.balance.strategy", () -> "journal");
+        registry.add("card.balance.journal.directory", () -> journalDirectory.toString());
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("database materialized in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    // Read from the database: the sequence numbers are not part of the JSON of the history
+    private List<TransactionRow> history(UUID cardId) {
+        return transactionRepository.findFirstPage(cardId, Limit.of(1000));
+    }
+
+    @Test
+    void testSpendAndTopUp_shouldReturnNewBalanceAndEventuallyRecordHistory() throws Exception {
+        // Given
+        UUID cardId = restTemplate.postForEntity("/cards",
+                Map.of("cardholderName", "Journal Test", "initialBalance", Money.ofUnits(100)), Card.class)
+                .getBody().getId();
+
+        // When
+        ResponseEntity<Card> spend = restTemplate.postForEntity("/cards/" + cardId + "/spend",
+                Map.of("amount", Money.ofUnits(30)), Card.class);
+        ResponseEntity<Card> topUp = restTemplate.postForEntity("/cards/" + cardId + "/topup",
+                Map.of("amount", Money.ofUnits(5)), Card.class);
+
+        // Then: the API reads the journaled balance right away
+        assertThat(spend.getBody().getBalance()).isEqualByComparingTo(Money.ofUnits(70));
+        assertThat(topUp.getBody().getBalance()).isEqualByComparingTo(Money.ofUnits(75));
+        Card card = restTemplate.getForObject("/cards/" + cardId, Card.class);
+        assertThat(card.getBalance()).isEqualByComparingTo(Money.ofUnits(75));
+
+        // And: history and card row catch up
+        await(() -> history(cardId).size() == 2);
+        assertThat(history(cardId)).extracting(TransactionRow::type)
+                .containsExactlyInAnyOrder(Transaction.TransactionType.SPEND, Transaction.TransactionType.TOPUP);
+        await(() -> cardRepository.findById(cardId).orElseThrow().getSnapshotSequence() == 2L);
+        assertThat(cardRepository.findById(cardId).orElseThrow().getBalance())
+                .isEqualByComparingTo(Money.ofUnits(75));
+    }
+
+    @Test
+    void testSpend_withInsufficientBalanceOrUnknownCard_shouldBeRejected() {
+        // Given
+        UUID cardId = restTemplate.postForEntity("/cards",
+                Map.of("cardholderName", "Journal Test", "initialBalance", Money.ofUnits(10)), Card.class)
+                .getBody().getId();
+
+        // When & Then
+        assertThat(restTemplate.postForEntity("/cards/" + cardId + "/spend",
+                Map.of("amount", Money.ofUnits(50)), String.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(restTemplate.postForEntity("/cards/" + UUID.randomUUID() + "/spend",
+                Map.of("amount", Money.ofUnits(1)), String.class).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void testConcurrentSpend_shouldNeverOverdrawAndMaterializeContiguousSequenceNumbers() throws Exception {
+        // Given
+        UUID cardId = cardRepository.save(new Card("Journal Test", Money.ofUnits(1000))).getId();
+
+        // When: 50 concurrent spends of 30.00
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        Callable<ResponseEntity<Card>> spend = () -> restTemplate.postForEntity(
+                "/cards/" + cardId + "/spend", Map.of("amount", Money.ofUnits(30)), Card.class);
+        List<Future<ResponseEntity<Card>>> responses = executor.invokeAll(Collections.nCopies(50, spend));
+        executor.shutdown();
+        long successes = 0;
+        for (Future<ResponseEntity<Card>> response : responses) {
+            if (response.get().getStatusCode() == HttpStatus.OK) {
+                successes++;
+            }
+        }
+
+        // Then: 33 spends fit in the balance, none is lost
+        assertThat(successes).isEqualTo(33L);
+        Card card = restTemplate.getForObject("/cards/" + cardId, Card.class);
+        assertThat(card.getBalance()).isEqualByComparingTo(Money.ofUnits(10));
+        await(() -> history(cardId).size() == 33);
+        assertThat(history(cardId)).extracting(TransactionRow::sequenceNumber)
+                .containsExactlyInAnyOrderElementsOf(LongStream.rangeClosed(1, 33).boxed().toList());
+    }
+
+    @Test
+    void testGetCard_withIfNoneMatch_shouldSeeSpendBeforeDatabaseIsUpdated() throws Exception {
+        // Given
+        UUID cardId = cardRepository.save(new Card("Journal ETag", Money.ofUnits(100))).getId();
+        String tag = restTemplate.getForEntity("/cards/" + cardId, Card.class).getHeaders().getETag();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(tag);
+
+        // When: the spend is acknowledged from the journal, the card row may not be written yet
+        restTemplate.postForEntity("/cards/" + cardId + "/spend", Map.of("amount", 10.00), Card.class);
+        ResponseEntity<Card> response = restTemplate.exchange("/cards/" + cardId, HttpMethod.GET,
+                new HttpEntity<>(headers), Card.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isNotEqualTo(tag);
+        assertThat(response.getBody().getBalance()).isEqualByComparingTo(Money.ofUnits(90));
+    }
+}
@@ -0,0 +1,11 @@
+package com.nium.virtualcardplatform;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the full CardIntegrationTest suite against the optimistic strategy with local card locks
+ * disabled, so concurrent spends really conflict on Card.version and go through the scheduled retries.
+ */
+@TestPropertySource(properties = {"card.balance.strategy=optimistic", "card.balance.local-locks.enabled=false"})
+class OptimisticRetryCardIntegrationTest extends CardIntegrationTest {
+}
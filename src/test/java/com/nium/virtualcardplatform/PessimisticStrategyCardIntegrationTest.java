@@ -0,0 +1,12 @@
+package com.nium.virtualcardplatform;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the full CardIntegrationTest suite (including the concurrent spend scenario)
+ * against the PESSIMISTIC_WRITE strategy. Local locks are disabled so every request
+ * really competes for the database row lock.
+ */
+@TestPropertySource(properties = {"card.balance.strategy=pessimistic", "card.balance.local-locks.enabled=false"})
+class PessimisticStrategyCardIntegrationTest extends CardIntegrationTest {
+}
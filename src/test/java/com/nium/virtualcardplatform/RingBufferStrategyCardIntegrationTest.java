@@ -0,0 +1,10 @@
+package com.nium.virtualcardplatform;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the full CardIntegrationTest suite against the ring-buffer pipeline strategy.
+ */
+@TestPropertySource(properties = "card.balance.strategy=ring-buffer")
+class RingBufferStrategyCardIntegrationTest extends CardIntegrationTest {
+}
@@ -0,0 +1,82 @@
+package com.nium.virtualcardplatform;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the full CardIntegrationTest suite with the Hibernate second-level cache (l2-cache profile), and checks
+ * that cached cards are read from the "cards" region without breaking the @Version check.
+ * The CardService read cache is disabled so that reads reach Hibernate.
+ */
+@ActiveProfiles("l2-cache")
+@TestPropertySource(properties = "card.read-cache.enabled=false")
+class SecondLevelCacheCardIntegrationTest extends CardIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private CacheRegionStatistics cardRegion() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics()
+                .getDomainDataRegionStatistics("cards");
+    }
+
+    @Test
+    void testGetCard_shouldBeServedFromSecondLevelCache() {
+        // Given
+        UUID cardId = cardRepository.save(new Card("Cached", Money.ofUnits(100))).getId();
+        restTemplate.getForEntity("/cards/" + cardId, Card.class);
+        long hits = cardRegion().getHitCount();
+
+        // When
+        ResponseEntity<Card> response = restTemplate.getForEntity("/cards/" + cardId, Card.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getBalance()).isEqualByComparingTo(Money.ofUnits(100));
+        assertThat(cardRegion().getHitCount()).isGreaterThan(hits);
+    }
+
+    @Test
+    void testSpend_afterRowChangedBehindTheCache_shouldFailVersionCheckAndRetryWithFreshRow() {
+        // Given: the card is cached, then updated without Hibernate (e.g. by another node)
+        UUID cardId = cardRepository.save(new Card("Stale", Money.ofUnits(100))).getId();
+        restTemplate.getForEntity("/cards/" + cardId, Card.class);
+        jdbcTemplate.update("UPDATE cards SET balance = 50.00, version = version + 1 WHERE id = ?", cardId);
+
+        // When
+        ResponseEntity<Card> response = restTemplate.postForEntity("/cards/" + cardId + "/spend",
+                Map.of("amount", 30.00), Card.class);
+
+        // Then: the spend applies to the current balance, not the cached one
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getBalance()).isEqualByComparingTo(Money.ofUnits(20));
+        assertThat(cardRepository.findById(cardId).orElseThrow().getBalance())
+                .isEqualByComparingTo(Money.ofUnits(20));
+    }
+}
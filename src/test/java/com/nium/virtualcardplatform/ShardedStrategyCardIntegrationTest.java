@@ -0,0 +1,11 @@
+package com.nium.virtualcardplatform;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the full CardIntegrationTest suite (including the concurrent spend scenario)
+ * against the sharded single-writer engine.
+ */
+@TestPropertySource(properties = {"card.balance.strategy=sharded", "card.balance.sharded.shards=4"})
+class ShardedStrategyCardIntegrationTest extends CardIntegrationTest {
+}
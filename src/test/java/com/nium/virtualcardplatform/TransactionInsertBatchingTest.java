@@ -0,0 +1,66 @@
+package com.nium.virtualcardplatform;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import com.nium.virtualcardplatform.service.BatchTransaction;
+import com.nium.virtualcardplatform.service.BatchTransactionResult;
+import com.nium.virtualcardplatform.service.CardService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the Transaction rows of a group are inserted in JDBC batches: their IDs are generated in the
+ * application (TimeOrderedUuidGenerator), so Hibernate does not need a round trip per row before queuing the insert.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TransactionInsertBatchingTest {
+
+    private static final int TRANSACTIONS = 200;
+    private static final int JDBC_BATCH_SIZE = 50; // spring.jpa.properties.hibernate.jdbc.batch_size
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void applyBatch_shouldInsertTransactionsOfACardInJdbcBatches() {
+        // Given
+        UUID cardId = cardRepository.save(new Card("Batched", Money.ofUnits(0))).getId();
+        List<BatchTransaction> batch = IntStream.range(0, TRANSACTIONS)
+                .mapToObj(i -> new BatchTransaction(cardId, Transaction.TransactionType.TOPUP, Money.ofUnits(1)))
+                .toList();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        List<BatchTransactionResult> results = cardService.applyBatch(batch).join();
+
+        // Then: one statement per JDBC batch of inserts, plus the card read and update
+        assertThat(results).allMatch(result -> result.status() == BatchTransactionResult.Status.OK);
+        assertThat(transactionRepository.findFirstPage(cardId, Limit.of(TRANSACTIONS + 1))).hasSize(TRANSACTIONS);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(TRANSACTIONS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(TRANSACTIONS / JDBC_BATCH_SIZE + 2);
+    }
+}
@@ -0,0 +1,47 @@
+package com.nium.virtualcardplatform;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the full CardIntegrationTest suite with the virtual-threads profile (Tomcat, task executor and
+ * strategy workers on virtual threads), and checks that the concurrent spend scenario never pins a carrier
+ * thread: no synchronized block or native frame is held while blocking on JDBC, the pool or the card locks.
+ * Only runs on Java 21+ (mvn -Pjava21 test with a JDK 21).
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@ActiveProfiles("virtual-threads")
+class VirtualThreadsCardIntegrationTest extends CardIntegrationTest {
+
+    @Test
+    void testConcurrentSpend_shouldNotPinCarrierThreads() throws Exception {
+        Path dump = Files.createTempFile("virtual-thread-pinning", ".jfr");
+        try (Recording recording = new Recording()) {
+            // Any pinned park, not only the ones longer than the default 20 ms threshold
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+
+            testConcurrentSpend_shouldMaintainDataIntegrity();
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> pinned = RecordingFile.readAllEvents(dump);
+        Files.deleteIfExists(dump);
+        pinned.forEach(event -> System.err.println("Pinned virtual thread: " + event));
+        assertThat(pinned).isEmpty();
+    }
+}
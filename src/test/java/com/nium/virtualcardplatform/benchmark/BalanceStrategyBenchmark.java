@@ -0,0 +1,59 @@
+package com.nium.virtualcardplatform.benchmark;
+
+import com.nium.virtualcardplatform.VirtualCardPlatformApplication;
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Throughput of each balance mutation strategy under the concurrent spend scenario of
+ * CardIntegrationTest, both on a single hot card and spread across many cards.
+ * Run with: mvn test -Pbenchmark -Dtest=BalanceStrategyBenchmark
+ */
+@Tag("benchmark")
+class BalanceStrategyBenchmark {
+
+    private static final int REQUESTS = 2_000;
+    private static final int CONCURRENCY = 32;
+    private static final int SPREAD_CARDS = 64;
+
+    @TempDir
+    Path journalDirectory;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"optimistic", "pessimistic", "atomic", "sharded", "group-commit", "event-sourced", "journal",
+            "ring-buffer"})
+    void spendThroughput(String strategy) throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VirtualCardPlatformApplication.class)
+                .properties("server.port=0", "card.balance.strategy=" + strategy,
+                        "card.balance.journal.directory=" + journalDirectory)
+                .run()) {
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            CardRepository cardRepository = context.getBean(CardRepository.class);
+            HttpLoadRunner runner = new HttpLoadRunner();
+            String body = "{\"amount\": 1.00}";
+
+            UUID hotCard = cardRepository.save(new Card("Hot card", Money.ofUnits(1_000_000))).getId();
+            runner.run(strategy + " / hot card", baseUrl, n -> "/cards/" + hotCard + "/spend", body, REQUESTS, CONCURRENCY);
+
+            List<UUID> cards = new ArrayList<>();
+            for (int i = 0; i < SPREAD_CARDS; i++) {
+                cards.add(cardRepository.save(new Card("Card " + i, Money.ofUnits(1_000_000))).getId());
+            }
+            runner.run(strategy + " / " + SPREAD_CARDS + " cards", baseUrl,
+                    n -> "/cards/" + cards.get(n % SPREAD_CARDS) + "/spend", body, REQUESTS, CONCURRENCY);
+        }
+    }
+}
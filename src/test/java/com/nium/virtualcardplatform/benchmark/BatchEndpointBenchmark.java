@@ -0,0 +1,59 @@
+package com.nium.virtualcardplatform.benchmark;
+
+import com.nium.virtualcardplatform.VirtualCardPlatformApplication;
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Settlement-style load: the same spends sent one per request (POST /cards/{id}/spend) and grouped in
+ * POST /cards/transactions/batch requests, spread across many cards.
+ * Run with: mvn test -Pbenchmark -Dtest=BatchEndpointBenchmark
+ */
+@Tag("benchmark")
+class BatchEndpointBenchmark {
+
+    private static final int TRANSACTIONS = 4_000;
+    private static final int BATCH_SIZE = 500;
+    private static final int CARDS = 64;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"optimistic", "atomic", "group-commit", "ring-buffer"})
+    void spendThroughput(String strategy) throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VirtualCardPlatformApplication.class)
+                .properties("server.port=0", "card.balance.strategy=" + strategy)
+                .run()) {
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            CardRepository cardRepository = context.getBean(CardRepository.class);
+            HttpLoadRunner runner = new HttpLoadRunner();
+            List<UUID> cards = new ArrayList<>();
+            for (int i = 0; i < CARDS; i++) {
+                cards.add(cardRepository.save(new Card("Card " + i, Money.ofUnits(1_000_000))).getId());
+            }
+
+            HttpLoadRunner.Result single = runner.run(strategy + " / single", baseUrl,
+                    n -> "/cards/" + cards.get(n % CARDS) + "/spend", "{\"amount\": 1.00}", TRANSACTIONS, 32);
+
+            String batch = IntStream.range(0, BATCH_SIZE)
+                    .mapToObj(n -> "{\"cardId\": \"" + cards.get(n % CARDS) + "\", \"type\": \"SPEND\", \"amount\": 1.00}")
+                    .collect(Collectors.joining(",", "[", "]"));
+            HttpLoadRunner.Result batched = runner.run(strategy + " / batch of " + BATCH_SIZE, baseUrl,
+                    n -> "/cards/transactions/batch", batch, TRANSACTIONS / BATCH_SIZE, 4);
+
+            System.out.printf("[benchmark] %-40s %8.1f tx/s single, %8.1f tx/s batched%n", strategy,
+                    single.throughput(), batched.throughput() * BATCH_SIZE);
+        }
+    }
+}
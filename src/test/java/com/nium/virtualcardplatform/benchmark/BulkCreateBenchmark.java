@@ -0,0 +1,51 @@
+package com.nium.virtualcardplatform.benchmark;
+
+import com.nium.virtualcardplatform.VirtualCardPlatformApplication;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Card issuance on the default H2 setup: cards created one per request (POST /cards) and in
+ * POST /cards/bulk requests, whose INSERTs are sent in JDBC batches.
+ * Run with: mvn test -Pbenchmark -Dtest=BulkCreateBenchmark
+ */
+@Tag("benchmark")
+class BulkCreateBenchmark {
+
+    private static final int CARDS = 5_000;
+    private static final int BULK_SIZE = 10_000;
+    private static final int BULK_REQUESTS = 20;
+
+    @Test
+    void createThroughput() throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VirtualCardPlatformApplication.class)
+                .properties("server.port=0")
+                .run()) {
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpLoadRunner runner = new HttpLoadRunner();
+
+            HttpLoadRunner.Result single = runner.run("single", baseUrl, n -> "/cards",
+                    "{\"cardholderName\": \"Single\", \"initialBalance\": 100.00}", CARDS, 32);
+
+            String bulk = IntStream.range(0, BULK_SIZE)
+                    .mapToObj(n -> "{\"cardholderName\": \"Bulk " + n + "\", \"initialBalance\": 100.00}")
+                    .collect(Collectors.joining(",", "[", "]"));
+            HttpLoadRunner.Result bulked = runner.run("bulk of " + BULK_SIZE, baseUrl, n -> "/cards/bulk", bulk,
+                    BULK_REQUESTS, 4);
+
+            System.out.printf("[benchmark] %-40s %8.1f cards/s single, %8.1f cards/s bulk%n", "create",
+                    single.throughput(), bulked.throughput() * BULK_SIZE);
+            assertThat(context.getBean(CardRepository.class).count())
+                    .isEqualTo(CARDS + (long) BULK_SIZE * BULK_REQUESTS);
+        }
+    }
+}
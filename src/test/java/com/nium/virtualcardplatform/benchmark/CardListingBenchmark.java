@@ -0,0 +1,85 @@
+package com.nium.virtualcardplatform.benchmark;
+
+import com.nium.virtualcardplatform.VirtualCardPlatformApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * GET /cards on a growing cards table: latency of the first page and of a page 90% deep (keyset on ID), and the
+ * largest live heap (LiveHeapSampler) while all cards are streamed as NDJSON.
+ * Run with: mvn test -Pbenchmark -Dtest=CardListingBenchmark
+ */
+@Tag("benchmark")
+class CardListingBenchmark {
+
+    private static final int INSERT_BATCH = 50_000;
+    private static final int REQUESTS = 2_000;
+
+    @ParameterizedTest
+    @ValueSource(ints = {100_000, 1_000_000})
+    void listCards(int cards) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VirtualCardPlatformApplication.class)
+                .properties("server.port=0")
+                .run()) {
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            for (int from = 0; from < cards; from += INSERT_BATCH) {
+                List<Object[]> rows = new ArrayList<>(INSERT_BATCH);
+                for (int i = from; i < Math.min(from + INSERT_BATCH, cards); i++) {
+                    rows.add(new Object[]{UUID.randomUUID(), "Card " + i});
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO cards (id, cardholder_name, balance, created_at, version, "
+                        + "snapshot_sequence) VALUES (?, ?, 100, CURRENT_TIMESTAMP, 0, 0)", rows);
+            }
+            UUID deep = jdbcTemplate.queryForObject("SELECT id FROM cards ORDER BY id OFFSET ? ROWS FETCH FIRST 1 ROW ONLY",
+                    UUID.class, cards * 9 / 10);
+
+            HttpLoadRunner runner = new HttpLoadRunner();
+            HttpLoadRunner.Result first = runner.run(cards + " / first page", baseUrl, n -> "/cards?limit=100", null,
+                    REQUESTS, 8);
+            HttpLoadRunner.Result deeper = runner.run(cards + " / page at 90%", baseUrl,
+                    n -> "/cards?limit=100&after=" + deep, null, REQUESTS, 8);
+
+            LiveHeapSampler sampler = new LiveHeapSampler();
+            long started = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/cards"))
+                    .header("Accept", "application/x-ndjson")
+                    .build();
+            HttpResponse<InputStream> response = HttpClient.newHttpClient()
+                    .send(request, HttpResponse.BodyHandlers.ofInputStream());
+            long lines = 0;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                while (reader.readLine() != null) {
+                    lines++;
+                }
+            }
+            double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+            sampler.close();
+
+            assertThat(lines).isEqualTo(cards);
+            System.out.printf("[benchmark] %-40s p50 %6.2f ms first page, %6.2f ms at 90%%, stream %8.0f cards/s, "
+                            + "peak live heap above baseline %6.1f MB%n", cards + " cards",
+                    first.p50Nanos() / 1_000_000.0, deeper.p50Nanos() / 1_000_000.0, cards / seconds,
+                    sampler.peakAboveBaselineMb());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.nium.virtualcardplatform.benchmark;
+
+import com.nium.virtualcardplatform.VirtualCardPlatformApplication;
+import com.nium.virtualcardplatform.model.TimeOrderedUuidGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Insert throughput into a growing transactions table with random (v4) and time-ordered (v7) primary keys.
+ * Each run uses its own file database; the rate is printed for every step of STEP rows, so the slowdown of random
+ * keys as the primary key index outgrows the cache shows up.
+ * Run with: mvn test -Pbenchmark -Dtest=IdGenerationBenchmark
+ */
+@Tag("benchmark")
+class IdGenerationBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 2_000_000);
+    private static final int STEP = 500_000;
+    private static final int INSERT_BATCH = 10_000;
+    private static final int CARDS = 1_000;
+
+    @TempDir
+    Path databaseDirectory;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"random", "time-ordered"})
+    void insertThroughput(String ids) {
+        Supplier<UUID> generator = ids.equals("random") ? UUID::randomUUID : TimeOrderedUuidGenerator::next;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VirtualCardPlatformApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:file:" + databaseDirectory.resolve("bench"),
+                        "spring.jpa.hibernate.ddl-auto=create")
+                .run()) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            UUID[] cards = new UUID[CARDS];
+            for (int i = 0; i < CARDS; i++) {
+                cards[i] = TimeOrderedUuidGenerator.next();
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            LocalDateTime start = LocalDateTime.now();
+            long stepStarted = System.nanoTime();
+            long totalNanos = 0;
+            for (int inserted = 0; inserted < ROWS; inserted += INSERT_BATCH) {
+                List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+                for (int i = 0; i < INSERT_BATCH; i++) {
+                    // Transactions arrive in time order, as in production
+                    batch.add(new Object[]{generator.get(), cards[random.nextInt(CARDS)],
+                            Timestamp.valueOf(start.plusNanos((inserted + i) * 1_000L))});
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO transactions (id, card_id, type, amount, created_at) "
+                        + "VALUES (?, ?, 'TOPUP', 1, ?)", batch);
+                if ((inserted + INSERT_BATCH) % STEP == 0) {
+                    long elapsed = System.nanoTime() - stepStarted;
+                    totalNanos += elapsed;
+                    System.out.printf("[benchmark] %-40s %10.0f rows/s%n",
+                            ids + " / rows " + (inserted + INSERT_BATCH - STEP) + "-" + (inserted + INSERT_BATCH),
+                            STEP / (elapsed / 1_000_000_000.0));
+                    stepStarted = System.nanoTime();
+                }
+            }
+            System.out.printf("[benchmark] %-40s %10.0f rows/s%n", ids + " / total", ROWS / (totalNanos / 1_000_000_000.0));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.nium.virtualcardplatform.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Largest live heap of the JVM while it runs: sampled after a full GC every 100 ms, so garbage does not count.
+ * The GCs slow the measured code down, so throughput figures taken meanwhile are only indicative.
+ */
+final class LiveHeapSampler implements AutoCloseable {
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final long baseline;
+    private final AtomicLong peak;
+    private final Thread thread;
+
+    LiveHeapSampler() {
+        System.gc();
+        baseline = memory.getHeapMemoryUsage().getUsed();
+        peak = new AtomicLong(baseline);
+        thread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                System.gc();
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "live-heap-sampler");
+        thread.start();
+    }
+
+    /**
+     * Largest live heap seen since the sampler started, minus the live heap when it started, in MB.
+     */
+    double peakAboveBaselineMb() {
+        return (peak.get() - baseline) / (1024.0 * 1024.0);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        thread.interrupt();
+        thread.join();
+    }
+}
@@ -0,0 +1,93 @@
+package com.nium.virtualcardplatform.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nium.virtualcardplatform.model.Money;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH micro-benchmark of the balance arithmetic of a spend / top-up, with BigDecimal (before) and Money (long minor
+ * units), and of reading the amount of a request body: untyped Map then new BigDecimal(value.toString()) as
+ * CardController did, against a body record with a Money field. The GC profiler reports the bytes allocated per
+ * operation (gc.alloc.rate.norm).
+ * Run with: mvn test -Pbenchmark -Dtest=MoneyBenchmark
+ */
+@Tag("benchmark")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final String BODY = "{\"amount\": 30.25}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BigDecimal bigDecimalBalance = new BigDecimal("1000.00");
+    private BigDecimal bigDecimalAmount = new BigDecimal("30.25");
+    private Money moneyBalance = Money.parse("1000.00");
+    private Money moneyAmount = Money.parse("30.25");
+
+    public record AmountBody(Money amount) {
+    }
+
+    @Test
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyBenchmark.class.getName() + "\\.")
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    // Insufficient balance check, then the spend and the top-up of CardMutationGroup (the balance stays the same)
+    @Benchmark
+    public BigDecimal bigDecimalSpendAndTopUp() {
+        if (bigDecimalAmount.compareTo(BigDecimal.ZERO) <= 0 || bigDecimalBalance.compareTo(bigDecimalAmount) < 0) {
+            throw new IllegalStateException();
+        }
+        BigDecimal spent = bigDecimalBalance.subtract(bigDecimalAmount);
+        bigDecimalBalance = spent.add(bigDecimalAmount);
+        return spent;
+    }
+
+    @Benchmark
+    public Money moneySpendAndTopUp() {
+        if (moneyAmount.signum() <= 0 || moneyBalance.isLessThan(moneyAmount)) {
+            throw new IllegalStateException();
+        }
+        Money spent = moneyBalance.subtract(moneyAmount);
+        moneyBalance = spent.add(moneyAmount);
+        return spent;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public BigDecimal bigDecimalRequestAmount() throws IOException {
+        Map<String, Object> payload = objectMapper.readValue(BODY, Map.class);
+        return new BigDecimal(payload.get("amount").toString());
+    }
+
+    @Benchmark
+    public Money moneyRequestAmount() throws IOException {
+        return objectMapper.readValue(BODY, AmountBody.class).amount();
+    }
+}
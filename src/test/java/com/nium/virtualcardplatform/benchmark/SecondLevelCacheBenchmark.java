@@ -0,0 +1,54 @@
+package com.nium.virtualcardplatform.benchmark;
+
+import com.nium.virtualcardplatform.VirtualCardPlatformApplication;
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * GET /cards/{id} and spend latency with and without the Hibernate second-level cache (l2-cache profile),
+ * with the default optimistic strategy. The CardService read cache is disabled so that reads reach Hibernate.
+ * Run with: mvn test -Pbenchmark -Dtest=SecondLevelCacheBenchmark
+ */
+@Tag("benchmark")
+class SecondLevelCacheBenchmark {
+
+    private static final int REQUESTS = 10_000;
+    private static final int CARDS = 64;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void readAndSpend(boolean secondLevelCache) throws InterruptedException {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(VirtualCardPlatformApplication.class)
+                .properties("server.port=0", "card.read-cache.enabled=false");
+        if (secondLevelCache) {
+            builder.profiles("l2-cache");
+        }
+        try (ConfigurableApplicationContext context = builder.run()) {
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            CardRepository cardRepository = context.getBean(CardRepository.class);
+            HttpLoadRunner runner = new HttpLoadRunner();
+            List<UUID> cards = new ArrayList<>();
+            for (int i = 0; i < CARDS; i++) {
+                cards.add(cardRepository.save(new Card("Card " + i, Money.ofUnits(1_000_000))).getId());
+            }
+            String label = secondLevelCache ? "l2-cache" : "no cache";
+
+            // Warm-up, also loads every card into the region
+            runner.run(label + " / warm-up", baseUrl, n -> "/cards/" + cards.get(n % CARDS), null, 2_000, 16);
+            runner.run(label + " / GET", baseUrl, n -> "/cards/" + cards.get(n % CARDS), null, REQUESTS, 16);
+            runner.run(label + " / spend", baseUrl, n -> "/cards/" + cards.get(n % CARDS) + "/spend",
+                    "{\"amount\": 1.00}", REQUESTS / 4, 16);
+        }
+    }
+}
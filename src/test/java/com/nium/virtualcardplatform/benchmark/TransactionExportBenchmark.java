@@ -0,0 +1,84 @@
+package com.nium.virtualcardplatform.benchmark;
+
+import com.nium.virtualcardplatform.VirtualCardPlatformApplication;
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * GET /cards/{id}/transactions/export on a card with a long history: export rate and the largest live heap
+ * during the export (LiveHeapSampler), which should not depend on the number of rows.
+ * Run with: mvn test -Pbenchmark -Dtest=TransactionExportBenchmark
+ */
+@Tag("benchmark")
+class TransactionExportBenchmark {
+
+    private static final int INSERT_BATCH = 50_000;
+
+    @ParameterizedTest
+    @ValueSource(ints = {100_000, 2_000_000})
+    void exportHeap(int historyLength) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VirtualCardPlatformApplication.class)
+                .properties("server.port=0")
+                .run()) {
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            UUID cardId = context.getBean(CardRepository.class).save(new Card("Audited", Money.ZERO)).getId();
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+            for (int from = 0; from < historyLength; from += INSERT_BATCH) {
+                List<Object[]> rows = new ArrayList<>(INSERT_BATCH);
+                for (int i = from; i < Math.min(from + INSERT_BATCH, historyLength); i++) {
+                    rows.add(new Object[]{UUID.randomUUID(), cardId, Timestamp.valueOf(start.plusSeconds(i))});
+                }
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO transactions (id, card_id, type, amount, created_at) VALUES (?, ?, 'TOPUP', 1, ?)", rows);
+            }
+
+            for (String format : new String[]{"ndjson", "csv"}) {
+                LiveHeapSampler sampler = new LiveHeapSampler();
+                long started = System.nanoTime();
+                HttpRequest request = HttpRequest.newBuilder(
+                        URI.create(baseUrl + "/cards/" + cardId + "/transactions/export?format=" + format)).build();
+                HttpResponse<InputStream> response = HttpClient.newHttpClient()
+                        .send(request, HttpResponse.BodyHandlers.ofInputStream());
+                long lines = 0;
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                    while (reader.readLine() != null) {
+                        lines++;
+                    }
+                }
+                double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+                sampler.close();
+
+                assertThat(response.statusCode()).isEqualTo(200);
+                assertThat(lines).isEqualTo(format.equals("csv") ? historyLength + 1 : historyLength);
+                System.out.printf("[benchmark] %-40s %10.0f rows/s  peak live heap above baseline %6.1f MB%n",
+                        historyLength + " / " + format, historyLength / seconds,
+                        sampler.peakAboveBaselineMb());
+            }
+        }
+    }
+}
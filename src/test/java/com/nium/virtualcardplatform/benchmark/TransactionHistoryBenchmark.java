@@ -0,0 +1,64 @@
+package com.nium.virtualcardplatform.benchmark;
+
+import com.nium.virtualcardplatform.VirtualCardPlatformApplication;
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.service.TransactionCursor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * GET /cards/{id}/transactions on cards with a short and a long history: the first page and a page 90% deep
+ * into the history. With keyset pagination both should take about the same time whatever the history length.
+ * Run with: mvn test -Pbenchmark -Dtest=TransactionHistoryBenchmark
+ */
+@Tag("benchmark")
+class TransactionHistoryBenchmark {
+
+    private static final int REQUESTS = 2_000;
+    private static final int PAGE_SIZE = 100;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 200_000})
+    void pageLatency(int historyLength) throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VirtualCardPlatformApplication.class)
+                .properties("server.port=0")
+                .run()) {
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            UUID cardId = context.getBean(CardRepository.class).save(new Card("History", Money.ZERO)).getId();
+
+            // One transaction per second, inserted directly
+            LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+            List<Object[]> rows = new ArrayList<>(historyLength);
+            for (int i = 0; i < historyLength; i++) {
+                rows.add(new Object[]{UUID.randomUUID(), cardId, Timestamp.valueOf(start.plusSeconds(i))});
+            }
+            context.getBean(JdbcTemplate.class).batchUpdate(
+                    "INSERT INTO transactions (id, card_id, type, amount, created_at) VALUES (?, ?, 'TOPUP', 1, ?)", rows);
+            Object[] deep = rows.get(historyLength * 9 / 10);
+            String cursor = new TransactionCursor(((Timestamp) deep[2]).toLocalDateTime(), (UUID) deep[0]).encode();
+
+            HttpLoadRunner runner = new HttpLoadRunner();
+            String path = "/cards/" + cardId + "/transactions?limit=" + PAGE_SIZE;
+            HttpLoadRunner.Result first = runner.run(historyLength + " / first page", baseUrl, n -> path, null,
+                    REQUESTS, 8);
+            HttpLoadRunner.Result deeper = runner.run(historyLength + " / page at 90%", baseUrl,
+                    n -> path + "&after=" + cursor, null, REQUESTS, 8);
+
+            System.out.printf("[benchmark] %-40s p50 %6.2f ms first page, %6.2f ms at 90%%%n",
+                    historyLength + " transactions", first.p50Nanos() / 1_000_000.0, deeper.p50Nanos() / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.nium.virtualcardplatform.benchmark;
+
+import com.nium.virtualcardplatform.VirtualCardPlatformApplication;
+import com.nium.virtualcardplatform.model.TimeOrderedUuidGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Insert throughput of transaction rows in JDBC batches of 50 (hibernate.jdbc.batch_size), by way of allocating
+ * their IDs: a sequence call per row (sequence generator with allocationSize = 1), a sequence call per block of 50
+ * IDs (pooled-lo optimizer), or no call at all (UUIDv7 generated in the application, as Transaction does).
+ * Each variant inserts into its own copy of the transactions table.
+ * Run with: mvn test -Pbenchmark -Dtest=TransactionIdAllocationBenchmark
+ */
+@Tag("benchmark")
+class TransactionIdAllocationBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 500_000);
+    private static final int JDBC_BATCH_SIZE = 50;
+    private static final int BLOCK_SIZE = 50;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"sequence", "pooled-lo", "uuid-v7"})
+    void insertThroughput(String allocation) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VirtualCardPlatformApplication.class)
+                .properties("server.port=0")
+                .run()) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            boolean uuid = allocation.equals("uuid-v7");
+            jdbcTemplate.execute("CREATE TABLE id_benchmark (id " + (uuid ? "UUID" : "BIGINT") + " PRIMARY KEY, "
+                    + "card_id UUID NOT NULL, type VARCHAR(255) NOT NULL, amount NUMERIC(38, 2) NOT NULL, "
+                    + "created_at TIMESTAMP NOT NULL)");
+            jdbcTemplate.execute("CREATE SEQUENCE id_benchmark_seq START WITH 1 INCREMENT BY "
+                    + (allocation.equals("pooled-lo") ? BLOCK_SIZE : 1));
+            AtomicLong sequenceCalls = new AtomicLong();
+            Supplier<Object> ids = switch (allocation) {
+                case "sequence" -> () -> {
+                    sequenceCalls.incrementAndGet();
+                    return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR id_benchmark_seq", Long.class);
+                };
+                case "pooled-lo" -> new Supplier<>() {
+                    private long next;
+                    private long blockEnd;
+
+                    @Override
+                    public Object get() {
+                        if (next == blockEnd) { // Block used up: the sequence value is the low end of the next one
+                            sequenceCalls.incrementAndGet();
+                            next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR id_benchmark_seq", Long.class);
+                            blockEnd = next + BLOCK_SIZE;
+                        }
+                        return next++;
+                    }
+                };
+                default -> TimeOrderedUuidGenerator::next;
+            };
+            UUID cardId = TimeOrderedUuidGenerator.next();
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+            long started = System.nanoTime();
+            for (int inserted = 0; inserted < ROWS; inserted += JDBC_BATCH_SIZE) {
+                List<Object[]> batch = new ArrayList<>(JDBC_BATCH_SIZE);
+                for (int i = 0; i < JDBC_BATCH_SIZE; i++) {
+                    batch.add(new Object[]{ids.get(), cardId, "TOPUP", 1, now});
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO id_benchmark (id, card_id, type, amount, created_at) "
+                        + "VALUES (?, ?, ?, ?, ?)", batch);
+            }
+            double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+            System.out.printf("[benchmark] %-12s %10.0f rows/s, %d sequence calls for %d rows%n",
+                    allocation, ROWS / seconds, sequenceCalls.get(), ROWS);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.nium.virtualcardplatform.benchmark;
+
+import com.nium.virtualcardplatform.VirtualCardPlatformApplication;
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * GET /cards/{id}/transactions for a card with a fixed history while the transactions of other cards grow the
+ * table: with the covering idx_transactions_card_history index the latency depends on the page, not on the table.
+ * Uses a file database (the table does not fit in memory at the largest sizes) and prints the plan of the history
+ * query. Table sizes can be set with -Dbenchmark.table-sizes=1000000,10000000 (H2 inserts slow down a lot past a
+ * few million random rows: allow hours and tens of GB for 10M)
+ * Run with: mvn test -Pbenchmark -Dtest=TransactionTableGrowthBenchmark
+ */
+@Tag("benchmark")
+class TransactionTableGrowthBenchmark {
+
+    private static final int HISTORY_LENGTH = 2_000;
+    private static final int OTHER_CARDS = 100_000;
+    private static final int INSERT_BATCH = 10_000;
+    private static final int REQUESTS = 2_000;
+
+    @TempDir
+    Path databaseDirectory;
+
+    @Test
+    void historyLatencyAsTableGrows() throws InterruptedException {
+        long[] tableSizes = Arrays.stream(System.getProperty("benchmark.table-sizes", "1000000,3000000")
+                .split(",")).mapToLong(Long::parseLong).toArray();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VirtualCardPlatformApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:file:" + databaseDirectory.resolve("bench"),
+                        "spring.jpa.hibernate.ddl-auto=create")
+                .run()) {
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            UUID cardId = context.getBean(CardRepository.class).save(new Card("History", Money.ZERO)).getId();
+            LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+            List<Object[]> history = new ArrayList<>(HISTORY_LENGTH);
+            for (int i = 0; i < HISTORY_LENGTH; i++) {
+                history.add(new Object[]{UUID.randomUUID(), cardId, Timestamp.valueOf(start.plusSeconds(i))});
+            }
+            insert(jdbcTemplate, history);
+
+            System.out.println("[benchmark] plan: " + jdbcTemplate.queryForObject("EXPLAIN SELECT id, card_id, type, "
+                    + "amount, created_at, sequence_number FROM transactions WHERE card_id = ? "
+                    + "ORDER BY created_at, id FETCH FIRST 101 ROWS ONLY", String.class, cardId).replaceAll("\\s+", " "));
+
+            // Other cards: random cards and times, so their rows land all over the indexes
+            UUID[] otherCards = new UUID[OTHER_CARDS];
+            Arrays.setAll(otherCards, i -> UUID.randomUUID());
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long tableSize = HISTORY_LENGTH;
+            String path = "/cards/" + cardId + "/transactions?limit=100";
+            HttpLoadRunner runner = new HttpLoadRunner();
+            runner.run("warm-up", baseUrl, n -> path, null, REQUESTS, 8);
+            for (long target : tableSizes) {
+                while (tableSize < target) {
+                    int rows = (int) Math.min(INSERT_BATCH, target - tableSize);
+                    List<Object[]> batch = new ArrayList<>(rows);
+                    for (int i = 0; i < rows; i++) {
+                        batch.add(new Object[]{UUID.randomUUID(), otherCards[random.nextInt(OTHER_CARDS)],
+                                Timestamp.valueOf(start.plusSeconds(random.nextInt(365 * 24 * 3600)))});
+                    }
+                    insert(jdbcTemplate, batch);
+                    tableSize += rows;
+                }
+                HttpLoadRunner.Result first = runner.run(target + " rows / first page", baseUrl, n -> path, null,
+                        REQUESTS, 8);
+                System.out.printf("[benchmark] %-40s p50 %6.2f ms  p99 %6.2f ms%n", target + " rows in transactions",
+                        first.p50Nanos() / 1_000_000.0, first.p99Nanos() / 1_000_000.0);
+            }
+        }
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO transactions (id, card_id, type, amount, created_at) VALUES (?, ?, 'TOPUP', 1, ?)", rows);
+    }
+}
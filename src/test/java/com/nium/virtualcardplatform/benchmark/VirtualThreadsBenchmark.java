@@ -0,0 +1,60 @@
+package com.nium.virtualcardplatform.benchmark;
+
+import com.nium.virtualcardplatform.VirtualCardPlatformApplication;
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Platform threads vs virtual threads (spring.threads.virtual.enabled) under the concurrent spend scenario
+ * of CardIntegrationTest, with the default strategy. Each mode is measured with the client concurrency of
+ * BalanceStrategyBenchmark and with more clients than Tomcat's default 200 request threads.
+ * Run with a JDK 21: mvn test -Pbenchmark,java21 -Dtest=VirtualThreadsBenchmark
+ */
+@Tag("benchmark")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadsBenchmark {
+
+    private static final int REQUESTS = 4_000;
+    private static final int[] CONCURRENCY = {32, 400};
+    private static final int SPREAD_CARDS = 64;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void spendThroughput(boolean virtualThreads) throws InterruptedException {
+        String mode = virtualThreads ? "virtual threads" : "platform threads";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VirtualCardPlatformApplication.class)
+                .properties("server.port=0", "spring.threads.virtual.enabled=" + virtualThreads)
+                .run()) {
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            CardRepository cardRepository = context.getBean(CardRepository.class);
+            HttpLoadRunner runner = new HttpLoadRunner();
+            String body = "{\"amount\": 1.00}";
+
+            UUID hotCard = cardRepository.save(new Card("Hot card", Money.ofUnits(1_000_000))).getId();
+            List<UUID> cards = new ArrayList<>();
+            for (int i = 0; i < SPREAD_CARDS; i++) {
+                cards.add(cardRepository.save(new Card("Card " + i, Money.ofUnits(1_000_000))).getId());
+            }
+
+            for (int concurrency : CONCURRENCY) {
+                runner.run(mode + " / hot card / " + concurrency + " clients", baseUrl,
+                        n -> "/cards/" + hotCard + "/spend", body, REQUESTS, concurrency);
+                runner.run(mode + " / " + SPREAD_CARDS + " cards / " + concurrency + " clients", baseUrl,
+                        n -> "/cards/" + cards.get(n % SPREAD_CARDS) + "/spend", body, REQUESTS, concurrency);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.nium.virtualcardplatform.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    record Body(Money amount) {
+    }
+
+    @Test
+    void parse_shouldReadAmountsAsMinorUnits() {
+        assertThat(Money.parse("12.34").minorUnits()).isEqualTo(1234);
+        assertThat(Money.parse("12.3").minorUnits()).isEqualTo(1230);
+        assertThat(Money.parse("12").minorUnits()).isEqualTo(1200);
+        assertThat(Money.parse("12")).isEqualTo(Money.ofUnits(12)).isNotEqualTo(Money.ofMinor(12));
+        assertThat(Money.parse("0.05").minorUnits()).isEqualTo(5);
+        assertThat(Money.parse(".5").minorUnits()).isEqualTo(50);
+        assertThat(Money.parse("-7.25").minorUnits()).isEqualTo(-725);
+        assertThat(Money.parse("+1.500").minorUnits()).isEqualTo(150); // Trailing zeros are exact
+        assertThat(Money.parse("1.5E3").minorUnits()).isEqualTo(150_000);
+    }
+
+    @Test
+    void parse_shouldRejectFractionsOfMinorUnitsAndInvalidText() {
+        assertThatThrownBy(() -> Money.parse("10.005")).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.parse("1E-3")).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.parse("99999999999999999999")).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.parse("abc")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> Money.parse("-")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> Money.parse("")).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void arithmetic_shouldBeExactAndFailOnOverflow() {
+        Money balance = Money.parse("100.10");
+
+        assertThat(balance.subtract(Money.parse("0.20"))).isEqualTo(Money.parse("99.90"));
+        assertThat(balance.add(Money.ofUnits(1))).isEqualTo(Money.parse("101.10"));
+        assertThat(balance.isLessThan(Money.parse("100.11"))).isTrue();
+        assertThat(Money.ZERO.subtract(balance).signum()).isNegative();
+        assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE).add(Money.ofMinor(1)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofUnits(Long.MAX_VALUE)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void bigDecimal_shouldConvertBothWays() {
+        assertThat(Money.ofDecimal(new BigDecimal("12.3"))).isEqualTo(Money.ofMinor(1230));
+        assertThat(Money.ofMinor(1230).toBigDecimal()).isEqualTo(new BigDecimal("12.30"));
+        assertThatThrownBy(() -> Money.ofDecimal(new BigDecimal("0.001"))).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void toString_shouldWriteTwoDecimals() {
+        assertThat(Money.ofMinor(1230)).hasToString("12.30");
+        assertThat(Money.ofMinor(5)).hasToString("0.05");
+        assertThat(Money.ofMinor(-5)).hasToString("-0.05");
+        assertThat(Money.ofMinor(Long.MIN_VALUE)).hasToString("-92233720368547758.08");
+    }
+
+    @Test
+    void json_shouldBeANumberWithTwoDecimals() throws Exception {
+        assertThat(objectMapper.writeValueAsString(new Body(Money.parse("30.5")))).isEqualTo("{\"amount\":30.50}");
+        assertThat(objectMapper.readValue("{\"amount\": 30.5}", Body.class).amount()).isEqualTo(Money.ofMinor(3050));
+        assertThat(objectMapper.readValue("{\"amount\": 30}", Body.class).amount()).isEqualTo(Money.ofMinor(3000));
+        assertThat(objectMapper.readValue("{\"amount\": \"30.25\"}", Body.class).amount()).isEqualTo(Money.ofMinor(3025));
+        assertThat(objectMapper.readValue("{\"amount\": null}", Body.class).amount()).isNull();
+        assertThatThrownBy(() -> objectMapper.readValue("{\"amount\": 30.255}", Body.class))
+                .isInstanceOf(InvalidFormatException.class);
+    }
+
+    @Test
+    void converter_shouldStoreDecimalColumns() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertThat(converter.convertToDatabaseColumn(Money.ofMinor(1234))).isEqualTo(new BigDecimal("12.34"));
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("12.34"))).isEqualTo(Money.ofMinor(1234));
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+    }
+}
@@ -0,0 +1,44 @@
+package com.nium.virtualcardplatform.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedUuidGeneratorTest {
+
+    @Test
+    void next_shouldBeVersion7WithTimestampInFirst48Bits() {
+        long now = System.currentTimeMillis();
+
+        UUID id = TimeOrderedUuidGenerator.next(now);
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(id.getMostSignificantBits() >>> 16).isEqualTo(now);
+    }
+
+    @Test
+    void next_shouldSortByCreationTimeAsUnsignedBytes() {
+        // Databases compare UUIDs as unsigned bytes: the timestamp (most significant bits) orders them
+        UUID earlier = TimeOrderedUuidGenerator.next(1_700_000_000_000L);
+        UUID later = TimeOrderedUuidGenerator.next(1_700_000_000_001L);
+
+        assertThat(Long.compareUnsigned(earlier.getMostSignificantBits(), later.getMostSignificantBits())).isNegative();
+        assertThat(earlier.toString()).isLessThan(later.toString());
+    }
+
+    @Test
+    void next_shouldNotRepeatWithinTheSameMillisecond() {
+        long now = System.currentTimeMillis();
+        Set<UUID> ids = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            ids.add(TimeOrderedUuidGenerator.next(now));
+        }
+
+        assertThat(ids).hasSize(100_000);
+    }
+}
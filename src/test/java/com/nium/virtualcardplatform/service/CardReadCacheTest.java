@@ -0,0 +1,117 @@
+package com.nium.virtualcardplatform.service;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardReadCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CardReadCache cache;
+    private UUID cardId;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CardReadCache(true, 100, 60_000, meterRegistry);
+        cardId = UUID.randomUUID();
+        loads = new AtomicInteger();
+    }
+
+    private Card card(long version, long balance) {
+        Card card = new Card("John Doe", Money.ofUnits(balance));
+        card.setId(cardId);
+        card.setVersion(version);
+        return card;
+    }
+
+    private Function<UUID, Optional<Card>> loader(Card card) {
+        return id -> {
+            loads.incrementAndGet();
+            return Optional.of(card);
+        };
+    }
+
+    @Test
+    void get_shouldLoadOnceAndReturnCopies() {
+        // Given
+        Card stored = card(1, 100);
+
+        // When
+        Card first = cache.get(cardId, loader(stored)).orElseThrow();
+        Card second = cache.get(cardId, loader(stored)).orElseThrow();
+
+        // Then
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(second).isNotSameAs(stored).isNotSameAs(first);
+        assertThat(second.getBalance()).isEqualByComparingTo(Money.ofUnits(100));
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "cards").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "cards").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void update_withOlderVersion_shouldKeepNewerCard() {
+        // Given
+        cache.update(card(3, 70));
+
+        // When: a slower writer or reader brings an older state
+        cache.update(card(2, 80));
+
+        // Then
+        assertThat(cache.get(cardId, loader(card(1, 100))).orElseThrow().getBalance())
+                .isEqualByComparingTo(Money.ofUnits(70));
+        assertThat(loads.get()).isZero();
+    }
+
+    @Test
+    void update_withNewerVersion_shouldReplaceCard() {
+        // Given
+        cache.update(card(3, 70));
+
+        // When
+        cache.update(card(4, 60));
+
+        // Then
+        assertThat(cache.get(cardId, loader(card(1, 100))).orElseThrow().getVersion()).isEqualTo(4L);
+    }
+
+    @Test
+    void invalidate_shouldReloadCardOnNextGet() {
+        // Given
+        cache.update(card(3, 70));
+
+        // When
+        cache.invalidate(cardId);
+        Card result = cache.get(cardId, loader(card(3, 75))).orElseThrow();
+
+        // Then
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(result.getBalance()).isEqualByComparingTo(Money.ofUnits(75));
+    }
+
+    @Test
+    void get_whenDisabled_shouldAlwaysLoad() {
+        // Given
+        CardReadCache disabled = new CardReadCache(false, 100, 60_000, meterRegistry);
+        disabled.update(card(3, 70));
+
+        // When
+        disabled.get(cardId, loader(card(1, 100)));
+        disabled.get(cardId, loader(card(1, 100)));
+
+        // Then
+        assertThat(loads.get()).isEqualTo(2);
+    }
+}
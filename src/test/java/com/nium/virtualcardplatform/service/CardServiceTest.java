@@ -1,18 +1,25 @@
 package com.nium.virtualcardplatform.service;
 
 import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.CardHistoryRow;
+import com.nium.virtualcardplatform.model.Money;
 import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.model.TransactionRow;
 import com.nium.virtualcardplatform.repository.CardRepository;
 import com.nium.virtualcardplatform.repository.TransactionRepository;
+import com.nium.virtualcardplatform.service.mutation.OptimisticBalanceMutationStrategy;
+import com.nium.virtualcardplatform.service.mutation.RetryScheduler;
+import com.nium.virtualcardplatform.service.mutation.StripedCardLockManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -22,6 +29,7 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -34,7 +42,9 @@ class CardServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
-    @InjectMocks
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private CardService cardService;
 
     private Card testCard;
@@ -42,18 +52,32 @@ class CardServiceTest {
 
     @BeforeEach
     void setUp() {
+        cardService = newCardService(false);
+
         testCardId = UUID.randomUUID();
-        testCard = new Card("John Doe", BigDecimal.valueOf(100.00));
+        testCard = new Card("John Doe", Money.ofUnits(100));
         testCard.setId(testCardId);
         testCard.setCreatedAt(LocalDateTime.now());
         testCard.setVersion(1L);
     }
 
+    private static final long MAX_UNPAGED_CARDS = 10;
+
+    private CardService newCardService(boolean readCacheEnabled) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StripedCardLockManager lockManager = new StripedCardLockManager(true, 16);
+        RetryScheduler retryScheduler = new RetryScheduler(Runnable::run, meterRegistry, 10, 100, 2000, 1000);
+        OptimisticBalanceMutationStrategy strategy = new OptimisticBalanceMutationStrategy(
+                cardRepository, transactionRepository, transactionManager, lockManager, retryScheduler, 3);
+        return new CardService(cardRepository, transactionRepository, strategy, lockManager, retryScheduler,
+                new CardReadCache(readCacheEnabled, 100, 60_000, meterRegistry), meterRegistry, MAX_UNPAGED_CARDS);
+    }
+
     @Test
     void createCard_withValidData_shouldReturnCreatedCard() {
         // Given
         String cardholderName = "Alice Smith";
-        BigDecimal initialBalance = BigDecimal.valueOf(50.00);
+        Money initialBalance = Money.ofUnits(50);
         Card expectedCard = new Card(cardholderName, initialBalance);
         expectedCard.setId(UUID.randomUUID());
 
@@ -73,7 +97,7 @@ class CardServiceTest {
     void createCard_withNegativeBalance_shouldThrowIllegalArgumentException() {
         // Given
         String cardholderName = "John Doe";
-        BigDecimal negativeBalance = BigDecimal.valueOf(-10.00);
+        Money negativeBalance = Money.ofUnits(-10);
 
         // When & Then
         assertThatThrownBy(() -> cardService.createCard(cardholderName, negativeBalance))
@@ -83,6 +107,40 @@ class CardServiceTest {
         verify(cardRepository, never()).save(any(Card.class));
     }
 
+    @Test
+    void createCards_shouldSaveAllCardsAtOnceAndReturnIdsInOrder() {
+        // Given
+        List<NewCard> cards = List.of(
+                new NewCard("Alice Smith", Money.ofUnits(50)),
+                new NewCard("Bob Jones", Money.ZERO));
+        when(cardRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Card> saved = invocation.getArgument(0);
+            saved.forEach(card -> card.setId(UUID.randomUUID()));
+            return saved;
+        });
+
+        // When
+        List<UUID> ids = cardService.createCards(cards);
+
+        // Then
+        assertThat(ids).hasSize(2).doesNotContainNull();
+        verify(cardRepository, times(1)).saveAll(anyList());
+        verify(cardRepository, never()).save(any(Card.class));
+    }
+
+    @Test
+    void createCards_withInvalidCard_shouldThrowIllegalArgumentExceptionAndCreateNothing() {
+        // Given
+        List<NewCard> cards = List.of(
+                new NewCard("Alice Smith", Money.ofUnits(50)),
+                new NewCard(" ", Money.ofUnits(10)));
+
+        // When & Then
+        assertThatThrownBy(() -> cardService.createCards(cards))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(cardRepository, never()).saveAll(anyList());
+    }
+
     @Test
     void getCardById_withExistingCard_shouldReturnCard() {
         // Given
@@ -111,11 +169,65 @@ class CardServiceTest {
         verify(cardRepository, times(1)).findById(nonExistentId);
     }
 
+    @Test
+    void getCardById_withReadCache_shouldServeCardUpdatedBySpendWithoutQuery() {
+        // Given
+        CardService cachingService = newCardService(true);
+        Card updatedCard = new Card(testCard.getCardholderName(), Money.ofUnits(70));
+        updatedCard.setId(testCardId);
+        updatedCard.setVersion(2L);
+        when(cardRepository.findById(testCardId)).thenReturn(Optional.of(testCard));
+        when(cardRepository.save(any(Card.class))).thenReturn(updatedCard);
+        cachingService.getCardById(testCardId);
+
+        // When
+        cachingService.spend(testCardId, Money.ofUnits(30));
+        Optional<Card> result = cachingService.getCardById(testCardId);
+
+        // Then: one read by getCardById, one by the spend, none after it
+        assertThat(result).isPresent();
+        assertThat(result.get().getBalance()).isEqualByComparingTo(Money.ofUnits(70));
+        assertThat(result.get().getVersion()).isEqualTo(2L);
+        verify(cardRepository, times(2)).findById(testCardId);
+    }
+
+    @Test
+    void getCardById_withReadCache_shouldKeepCardAfterInsufficientBalance() {
+        // Given
+        CardService cachingService = newCardService(true);
+        testCard.setVersion(1L);
+        when(cardRepository.findById(testCardId)).thenReturn(Optional.of(testCard));
+        cachingService.getCardById(testCardId);
+
+        // When
+        assertThatThrownBy(() -> cachingService.spend(testCardId, Money.ofUnits(500)))
+                .isInstanceOf(IllegalStateException.class);
+        Optional<Card> result = cachingService.getCardById(testCardId);
+
+        // Then: one read by getCardById, one by the spend, the second getCardById is served from the cache
+        assertThat(result).isPresent();
+        assertThat(result.get().getVersion()).isEqualTo(1L);
+        verify(cardRepository, times(2)).findById(testCardId);
+    }
+
+    @Test
+    void getCardStateTag_shouldUseVersionLookupWithoutLoadingCard() {
+        // Given
+        when(cardRepository.findVersionById(testCardId)).thenReturn(Optional.of(7L));
+
+        // When
+        Optional<String> tag = cardService.getCardStateTag(testCardId);
+
+        // Then
+        assertThat(tag).contains("7");
+        verify(cardRepository, never()).findById(any(UUID.class));
+    }
+
     @Test
     void getAllCards_shouldReturnAllCards() {
         // Given
-        Card card1 = new Card("Alice", BigDecimal.valueOf(100.00));
-        Card card2 = new Card("Bob", BigDecimal.valueOf(200.00));
+        Card card1 = new Card("Alice", Money.ofUnits(100));
+        Card card2 = new Card("Bob", Money.ofUnits(200));
         List<Card> expectedCards = Arrays.asList(card1, card2);
 
         when(cardRepository.findAll()).thenReturn(expectedCards);
@@ -129,11 +241,45 @@ class CardServiceTest {
         verify(cardRepository, times(1)).findAll();
     }
 
+    @Test
+    void getAllCards_withMoreCardsThanMaxUnpaged_shouldRefuseToLoadThem() {
+        // Given
+        when(cardRepository.count()).thenReturn(MAX_UNPAGED_CARDS + 1);
+
+        // When & Then
+        assertThatThrownBy(() -> cardService.getAllCards())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Too many cards");
+        verify(cardRepository, never()).findAll();
+    }
+
+    @Test
+    void getCards_shouldReturnPagesAfterLastId() {
+        // Given: one row more than the limit is returned, so there is a next page
+        Card card1 = new Card("Alice", Money.ofUnits(100));
+        Card card2 = new Card("Bob", Money.ofUnits(200));
+        Card card3 = new Card("Carol", Money.ofUnits(300));
+        card2.setId(UUID.randomUUID());
+        when(cardRepository.findFirstPage(Limit.of(3))).thenReturn(List.of(card1, card2, card3));
+        when(cardRepository.findPageAfter(card2.getId(), Limit.of(3))).thenReturn(List.of(card3));
+
+        // When
+        CardPage first = cardService.getCards(null, 2);
+        CardPage last = cardService.getCards(first.next(), 2);
+
+        // Then
+        assertThat(first.cards()).containsExactly(card1, card2);
+        assertThat(first.next()).isEqualTo(card2.getId());
+        assertThat(last.cards()).containsExactly(card3);
+        assertThat(last.hasNext()).isFalse();
+        verify(cardRepository, never()).findAll();
+    }
+
     @Test
     void spend_withValidAmount_shouldUpdateBalanceAndCreateTransaction() {
         // Given
-        BigDecimal spendAmount = BigDecimal.valueOf(30.00);
-        BigDecimal expectedBalance = BigDecimal.valueOf(70.00);
+        Money spendAmount = Money.ofUnits(30);
+        Money expectedBalance = Money.ofUnits(70);
         
         Card updatedCard = new Card(testCard.getCardholderName(), expectedBalance);
         updatedCard.setId(testCardId);
@@ -156,7 +302,7 @@ class CardServiceTest {
     @Test
     void spend_withInsufficientBalance_shouldThrowIllegalStateException() {
         // Given
-        BigDecimal spendAmount = BigDecimal.valueOf(150.00); // More than available balance
+        Money spendAmount = Money.ofUnits(150); // More than available balance
 
         when(cardRepository.findById(testCardId)).thenReturn(Optional.of(testCard));
 
@@ -173,7 +319,7 @@ class CardServiceTest {
     @Test
     void spend_withNegativeAmount_shouldThrowIllegalArgumentException() {
         // Given
-        BigDecimal negativeAmount = BigDecimal.valueOf(-10.00);
+        Money negativeAmount = Money.ofUnits(-10);
 
         // When & Then
         assertThatThrownBy(() -> cardService.spend(testCardId, negativeAmount))
@@ -186,7 +332,7 @@ class CardServiceTest {
     @Test
     void spend_withZeroAmount_shouldThrowIllegalArgumentException() {
         // Given
-        BigDecimal zeroAmount = BigDecimal.ZERO;
+        Money zeroAmount = Money.ZERO;
 
         // When & Then
         assertThatThrownBy(() -> cardService.spend(testCardId, zeroAmount))
@@ -200,7 +346,7 @@ class CardServiceTest {
     void spend_withNonExistentCard_shouldThrowIllegalArgumentException() {
         // Given
         UUID nonExistentId = UUID.randomUUID();
-        BigDecimal spendAmount = BigDecimal.valueOf(10.00);
+        Money spendAmount = Money.ofUnits(10);
 
         when(cardRepository.findById(nonExistentId)).thenReturn(Optional.empty());
 
@@ -216,7 +362,7 @@ class CardServiceTest {
     @Test
     void spend_withOptimisticLockingFailure_shouldRetryAndEventuallyFail() {
         // Given
-        BigDecimal spendAmount = BigDecimal.valueOf(30.00);
+        Money spendAmount = Money.ofUnits(30);
 
         when(cardRepository.findById(testCardId)).thenReturn(Optional.of(testCard));
         when(cardRepository.save(any(Card.class))).thenThrow(new OptimisticLockingFailureException("Version conflict"));
@@ -235,8 +381,8 @@ class CardServiceTest {
     @Test
     void topUp_withValidAmount_shouldUpdateBalanceAndCreateTransaction() {
         // Given
-        BigDecimal topUpAmount = BigDecimal.valueOf(50.00);
-        BigDecimal expectedBalance = BigDecimal.valueOf(150.00);
+        Money topUpAmount = Money.ofUnits(50);
+        Money expectedBalance = Money.ofUnits(150);
         
         Card updatedCard = new Card(testCard.getCardholderName(), expectedBalance);
         updatedCard.setId(testCardId);
@@ -259,7 +405,7 @@ class CardServiceTest {
     @Test
     void topUp_withNegativeAmount_shouldThrowIllegalArgumentException() {
         // Given
-        BigDecimal negativeAmount = BigDecimal.valueOf(-10.00);
+        Money negativeAmount = Money.ofUnits(-10);
 
         // When & Then
         assertThatThrownBy(() -> cardService.topUp(testCardId, negativeAmount))
@@ -272,7 +418,7 @@ class CardServiceTest {
     @Test
     void topUp_withZeroAmount_shouldThrowIllegalArgumentException() {
         // Given
-        BigDecimal zeroAmount = BigDecimal.ZERO;
+        Money zeroAmount = Money.ZERO;
 
         // When & Then
         assertThatThrownBy(() -> cardService.topUp(testCardId, zeroAmount))
@@ -286,7 +432,7 @@ class CardServiceTest {
     void topUp_withNonExistentCard_shouldThrowIllegalArgumentException() {
         // Given
         UUID nonExistentId = UUID.randomUUID();
-        BigDecimal topUpAmount = BigDecimal.valueOf(50.00);
+        Money topUpAmount = Money.ofUnits(50);
 
         when(cardRepository.findById(nonExistentId)).thenReturn(Optional.empty());
 
@@ -302,7 +448,7 @@ class CardServiceTest {
     @Test
     void topUp_withOptimisticLockingFailure_shouldRetryAndEventuallyFail() {
         // Given
-        BigDecimal topUpAmount = BigDecimal.valueOf(50.00);
+        Money topUpAmount = Money.ofUnits(50);
 
         when(cardRepository.findById(testCardId)).thenReturn(Optional.of(testCard));
         when(cardRepository.save(any(Card.class))).thenThrow(new OptimisticLockingFailureException("Version conflict"));
@@ -319,33 +465,157 @@ class CardServiceTest {
     }
 
     @Test
-    void getCardTransactions_shouldReturnTransactionsList() {
+    void getCardTransactions_shouldReturnFirstPageWithCursorOfLastTransaction() {
+        // Given: one row more than the limit is returned, so there is a next page
+        TransactionRow transaction1 = row(Transaction.TransactionType.SPEND, Money.ofUnits(10));
+        TransactionRow transaction2 = row(Transaction.TransactionType.TOPUP, Money.ofUnits(20));
+        TransactionRow transaction3 = row(Transaction.TransactionType.SPEND, Money.ofUnits(5));
+
+        when(transactionRepository.findFirstPage(testCardId, Limit.of(3)))
+                .thenReturn(Arrays.asList(transaction1, transaction2, transaction3));
+
+        // When
+        TransactionPage result = cardService.getCardTransactions(testCardId, null, 2);
+
+        // Then
+        assertThat(result.transactions()).containsExactly(transaction1, transaction2);
+        assertThat(result.hasNext()).isTrue();
+        assertThat(result.next()).isEqualTo(new TransactionCursor(transaction2.createdAt(), transaction2.id()));
+    }
+
+    @Test
+    void getCardTransactions_afterCursor_shouldSeekPastItAndEndOnLastPage() {
         // Given
-        Transaction transaction1 = new Transaction(testCardId, Transaction.TransactionType.SPEND, BigDecimal.valueOf(10.00));
-        Transaction transaction2 = new Transaction(testCardId, Transaction.TransactionType.TOPUP, BigDecimal.valueOf(20.00));
-        List<Transaction> expectedTransactions = Arrays.asList(transaction1, transaction2);
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.now(), UUID.randomUUID());
+        TransactionRow transaction = row(Transaction.TransactionType.SPEND, Money.ofUnits(10));
+        when(transactionRepository.findPageAfter(testCardId, cursor.createdAt(), cursor.id(), Limit.of(3)))
+                .thenReturn(List.of(transaction));
+
+        // When
+        TransactionPage result = cardService.getCardTransactions(testCardId, cursor, 2);
+
+        // Then
+        assertThat(result.transactions()).containsExactly(transaction);
+        assertThat(result.hasNext()).isFalse();
+        verify(transactionRepository, never()).findFirstPage(any(), any());
+    }
 
-        when(transactionRepository.findByCardId(testCardId)).thenReturn(expectedTransactions);
+    @Test
+    void getCardTransactions_withNoTransactions_shouldReturnEmptyLastPage() {
+        // Given
+        when(transactionRepository.findFirstPage(testCardId, Limit.of(101))).thenReturn(Arrays.asList());
 
         // When
-        List<Transaction> result = cardService.getCardTransactions(testCardId);
+        TransactionPage result = cardService.getCardTransactions(testCardId, null, 100);
 
         // Then
-        assertThat(result).hasSize(2);
-        assertThat(result).containsExactlyElementsOf(expectedTransactions);
-        verify(transactionRepository, times(1)).findByCardId(testCardId);
+        assertThat(result.transactions()).isEmpty();
+        assertThat(result.hasNext()).isFalse();
+    }
+
+    @Test
+    void getTransactionHistory_shouldTellUnknownCardFromEmptyHistoryInOneQuery() {
+        // Given: no row for an unknown card, one row without transaction for a card without history
+        UUID unknownCardId = UUID.randomUUID();
+        when(transactionRepository.findCardWithFirstPage(unknownCardId, Limit.of(101))).thenReturn(List.of());
+        when(transactionRepository.findCardWithFirstPage(testCardId, Limit.of(101)))
+                .thenReturn(List.of(new CardHistoryRow(4L, null, null, null, null, null, null)));
+
+        // When
+        Optional<TransactionHistory> unknown = cardService.getTransactionHistory(unknownCardId, null, 100);
+        Optional<TransactionHistory> empty = cardService.getTransactionHistory(testCardId, null, 100);
+
+        // Then
+        assertThat(unknown).isEmpty();
+        assertThat(empty).isPresent();
+        assertThat(empty.get().tag()).isEqualTo("4");
+        assertThat(empty.get().page().transactions()).isEmpty();
+        assertThat(empty.get().page().hasNext()).isFalse();
+        verify(cardRepository, never()).findVersionById(any());
+        verify(cardRepository, never()).findById(any());
+    }
+
+    @Test
+    void getTransactionHistory_shouldReturnPageAndTagFromJoinedRows() {
+        // Given
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.now(), UUID.randomUUID());
+        TransactionRow first = row(Transaction.TransactionType.SPEND, Money.ofUnits(10));
+        TransactionRow second = row(Transaction.TransactionType.TOPUP, Money.ofUnits(20));
+        when(transactionRepository.findCardWithPageAfter(testCardId, cursor.createdAt(), cursor.id(), Limit.of(2)))
+                .thenReturn(List.of(joined(7L, first), joined(7L, second)));
+
+        // When
+        TransactionHistory history = cardService.getTransactionHistory(testCardId, cursor, 1).orElseThrow();
+
+        // Then
+        assertThat(history.tag()).isEqualTo("7");
+        assertThat(history.page().transactions()).containsExactly(first);
+        assertThat(history.page().next()).isEqualTo(TransactionCursor.of(first));
+    }
+
+    private static CardHistoryRow joined(long cardVersion, TransactionRow transaction) {
+        return new CardHistoryRow(cardVersion, transaction.id(), transaction.cardId(), transaction.type(),
+                transaction.amount(), transaction.createdAt(), transaction.sequenceNumber());
+    }
+
+    private TransactionRow row(Transaction.TransactionType type, Money amount) {
+        return new TransactionRow(UUID.randomUUID(), testCardId, type, amount, LocalDateTime.now(), null);
     }
 
     @Test
-    void getCardTransactions_withNoTransactions_shouldReturnEmptyList() {
+    void transactionCursor_shouldRoundTripAndRejectOtherValues() {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2025, 1, 2, 3, 4, 5, 678_000), UUID.randomUUID());
+
+        assertThat(TransactionCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThatThrownBy(() -> TransactionCursor.decode("not-a-cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TransactionCursor.decode("%%%"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void applyBatch_shouldApplyEachCardGroupInOneTransactionAndReportEachItem() {
         // Given
-        when(transactionRepository.findByCardId(testCardId)).thenReturn(Arrays.asList());
+        when(cardRepository.findById(testCardId)).thenReturn(Optional.of(testCard));
+        when(cardRepository.saveAndFlush(any(Card.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        List<BatchTransaction> batch = List.of(
+                new BatchTransaction(testCardId, Transaction.TransactionType.SPEND, Money.ofUnits(60)),
+                new BatchTransaction(testCardId, Transaction.TransactionType.SPEND, Money.ofUnits(50)),
+                new BatchTransaction(null, Transaction.TransactionType.TOPUP, Money.ofUnits(10)),
+                new BatchTransaction(testCardId, Transaction.TransactionType.TOPUP, Money.ofUnits(20)));
+
+        // When
+        List<BatchTransactionResult> results = cardService.applyBatch(batch).join();
+
+        // Then: one read, one card write and one batch of inserts for the three mutations of the card
+        assertThat(results).extracting(BatchTransactionResult::status).containsExactly(
+                BatchTransactionResult.Status.OK, BatchTransactionResult.Status.INSUFFICIENT_BALANCE,
+                BatchTransactionResult.Status.INVALID, BatchTransactionResult.Status.OK);
+        assertThat(results.get(0).card().getBalance()).isEqualByComparingTo(Money.ofUnits(40));
+        assertThat(results.get(3).card().getBalance()).isEqualByComparingTo(Money.ofUnits(60));
+        assertThat(testCard.getBalance()).isEqualByComparingTo(Money.ofUnits(60));
+        verify(cardRepository, times(1)).findById(testCardId);
+        verify(cardRepository, times(1)).saveAndFlush(testCard);
+        verify(transactionRepository, times(1)).saveAll(argThat(transactions -> transactions.spliterator().getExactSizeIfKnown() == 2));
+    }
+
+    @Test
+    void applyBatch_whenGroupConflicts_shouldRetryWholeGroup() {
+        // Given: the first write of the group fails the version check
+        when(cardRepository.findById(testCardId)).thenReturn(Optional.of(testCard));
+        when(cardRepository.saveAndFlush(any(Card.class)))
+                .thenThrow(new OptimisticLockingFailureException("Version mismatch"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        List<BatchTransaction> batch = List.of(
+                new BatchTransaction(testCardId, Transaction.TransactionType.TOPUP, Money.ofUnits(5)),
+                new BatchTransaction(testCardId, Transaction.TransactionType.TOPUP, Money.ofUnits(5)));
 
         // When
-        List<Transaction> result = cardService.getCardTransactions(testCardId);
+        List<BatchTransactionResult> results = cardService.applyBatch(batch).join();
 
         // Then
-        assertThat(result).isEmpty();
-        verify(transactionRepository, times(1)).findByCardId(testCardId);
+        assertThat(results).extracting(BatchTransactionResult::status)
+                .containsOnly(BatchTransactionResult.Status.OK);
+        verify(cardRepository, times(2)).findById(testCardId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,223 @@
+package com.nium.virtualcardplatform.service;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.IdempotencyRecord;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final Transaction.TransactionType SPEND = Transaction.TransactionType.SPEND;
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyService idempotencyService;
+    private UUID cardId;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        idempotencyService = new IdempotencyService(repository, Jackson2ObjectMapperBuilder.json().build(),
+                Runnable::run, meterRegistry, 1_000_000, 600, 24, 0);
+        cardId = UUID.randomUUID();
+        executions = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyService.destroy();
+    }
+
+    // A spend answering with the given status, counting its executions
+    private Supplier<CompletableFuture<ResponseEntity<Card>>> request(HttpStatus status) {
+        return () -> {
+            executions.incrementAndGet();
+            Card card = new Card("John Doe", Money.ofUnits(70));
+            card.setId(cardId);
+            card.setVersion(2L);
+            return CompletableFuture.completedFuture(status.is2xxSuccessful()
+                    ? new ResponseEntity<>(card, status)
+                    : new ResponseEntity<>(status));
+        };
+    }
+
+    private void givenClaimSucceeds() {
+        when(repository.saveAndFlush(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            record.setCreatedAt(LocalDateTime.now());
+            record.setVersion(0L);
+            return record;
+        });
+    }
+
+    @Test
+    void execute_withSameKey_shouldRunOnceAndReplayFromCache() {
+        // Given
+        givenClaimSucceeds();
+
+        // When
+        ResponseEntity<Card> first = idempotencyService.execute("key-1", SPEND, cardId, Money.parse("30.00"),
+                request(HttpStatus.OK)).join();
+        ResponseEntity<Card> replay = idempotencyService.execute("key-1", SPEND, cardId, Money.parse("30"),
+                request(HttpStatus.OK)).join();
+
+        // Then: the retry is answered from memory, without a query
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(replay.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(replay.getBody().getBalance()).isEqualByComparingTo(first.getBody().getBalance());
+        assertThat(replay.getBody().getVersion()).isEqualTo(2L);
+        verify(repository, times(1)).findById("key-1");
+        verify(repository).save(argThat(record -> record.getStatus() == 200 && record.getBody() != null));
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "idempotency").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("card.idempotency.cache.weight").gauge().value()).isPositive();
+    }
+
+    @Test
+    void execute_withKeyStoredInTable_shouldReplayWithoutRunning() {
+        // Given: the response was stored by an earlier request, e.g. on another node
+        IdempotencyRecord record = new IdempotencyRecord("key-2", "SPEND:" + cardId + ":30");
+        record.setCreatedAt(LocalDateTime.now());
+        record.setStatus(400);
+        when(repository.findById("key-2")).thenReturn(Optional.of(record));
+
+        // When
+        ResponseEntity<Card> replay = idempotencyService.execute("key-2", SPEND, cardId, Money.ofUnits(30),
+                request(HttpStatus.OK)).join();
+
+        // Then
+        assertThat(executions.get()).isZero();
+        assertThat(replay.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void execute_withKeyUsedForAnotherRequest_shouldReturnUnprocessableEntity() {
+        // Given
+        givenClaimSucceeds();
+        idempotencyService.execute("key-3", SPEND, cardId, Money.ofUnits(30), request(HttpStatus.OK)).join();
+
+        // When
+        ResponseEntity<Card> response = idempotencyService.execute("key-3", SPEND, cardId, Money.ofUnits(40),
+                request(HttpStatus.OK)).join();
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_whenResponseIsNotFinal_shouldReleaseTheKey() {
+        // Given: the first attempt ends with 409 (retries exhausted)
+        givenClaimSucceeds();
+        ResponseEntity<Card> conflict = idempotencyService.execute("key-4", SPEND, cardId, Money.ofUnits(10),
+                request(HttpStatus.CONFLICT)).join();
+
+        // When
+        ResponseEntity<Card> retry = idempotencyService.execute("key-4", SPEND, cardId, Money.ofUnits(10),
+                request(HttpStatus.OK)).join();
+
+        // Then: the retry runs again
+        assertThat(conflict.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(executions.get()).isEqualTo(2);
+        verify(repository, times(1)).delete(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void execute_whenKeyClaimedConcurrently_shouldReturnConflictWithoutRunning() {
+        // Given: another node inserted the key between the lookup and the claim, and is still running
+        IdempotencyRecord pending = new IdempotencyRecord("key-5", "SPEND:" + cardId + ":10");
+        pending.setCreatedAt(LocalDateTime.now());
+        when(repository.findById("key-5")).thenReturn(Optional.empty()).thenReturn(Optional.of(pending));
+        when(repository.saveAndFlush(any(IdempotencyRecord.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // When
+        ResponseEntity<Card> response = idempotencyService.execute("key-5", SPEND, cardId, Money.ofUnits(10),
+                request(HttpStatus.OK)).join();
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(executions.get()).isZero();
+    }
+
+    @Test
+    void execute_whenOldClaimHasNoResponse_shouldReturnConflictWithoutRunning() {
+        // Given: a node claimed the key two minutes ago and stopped, before or after applying the spend
+        IdempotencyRecord open = new IdempotencyRecord("key-6", "SPEND:" + cardId + ":10");
+        open.setCreatedAt(LocalDateTime.now().minusMinutes(2));
+        open.setVersion(0L);
+        when(repository.findById("key-6")).thenReturn(Optional.of(open));
+
+        // When
+        ResponseEntity<Card> response = idempotencyService.execute("key-6", SPEND, cardId, Money.ofUnits(10),
+                request(HttpStatus.OK)).join();
+
+        // Then: the outcome is unknown, so the spend is not run again and the claim is left as it is
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(executions.get()).isZero();
+        verify(repository, never()).saveAndFlush(any(IdempotencyRecord.class));
+        verify(repository, never()).delete(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void execute_withSameKeyFromWithinTheRequest_shouldWaitForTheFirstResponse() {
+        // Given: the request itself retries the key, which would fail if it ran inside the cache computation
+        givenClaimSucceeds();
+        AtomicReference<CompletableFuture<ResponseEntity<Card>>> nested = new AtomicReference<>();
+        Supplier<CompletableFuture<ResponseEntity<Card>>> first = request(HttpStatus.OK);
+        Supplier<CompletableFuture<ResponseEntity<Card>>> retrying = () -> {
+            nested.set(idempotencyService.execute("key-8", SPEND, cardId, Money.ofUnits(10), request(HttpStatus.OK)));
+            assertThat(nested.get()).isNotDone();
+            return first.get();
+        };
+
+        // When
+        ResponseEntity<Card> response = idempotencyService.execute("key-8", SPEND, cardId, Money.ofUnits(10),
+                retrying).join();
+
+        // Then: the retry got the response of the first request, which ran once
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(nested.get().join().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_withoutKey_shouldRunWithoutStoringAnything() {
+        // When
+        idempotencyService.execute(null, SPEND, cardId, Money.ofUnits(10), request(HttpStatus.OK)).join();
+        idempotencyService.execute(null, SPEND, cardId, Money.ofUnits(10), request(HttpStatus.OK)).join();
+
+        // Then
+        assertThat(executions.get()).isEqualTo(2);
+        verifyNoInteractions(repository);
+    }
+}
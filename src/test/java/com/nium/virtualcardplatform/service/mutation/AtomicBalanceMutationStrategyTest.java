@@ -0,0 +1,178 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AtomicBalanceMutationStrategyTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private Cache secondLevelCache;
+
+    private AtomicBalanceMutationStrategy strategy;
+
+    private UUID cardId;
+    private Card updatedCard;
+
+    @BeforeEach
+    void setUp() {
+        when(entityManagerFactory.getCache()).thenReturn(secondLevelCache);
+        strategy = new AtomicBalanceMutationStrategy(cardRepository, transactionRepository, entityManagerFactory);
+        // Stands in for the transaction opened by @Transactional
+        TransactionSynchronizationManager.initSynchronization();
+        cardId = UUID.randomUUID();
+        updatedCard = new Card("John Doe", Money.ofUnits(70));
+        updatedCard.setId(cardId);
+        updatedCard.setVersion(2L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void spend_whenRowUpdated_shouldRecordTransactionWithoutReadingTheCard() {
+        // Given
+        Money amount = Money.ofUnits(30);
+        when(cardRepository.debitReturningCard(cardId, new BigDecimal("30.00"))).thenReturn(Optional.of(updatedCard));
+
+        // When
+        Card result = strategy.spend(cardId, amount).join();
+
+        // Then: the card returned by the UPDATE is the result, nothing else is read
+        assertThat(result.getBalance()).isEqualByComparingTo(Money.ofUnits(70));
+        assertThat(result.getVersion()).isEqualTo(2L);
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(cardRepository, never()).existsById(any(UUID.class));
+        verify(cardRepository, never()).reloadById(any(UUID.class));
+        verify(cardRepository, never()).save(any(Card.class));
+    }
+
+    @Test
+    void topUp_whenRowUpdated_shouldEvictTheCardOnceTheTransactionCompletes() {
+        // Given
+        Money amount = Money.ofUnits(50);
+        when(cardRepository.creditReturningCard(cardId, new BigDecimal("50.00"))).thenReturn(Optional.of(updatedCard));
+
+        // When
+        Card result = strategy.topUp(cardId, amount).join();
+
+        // Then: the card is only evicted from the second-level cache after the commit
+        assertThat(result).isSameAs(updatedCard);
+        verify(cardRepository, never()).reloadById(any(UUID.class));
+        verifyNoInteractions(secondLevelCache);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        verify(secondLevelCache).evict(Card.class, cardId);
+    }
+
+    @Test
+    void spend_whenNoRowUpdatedAndCardExists_shouldThrowIllegalStateException() {
+        // Given
+        Money amount = Money.ofUnits(150);
+        when(cardRepository.debitReturningCard(cardId, new BigDecimal("150.00"))).thenReturn(Optional.empty());
+        when(cardRepository.existsById(cardId)).thenReturn(true);
+
+        // When & Then
+        assertThatThrownBy(() -> strategy.spend(cardId, amount))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Insufficient balance for card ID: " + cardId);
+
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void spend_whenNoRowUpdatedAndCardMissing_shouldThrowIllegalArgumentException() {
+        // Given
+        Money amount = Money.ofUnits(10);
+        when(cardRepository.debitReturningCard(cardId, new BigDecimal("10.00"))).thenReturn(Optional.empty());
+        when(cardRepository.existsById(cardId)).thenReturn(false);
+
+        // When & Then
+        assertThatThrownBy(() -> strategy.spend(cardId, amount))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Card not found with ID: " + cardId);
+
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void topUp_whenNoRowUpdated_shouldThrowIllegalArgumentException() {
+        // Given
+        Money amount = Money.ofUnits(50);
+        when(cardRepository.creditReturningCard(cardId, new BigDecimal("50.00"))).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> strategy.topUp(cardId, amount))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Card not found with ID: " + cardId);
+
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void applyInOrder_shouldReturnTheBalanceAndVersionAfterEachMutation() {
+        // Given: card at version 5 with 100; the spend of 30 is applied, the spend of 200 rejected, the top-up applied
+        List<BalanceMutation> mutations = List.of(
+                new BalanceMutation(Transaction.TransactionType.SPEND, Money.ofUnits(30)),
+                new BalanceMutation(Transaction.TransactionType.SPEND, Money.ofUnits(200)),
+                new BalanceMutation(Transaction.TransactionType.TOPUP, Money.ofUnits(10)));
+        when(cardRepository.debitIfSufficientBalance(cardId, Money.ofUnits(30))).thenReturn(1);
+        when(cardRepository.debitIfSufficientBalance(cardId, Money.ofUnits(200))).thenReturn(0);
+        when(cardRepository.credit(cardId, Money.ofUnits(10))).thenReturn(1);
+        Card finalCard = new Card("John Doe", Money.ofUnits(80));
+        finalCard.setId(cardId);
+        finalCard.setVersion(7L);
+        when(cardRepository.reloadById(cardId)).thenReturn(Optional.of(finalCard));
+
+        // When
+        List<CompletableFuture<Card>> results = strategy.applyInOrder(cardId, mutations);
+
+        // Then: each applied mutation reports its own version, read once at the end
+        Card afterSpend = results.get(0).join();
+        assertThat(afterSpend.getBalance()).isEqualByComparingTo(Money.ofUnits(70));
+        assertThat(afterSpend.getVersion()).isEqualTo(6L);
+        assertThatThrownBy(() -> results.get(1).join()).hasCauseInstanceOf(IllegalStateException.class);
+        Card afterTopUp = results.get(2).join();
+        assertThat(afterTopUp.getBalance()).isEqualByComparingTo(Money.ofUnits(80));
+        assertThat(afterTopUp.getVersion()).isEqualTo(7L);
+        verify(cardRepository, never()).existsById(any(UUID.class));
+        verify(cardRepository, times(1)).reloadById(cardId);
+        verify(transactionRepository, times(1)).saveAll(anyList());
+    }
+}
@@ -0,0 +1,309 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import com.nium.virtualcardplatform.service.CardReadCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EventSourcedBalanceMutationStrategyTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RetryScheduler retryScheduler;
+    private UUID cardId;
+    private Card snapshot;
+
+    @BeforeEach
+    void setUp() {
+        retryScheduler = new RetryScheduler(Runnable::run, new SimpleMeterRegistry(), 1, 5, 2000, 100);
+        cardId = UUID.randomUUID();
+        // Snapshot: balance 100.00 as of ledger position 5
+        snapshot = new Card("John Doe", Money.ofUnits(100));
+        snapshot.setId(cardId);
+        snapshot.setVersion(1L);
+        snapshot.setSnapshotSequence(5L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        retryScheduler.destroy();
+    }
+
+    private EventSourcedBalanceMutationStrategy strategy(long snapshotEvery) {
+        return new EventSourcedBalanceMutationStrategy(cardRepository, transactionRepository, transactionManager,
+                new StripedCardLockManager(true, 16), retryScheduler, 3, snapshotEvery, 1000);
+    }
+
+    private static TransactionRepository.LedgerDelta delta(Money delta, Long lastSequence) {
+        return new TransactionRepository.LedgerDelta() {
+            @Override
+            public BigDecimal getDelta() {
+                return delta.toBigDecimal();
+            }
+
+            @Override
+            public Long getLastSequence() {
+                return lastSequence;
+            }
+        };
+    }
+
+    private static TransactionRepository.CardLedgerDelta delta(UUID cardId, long snapshotSequence, Money delta,
+                                                               Long lastSequence) {
+        return new TransactionRepository.CardLedgerDelta() {
+            @Override
+            public UUID getCardId() {
+                return cardId;
+            }
+
+            @Override
+            public Long getSnapshotSequence() {
+                return snapshotSequence;
+            }
+
+            @Override
+            public BigDecimal getDelta() {
+                return delta.toBigDecimal();
+            }
+
+            @Override
+            public Long getLastSequence() {
+                return lastSequence;
+            }
+        };
+    }
+
+    private List<Transaction> appended(int times) {
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository, times(times)).saveAndFlush(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    void spend_onColdCard_shouldReplayTransactionsAfterSnapshot() {
+        // Given: 3 transactions (net -30.00) recorded after the snapshot
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(snapshot));
+        when(transactionRepository.replayAfter(cardId, 5L)).thenReturn(delta(Money.ofUnits(-30), 8L));
+
+        // When
+        Card result = strategy(100).spend(cardId, Money.ofUnits(20)).join();
+
+        // Then: appended at position 9, card row untouched
+        assertThat(result.getBalance()).isEqualByComparingTo(Money.ofUnits(50));
+        Transaction transaction = appended(1).get(0);
+        assertThat(transaction.getSequenceNumber()).isEqualTo(9L);
+        assertThat(transaction.getType()).isEqualTo(Transaction.TransactionType.SPEND);
+        verify(cardRepository, never()).save(any(Card.class));
+        verify(cardRepository, never()).snapshot(any(UUID.class), any(Money.class), anyLong());
+    }
+
+    @Test
+    void mutations_withProjectionInMemory_shouldNotReplayAgain() {
+        // Given
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(snapshot));
+        when(transactionRepository.replayAfter(cardId, 5L)).thenReturn(delta(Money.ZERO, null));
+        EventSourcedBalanceMutationStrategy strategy = strategy(100);
+
+        // When
+        strategy.spend(cardId, Money.ofUnits(40)).join();
+        Card result = strategy.topUp(cardId, Money.ofUnits(15)).join();
+
+        // Then: one replay, consecutive positions after the snapshot
+        assertThat(result.getBalance()).isEqualByComparingTo(Money.ofUnits(75));
+        assertThat(appended(2)).extracting(Transaction::getSequenceNumber).containsExactly(6L, 7L);
+        verify(cardRepository, times(1)).findById(cardId);
+        verify(transactionRepository, times(1)).replayAfter(cardId, 5L);
+    }
+
+    @Test
+    void mutations_whenSnapshotIntervalReached_shouldStoreSnapshot() {
+        // Given: a snapshot every 2 transactions
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(snapshot));
+        when(transactionRepository.replayAfter(cardId, 5L)).thenReturn(delta(Money.ZERO, null));
+        EventSourcedBalanceMutationStrategy strategy = strategy(2);
+
+        // When
+        strategy.topUp(cardId, Money.ofUnits(10)).join();
+        strategy.topUp(cardId, Money.ofUnits(10)).join();
+        strategy.topUp(cardId, Money.ofUnits(10)).join();
+
+        // Then: only the second transaction (position 7) completes an interval
+        verify(cardRepository, times(1)).snapshot(cardId, Money.ofUnits(120), 7L);
+    }
+
+    @Test
+    void spend_whenPositionTakenByAnotherWriter_shouldRebuildProjectionAndRetry() {
+        // Given: another node appended position 6 (-10.00) between our replay and our insert
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(snapshot));
+        when(transactionRepository.replayAfter(cardId, 5L))
+                .thenReturn(delta(Money.ZERO, null))
+                .thenReturn(delta(Money.ofUnits(-10), 6L));
+        when(transactionRepository.saveAndFlush(any(Transaction.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_transactions_card_sequence"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Card result = strategy(100).spend(cardId, Money.ofUnits(20)).join();
+
+        // Then: the retry appends after the other writer's transaction
+        assertThat(result.getBalance()).isEqualByComparingTo(Money.ofUnits(70));
+        assertThat(appended(2)).extracting(Transaction::getSequenceNumber).containsExactly(6L, 7L);
+    }
+
+    @Test
+    void spend_withInsufficientProjectedBalance_shouldReloadBeforeRejecting() {
+        // Given
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(snapshot));
+        when(transactionRepository.replayAfter(cardId, 5L))
+                .thenReturn(delta(Money.ZERO, null))
+                .thenReturn(delta(Money.ofUnits(-90), 6L));
+        EventSourcedBalanceMutationStrategy strategy = strategy(100);
+        strategy.spend(cardId, Money.ofUnits(90)).join();
+
+        // When & Then
+        assertThatThrownBy(() -> strategy.spend(cardId, Money.ofUnits(50)).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        verify(cardRepository, times(2)).findById(cardId);
+        appended(1);
+    }
+
+    @Test
+    void spend_onNonExistentCard_shouldFailWithIllegalArgumentException() {
+        // Given
+        when(cardRepository.findById(cardId)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> strategy(100).spend(cardId, Money.ofUnits(10)).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        verify(transactionRepository, never()).saveAndFlush(any(Transaction.class));
+    }
+
+    @Test
+    void currentState_shouldReturnSnapshotPlusDeltaAndKeepItInMemory() {
+        // Given
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(snapshot));
+        when(transactionRepository.replayAfter(cardId, 5L)).thenReturn(delta(Money.ofUnits(25), 7L));
+        EventSourcedBalanceMutationStrategy strategy = strategy(100);
+
+        // When
+        Card first = strategy.currentState(snapshot);
+        Card second = strategy.currentState(snapshot);
+
+        // Then: the loaded card is not modified, the second read needs no query
+        assertThat(first.getBalance()).isEqualByComparingTo(Money.ofUnits(125));
+        assertThat(second.getBalance()).isEqualByComparingTo(Money.ofUnits(125));
+        assertThat(snapshot.getBalance()).isEqualByComparingTo(Money.ofUnits(100));
+        verify(transactionRepository, times(1)).replayAfter(cardId, 5L);
+    }
+
+    @Test
+    void currentState_ofCardReturnedByMutationAfterProjectionDropped_shouldRebuildFromDatabaseRow() {
+        // Given: the read cache holds the card returned by a spend (balance 60.00, row snapshot still at 5)
+        CardReadCache readCache = new CardReadCache(true, 100, 60_000, new SimpleMeterRegistry());
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(snapshot));
+        when(transactionRepository.replayAfter(cardId, 5L))
+                .thenReturn(delta(Money.ZERO, null))
+                .thenReturn(delta(Money.ofUnits(-40), 6L));
+        when(transactionRepository.saveAndFlush(any(Transaction.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataIntegrityViolationException("uk_transactions_card_sequence"));
+        EventSourcedBalanceMutationStrategy strategy = strategy(100);
+        readCache.update(strategy.spend(cardId, Money.ofUnits(40)).join());
+
+        // And: the projection is dropped after conflicts on the next spend
+        assertThatThrownBy(() -> strategy.spend(cardId, Money.ofUnits(10)).join())
+                .isInstanceOf(CompletionException.class);
+
+        // When
+        Card cached = readCache.get(cardId, id -> Optional.empty()).orElseThrow();
+        Card state = strategy.currentState(cached);
+
+        // Then: the spend is counted once, in the projection as well
+        assertThat(state.getBalance()).isEqualByComparingTo(Money.ofUnits(60));
+        assertThat(strategy.currentState(cached).getBalance()).isEqualByComparingTo(Money.ofUnits(60));
+    }
+
+    @Test
+    void currentStates_shouldReadCardsWithoutProjectionInOneQuery() {
+        // Given: the first card has a projection, the second not, the third was snapshotted again since it was read
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(snapshot));
+        when(transactionRepository.replayAfter(cardId, 5L)).thenReturn(delta(Money.ofUnits(25), 7L));
+        EventSourcedBalanceMutationStrategy strategy = strategy(100);
+        strategy.currentState(snapshot);
+        Card cold = new Card("Jane Doe", Money.ofUnits(50));
+        cold.setId(UUID.randomUUID());
+        cold.setSnapshotSequence(0L);
+        Card moved = new Card("Jim Doe", Money.ofUnits(10));
+        moved.setId(UUID.randomUUID());
+        moved.setSnapshotSequence(3L);
+        when(transactionRepository.replayAfterSnapshots(List.of(cold.getId(), moved.getId()))).thenReturn(List.of(
+                delta(cold.getId(), 0L, Money.ofUnits(-20), 2L), delta(moved.getId(), 4L, Money.ZERO, null)));
+        when(transactionRepository.replayAfter(moved.getId(), 3L)).thenReturn(delta(Money.ofUnits(5), 4L));
+
+        // When
+        List<Card> states = strategy.currentStates(List.of(snapshot, cold, moved));
+
+        // Then: only the card whose snapshot moved is replayed on its own
+        assertThat(states).extracting(Card::getBalance)
+                .containsExactly(Money.ofUnits(125), Money.ofUnits(30), Money.ofUnits(15));
+        verify(transactionRepository, times(1)).replayAfterSnapshots(any());
+        verify(transactionRepository, never()).replayAfter(eq(cold.getId()), anyLong());
+
+        // And: the cards read by the list get no projection
+        when(transactionRepository.replayAfterSnapshots(List.of(cold.getId())))
+                .thenReturn(List.of(delta(cold.getId(), 0L, Money.ofUnits(-20), 2L)));
+        strategy.currentStates(List.of(cold));
+        verify(transactionRepository, times(1)).replayAfterSnapshots(List.of(cold.getId()));
+    }
+
+    @Test
+    void stateTagger_onColdCard_shouldReadLastSequenceWithoutReplay() {
+        // Given
+        when(transactionRepository.findLastSequence(cardId)).thenReturn(9L);
+        EventSourcedBalanceMutationStrategy strategy = strategy(100);
+
+        // When
+        String first = strategy.stateTag(cardId, 2L);
+        String second = strategy.stateTag(cardId, 2L);
+
+        // Then: the card is neither loaded nor replayed, nor kept in memory
+        assertThat(first).isEqualTo("2.9").isEqualTo(second);
+        verify(transactionRepository, times(2)).findLastSequence(cardId);
+        verify(cardRepository, never()).findById(any());
+        verify(transactionRepository, never()).replayAfter(any(), anyLong());
+    }
+}
@@ -0,0 +1,119 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitBalanceMutationStrategyTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private GroupCommitBalanceMutationStrategy strategy;
+    private RetryScheduler retryScheduler;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        retryScheduler = new RetryScheduler(Runnable::run, meterRegistry, 5, 50, 2000, 100);
+        // Long window so that all commands of a test land in the same batch
+        strategy = new GroupCommitBalanceMutationStrategy(cardRepository, transactionRepository, transactionManager,
+                retryScheduler, meterRegistry, new MutationThreadFactory(false), 200_000, 64, 2, 3);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        strategy.destroy();
+        retryScheduler.destroy();
+    }
+
+    @Test
+    void commandsOfTheSameCard_shouldBeCommittedInOneTransactionInArrivalOrder() {
+        // Given: a card with 100.00
+        UUID cardId = UUID.randomUUID();
+        Card card = new Card("John Doe", Money.ofUnits(100));
+        card.setId(cardId);
+        card.setSnapshotSequence(7L);
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.saveAndFlush(any(Card.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When: spend 30, spend 80 (not covered), top-up 50, spend 80 (covered after the top-up)
+        CompletableFuture<Card> first = strategy.spend(cardId, Money.ofUnits(30));
+        CompletableFuture<Card> rejected = strategy.spend(cardId, Money.ofUnits(80));
+        CompletableFuture<Card> topUp = strategy.topUp(cardId, Money.ofUnits(50));
+        CompletableFuture<Card> last = strategy.spend(cardId, Money.ofUnits(80));
+
+        // Then: each caller sees the balance right after its own command
+        assertThat(first.join().getBalance()).isEqualByComparingTo(Money.ofUnits(70));
+        assertThatThrownBy(rejected::join)
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Insufficient balance for card ID: " + cardId);
+        assertThat(topUp.join().getBalance()).isEqualByComparingTo(Money.ofUnits(120));
+        assertThat(last.join().getBalance()).isEqualByComparingTo(Money.ofUnits(40));
+        assertThat(last.join().getSnapshotSequence()).isEqualTo(7L);
+
+        // And: one card load, one card update and one batch of three transactions
+        verify(cardRepository, times(1)).findById(cardId);
+        verify(cardRepository, times(1)).saveAndFlush(any(Card.class));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> transactions = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository, times(1)).saveAll(transactions.capture());
+        assertThat(transactions.getValue()).extracting(Transaction::getType).containsExactly(
+                Transaction.TransactionType.SPEND, Transaction.TransactionType.TOPUP, Transaction.TransactionType.SPEND);
+        assertThat(meterRegistry.get("card.balance.group-commit.batch-size").summary().max()).isEqualTo(4.0);
+    }
+
+    @Test
+    void commandsOnNonExistentCard_shouldAllFailWithIllegalArgumentException() {
+        // Given
+        UUID cardId = UUID.randomUUID();
+        when(cardRepository.findById(cardId)).thenReturn(Optional.empty());
+
+        // When
+        CompletableFuture<Card> spend = strategy.spend(cardId, Money.ofUnits(10));
+        CompletableFuture<Card> topUp = strategy.topUp(cardId, Money.ofUnits(10));
+
+        // Then
+        for (CompletableFuture<Card> result : List.of(spend, topUp)) {
+            assertThatThrownBy(result::join)
+                    .isInstanceOf(CompletionException.class)
+                    .cause()
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Card not found with ID: " + cardId);
+        }
+        verify(cardRepository, never()).saveAndFlush(any(Card.class));
+        verify(transactionRepository, never()).saveAll(any());
+    }
+}
@@ -0,0 +1,326 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JournalBalanceMutationStrategyTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    private JournalBalanceMutationStrategy strategy;
+    private UUID cardId;
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        cardId = UUID.randomUUID();
+        // Database row: balance 100.00 as of journal sequence 5
+        card = new Card("John Doe", Money.ofUnits(100));
+        card.setId(cardId);
+        card.setVersion(1L);
+        card.setSnapshotSequence(5L);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (strategy != null) {
+            strategy.destroy();
+        }
+    }
+
+    private JournalBalanceMutationStrategy start() throws Exception {
+        return start(1000);
+    }
+
+    private JournalBalanceMutationStrategy start(long maxBacklog) throws Exception {
+        return start(maxBacklog, 64);
+    }
+
+    private JournalBalanceMutationStrategy start(long maxBacklog, int fsyncBatchSize) throws Exception {
+        strategy = new JournalBalanceMutationStrategy(cardRepository, transactionRepository, transactionManager,
+                new SimpleMeterRegistry(), new MutationThreadFactory(false), directory, 1024, 500, fsyncBatchSize, 100,
+                maxBacklog, 1000);
+        strategy.afterPropertiesSet();
+        return strategy;
+    }
+
+    private static TransactionRepository.LedgerDelta noDelta() {
+        return new TransactionRepository.LedgerDelta() {
+            @Override
+            public BigDecimal getDelta() {
+                return BigDecimal.ZERO;
+            }
+
+            @Override
+            public Long getLastSequence() {
+                return null;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Transaction> materialized() {
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository, atLeastOnce()).saveAll(captor.capture());
+        List<Transaction> transactions = new ArrayList<>();
+        captor.getAllValues().forEach(transactions::addAll);
+        return transactions;
+    }
+
+    @Test
+    void mutations_shouldBeAcknowledgedFromJournalAndMaterializedAsynchronously() throws Exception {
+        // Given
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(transactionRepository.replayAfter(cardId, 5L)).thenReturn(noDelta());
+        start();
+
+        // When
+        Card afterSpend = strategy.spend(cardId, Money.ofUnits(30)).join();
+        Card afterTopUp = strategy.topUp(cardId, Money.ofUnits(5)).join();
+
+        // Then: balances come from memory, the database receives both records after the sequence of its row
+        assertThat(afterSpend.getBalance()).isEqualByComparingTo(Money.ofUnits(70));
+        assertThat(afterTopUp.getBalance()).isEqualByComparingTo(Money.ofUnits(75));
+        verify(cardRepository, timeout(2000)).snapshot(cardId, Money.ofUnits(75), 7L);
+        assertThat(materialized()).extracting(Transaction::getSequenceNumber).containsExactly(6L, 7L);
+        verify(cardRepository, times(1)).findById(cardId);
+    }
+
+    @Test
+    void spend_withInsufficientBalance_shouldFailWithoutJournaling() throws Exception {
+        // Given
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(transactionRepository.replayAfter(cardId, 5L)).thenReturn(noDelta());
+        start();
+
+        // When & Then
+        assertThatThrownBy(() -> strategy.spend(cardId, Money.ofUnits(150)).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+
+        // And: the next mutation takes the sequence number that was not used
+        strategy.topUp(cardId, Money.ofUnits(10)).join();
+        verify(cardRepository, timeout(2000)).snapshot(cardId, Money.ofUnits(110), 6L);
+    }
+
+    @Test
+    void spend_onNonExistentCard_shouldFailWithIllegalArgumentException() throws Exception {
+        // Given
+        when(cardRepository.findById(cardId)).thenReturn(Optional.empty());
+        start();
+
+        // When & Then
+        assertThatThrownBy(() -> strategy.spend(cardId, Money.ofUnits(10)).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void currentState_shouldReturnJournaledBalance() throws Exception {
+        // Given
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(transactionRepository.replayAfter(cardId, 5L)).thenReturn(noDelta());
+        start();
+        assertThat(strategy.currentState(card).getBalance()).isEqualByComparingTo(Money.ofUnits(100));
+
+        // When
+        strategy.spend(cardId, Money.ofUnits(40)).join();
+
+        // Then: the row passed in (possibly not materialized yet) is not modified
+        assertThat(strategy.currentState(card).getBalance()).isEqualByComparingTo(Money.ofUnits(60));
+        assertThat(card.getBalance()).isEqualByComparingTo(Money.ofUnits(100));
+    }
+
+    @Test
+    void startup_shouldMaterializeJournalRecordsMissingFromDatabase() throws Exception {
+        // Given: sequences 5 to 7 journaled, the database row already at sequence 5
+        try (MutationJournal journal = new MutationJournal(directory, 1024, 500, 64, entries -> { })) {
+            journal.append(Transaction.TransactionType.SPEND, cardId, 5, Money.ofUnits(10),
+                    Money.ofUnits(100), 1_700_000_000_000L);
+            journal.append(Transaction.TransactionType.SPEND, cardId, 6, Money.ofUnits(10),
+                    Money.ofUnits(90), 1_700_000_000_001L);
+            journal.append(Transaction.TransactionType.TOPUP, cardId, 7, Money.ofUnits(5),
+                    Money.ofUnits(95), 1_700_000_000_002L).join();
+        }
+        when(cardRepository.existsById(cardId)).thenReturn(true);
+        when(transactionRepository.findSequenceNumbers(cardId, List.of(5L, 6L, 7L))).thenReturn(List.of(5L));
+
+        // When
+        start();
+
+        // Then: only sequences 6 and 7 are written, before the strategy is used
+        verify(cardRepository).snapshot(cardId, Money.ofUnits(95), 7L);
+        List<Transaction> transactions = materialized();
+        assertThat(transactions).extracting(Transaction::getSequenceNumber).containsExactly(6L, 7L);
+        assertThat(transactions.get(1).getType()).isEqualTo(Transaction.TransactionType.TOPUP);
+        assertThat(transactions.get(1).getCreatedAt()).isNotNull();
+    }
+
+    @Test
+    void startup_withRecordsOfUnknownCard_shouldSkipThem() throws Exception {
+        // Given
+        try (MutationJournal journal = new MutationJournal(directory, 1024, 500, 64, entries -> { })) {
+            journal.append(Transaction.TransactionType.TOPUP, cardId, 1, Money.ofUnits(5),
+                    Money.ofUnits(5), 1_700_000_000_000L).join();
+        }
+        when(cardRepository.existsById(cardId)).thenReturn(false);
+
+        // When
+        start();
+
+        // Then
+        verify(transactionRepository).saveAll(anyList());
+        assertThat(materialized()).isEmpty();
+        verify(cardRepository, never()).snapshot(any(), any(), anyLong());
+    }
+
+    @Test
+    void concurrentMutations_inSeparateFsyncBatches_shouldBeJournaledInSequenceOrder() throws Exception {
+        // Given: one record per fsync batch
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(transactionRepository.replayAfter(cardId, 5L)).thenReturn(noDelta());
+        start(1000, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<Card>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            results.add(executor.submit(() -> strategy.topUp(cardId, Money.ofUnits(1)).join()));
+        }
+        for (Future<Card> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        strategy.destroy();
+        strategy = null;
+
+        // Then: in the journal, each record of the card follows the one before it in its ledger, so a torn tail
+        // never keeps a record whose balance includes a lost one
+        try (MutationJournal journal = new MutationJournal(directory, 1024, 500, 64, entries -> { })) {
+            List<MutationJournal.Entry> records = journal.recovered();
+            assertThat(records).hasSize(200);
+            for (int i = 0; i < records.size(); i++) {
+                assertThat(records.get(i).cardSequence()).isEqualTo(6L + i);
+                assertThat(records.get(i).balanceAfter()).isEqualByComparingTo(Money.ofUnits(101 + i));
+            }
+        }
+    }
+
+    @Test
+    void append_whenJournalFails_shouldRestoreTheBalance() throws Exception {
+        // Given
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(transactionRepository.replayAfter(cardId, 5L)).thenReturn(noDelta());
+        start();
+        strategy.spend(cardId, Money.ofUnits(30)).join();
+
+        // When: the journal no longer accepts records
+        strategy.destroy();
+        assertThatThrownBy(() -> strategy.spend(cardId, Money.ofUnits(20)).join())
+                .isInstanceOf(CompletionException.class)
+                .hasMessageContaining("Mutation journal is closed");
+
+        // Then: the rejected spend is not part of the balance
+        assertThat(strategy.currentState(card).getBalance()).isEqualByComparingTo(Money.ofUnits(70));
+        strategy = null;
+    }
+
+    @Test
+    void append_whenMaterializationBacklogIsFull_shouldRejectMutations() throws Exception {
+        // Given: the database is down, and up to 2 records may wait for it
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(transactionRepository.replayAfter(cardId, 5L)).thenReturn(noDelta());
+        when(transactionRepository.saveAll(anyList())).thenThrow(new RuntimeException("Database unavailable"));
+        start(2);
+        JournalHealthIndicator health = new JournalHealthIndicator(strategy);
+
+        // When
+        strategy.topUp(cardId, Money.ofUnits(1)).join();
+        strategy.topUp(cardId, Money.ofUnits(1)).join();
+
+        // Then: the next mutation is rejected without being journaled, and the node reports it
+        assertThatThrownBy(() -> strategy.topUp(cardId, Money.ofUnits(1)).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(strategy.currentState(card).getBalance()).isEqualByComparingTo(Money.ofUnits(102));
+        assertThat(health.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(health.health().getDetails()).containsEntry("backlog", 2L);
+    }
+
+    @Test
+    void append_whenJournalCannotBeWritten_shouldRejectMutationsAndReportDown() throws Exception {
+        // Given: segments of 1 record, in a directory removed after the first record
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(transactionRepository.replayAfter(cardId, 5L)).thenReturn(noDelta());
+        Path journalDirectory = directory.resolve("journal");
+        strategy = new JournalBalanceMutationStrategy(cardRepository, transactionRepository, transactionManager,
+                new SimpleMeterRegistry(), new MutationThreadFactory(false), journalDirectory, 1, 500, 64, 100,
+                1000, 1000);
+        strategy.afterPropertiesSet();
+        JournalHealthIndicator health = new JournalHealthIndicator(strategy);
+        strategy.topUp(cardId, Money.ofUnits(1)).join();
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(journalDirectory);
+
+        // When: the next record needs a new segment
+        assertThatThrownBy(() -> strategy.topUp(cardId, Money.ofUnits(1)).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(UncheckedIOException.class);
+
+        // Then: the failed top-up is not part of the balance, later mutations are rejected and the node reports it
+        assertThat(strategy.currentState(card).getBalance()).isEqualByComparingTo(Money.ofUnits(101));
+        assertThatThrownBy(() -> strategy.topUp(cardId, Money.ofUnits(1)).join())
+                .isInstanceOf(CompletionException.class)
+                .hasMessageContaining("Mutation journal is unavailable");
+        assertThat(health.health().getStatus()).isEqualTo(Status.DOWN);
+    }
+}
@@ -0,0 +1,229 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MutationJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final UUID cardId = UUID.randomUUID();
+
+    private MutationJournal open(int segmentRecords, long fsyncIntervalMicros, int fsyncBatchSize,
+                                 List<MutationJournal.Entry> durable) throws IOException {
+        return new MutationJournal(directory, segmentRecords, fsyncIntervalMicros, fsyncBatchSize, durable::addAll);
+    }
+
+    private CompletableFuture<MutationJournal.Entry> topUp(MutationJournal journal, long sequence, Money balance) {
+        return journal.append(Transaction.TransactionType.TOPUP, cardId, sequence, Money.ofUnits(10),
+                balance, 1_700_000_000_000L + sequence);
+    }
+
+    private static void deleteDirectory(Path path) throws IOException {
+        try (Stream<Path> files = Files.list(path)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(path);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    @Test
+    void append_shouldCompleteWithDurableEntryAndNotifyListener() throws IOException {
+        // Given
+        List<MutationJournal.Entry> durable = Collections.synchronizedList(new ArrayList<>());
+        try (MutationJournal journal = open(1024, 1000, 256, durable)) {
+            // When
+            MutationJournal.Entry entry = journal.append(Transaction.TransactionType.SPEND, cardId, 1,
+                    Money.parse("12.34"), Money.parse("87.66"), 1_700_000_000_000L).join();
+
+            // Then
+            assertThat(entry.index()).isEqualTo(1L);
+            assertThat(entry.type()).isEqualTo(Transaction.TransactionType.SPEND);
+            assertThat(entry.cardId()).isEqualTo(cardId);
+            assertThat(entry.amount()).isEqualTo(Money.parse("12.34"));
+            assertThat(entry.balanceAfter()).isEqualTo(Money.parse("87.66"));
+            assertThat(durable).containsExactly(entry);
+            assertThat(journal.syncCount()).isGreaterThanOrEqualTo(1L);
+        }
+    }
+
+    @Test
+    void reopen_shouldRecoverRecordsAndContinueAfterThem() throws IOException {
+        // Given
+        try (MutationJournal journal = open(1024, 1000, 256, new ArrayList<>())) {
+            topUp(journal, 1, Money.ofUnits(110));
+            topUp(journal, 2, Money.ofUnits(120)).join();
+        }
+
+        // When
+        try (MutationJournal journal = open(1024, 1000, 256, new ArrayList<>())) {
+            // Then
+            assertThat(journal.recovered()).extracting(MutationJournal.Entry::cardSequence).containsExactly(1L, 2L);
+            assertThat(journal.recovered().get(1).balanceAfter()).isEqualByComparingTo(Money.ofUnits(120));
+            assertThat(journal.recovered().get(1).timestampMillis()).isEqualTo(1_700_000_000_002L);
+            assertThat(topUp(journal, 3, Money.ofUnits(130)).join().index()).isEqualTo(3L);
+        }
+    }
+
+    @Test
+    void reopen_withTornRecord_shouldKeepOnlyTheValidPrefix() throws IOException {
+        // Given: 3 records, the second one partially overwritten
+        try (MutationJournal journal = open(1024, 1000, 256, new ArrayList<>())) {
+            for (int sequence = 1; sequence <= 3; sequence++) {
+                topUp(journal, sequence, Money.ofUnits(100 + 10 * sequence)).join();
+            }
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segmentFiles().get(0).toFile(), "rw")) {
+            file.seek(MutationJournal.RECORD_SIZE + 20);
+            file.write(new byte[]{1, 2, 3});
+        }
+
+        // When
+        try (MutationJournal journal = open(1024, 1000, 256, new ArrayList<>())) {
+            // Then: the records after the torn one are discarded and their slots reused
+            assertThat(journal.recovered()).extracting(MutationJournal.Entry::index).containsExactly(1L);
+            assertThat(topUp(journal, 2, Money.ofUnits(120)).join().index()).isEqualTo(2L);
+        }
+        try (MutationJournal journal = open(1024, 1000, 256, new ArrayList<>())) {
+            assertThat(journal.recovered()).extracting(MutationJournal.Entry::index).containsExactly(1L, 2L);
+        }
+    }
+
+    @Test
+    void reopen_withRecordAtAnotherScale_shouldFail() throws IOException {
+        // Given: a valid record (CRC included) whose amounts are at scale 3
+        try (MutationJournal journal = open(1024, 1000, 256, new ArrayList<>())) {
+            topUp(journal, 1, Money.ofUnits(110)).join();
+        }
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer record = ByteBuffer.allocate(MutationJournal.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(record, 0);
+            record.put(5, (byte) 3);
+            record.put(6, (byte) 3);
+            CRC32C crc = new CRC32C();
+            crc.update(record.slice(4, MutationJournal.RECORD_SIZE - 4));
+            record.putInt(0, (int) crc.getValue());
+            channel.write(record.rewind(), 0);
+        }
+
+        // When & Then: the amounts are not reinterpreted, nor is the record discarded as torn
+        assertThatThrownBy(() -> open(1024, 1000, 256, new ArrayList<>()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("scale 3");
+    }
+
+    @Test
+    void append_beyondSegmentCapacity_shouldRollOverToNewSegment() throws IOException {
+        // Given: segments of 4 records
+        try (MutationJournal journal = open(4, 1000, 256, new ArrayList<>())) {
+            // When
+            for (int sequence = 1; sequence <= 10; sequence++) {
+                topUp(journal, sequence, Money.ofUnits(100 + 10 * sequence));
+            }
+            assertThat(topUp(journal, 11, Money.ofUnits(210)).join().index()).isEqualTo(11L);
+        }
+
+        // Then
+        assertThat(segmentFiles()).extracting(path -> path.getFileName().toString())
+                .containsExactly("00000000000000000001.journal", "00000000000000000005.journal",
+                        "00000000000000000009.journal");
+        try (MutationJournal journal = open(4, 1000, 256, new ArrayList<>())) {
+            assertThat(journal.recovered()).hasSize(11);
+            assertThat(journal.lastIndex()).isEqualTo(11L);
+        }
+    }
+
+    @Test
+    void append_whenNextSegmentCannotBeCreated_shouldFailTheJournal() throws IOException {
+        // Given: segments of 1 record, in a directory removed after the first record
+        Path journalDirectory = directory.resolve("journal");
+        try (MutationJournal journal = new MutationJournal(journalDirectory, 1, 1000, 256, entries -> {})) {
+            topUp(journal, 1, Money.ofUnits(110)).join();
+            deleteDirectory(journalDirectory);
+
+            // When: the second record needs a new segment
+            CompletableFuture<MutationJournal.Entry> second = topUp(journal, 2, Money.ofUnits(120));
+
+            // Then: it is not acknowledged, and every later append is rejected
+            assertThatThrownBy(second::join)
+                    .isInstanceOf(CompletionException.class)
+                    .hasCauseInstanceOf(UncheckedIOException.class);
+            assertThat(journal.failure()).isNotNull();
+            assertThatThrownBy(() -> topUp(journal, 3, Money.ofUnits(130)))
+                    .isInstanceOf(UncheckedIOException.class)
+                    .hasMessageContaining("Mutation journal is unavailable");
+        }
+    }
+
+    @Test
+    void release_shouldDeleteOnlyFullyReleasedSegments() throws IOException {
+        // Given: records 1-4, 5-8 and 9-10
+        try (MutationJournal journal = open(4, 1000, 256, new ArrayList<>())) {
+            for (int sequence = 1; sequence <= 10; sequence++) {
+                topUp(journal, sequence, Money.ofUnits(100 + 10 * sequence)).join();
+            }
+
+            // When: up to record 7, then up to the last record
+            journal.release(7);
+            assertThat(segmentFiles()).hasSize(2);
+            journal.release(10);
+
+            // Then: the segment being written is kept
+            assertThat(segmentFiles()).extracting(path -> path.getFileName().toString())
+                    .containsExactly("00000000000000000009.journal");
+        }
+        try (MutationJournal journal = open(4, 1000, 256, new ArrayList<>())) {
+            assertThat(journal.recovered()).extracting(MutationJournal.Entry::index).containsExactly(9L, 10L);
+        }
+    }
+
+    @Test
+    void concurrentAppends_shouldShareFsyncs() throws Exception {
+        // Given: a 5 ms fsync interval
+        List<MutationJournal.Entry> durable = Collections.synchronizedList(new ArrayList<>());
+        try (MutationJournal journal = open(1024, 5000, 64, durable)) {
+            // When: 200 appends without waiting for each one
+            List<CompletableFuture<MutationJournal.Entry>> futures = new ArrayList<>();
+            for (int sequence = 1; sequence <= 200; sequence++) {
+                futures.add(topUp(journal, sequence, Money.ofUnits(100 + sequence)));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+            // Then: fewer fsyncs than records, listener notified once per record in index order
+            assertThat(journal.syncCount()).isLessThan(200L);
+            assertThat(durable).extracting(MutationJournal.Entry::index).isSorted().hasSize(200);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MutationRingTest {
+
+    private static final class Slot {
+        long value;
+        boolean firstStageDone;
+    }
+
+    @Test
+    void stages_shouldProcessEverySlotInStageOrder() throws Exception {
+        // Given: a small ring, so that producers wrap around many times
+        MutationRing<Slot> ring = new MutationRing<>(8, Slot::new, 2);
+        int producers = 4;
+        int perProducer = 2_000;
+        AtomicLong sum = new AtomicLong();
+        AtomicLong outOfOrder = new AtomicLong();
+
+        Thread first = new Thread(() -> {
+            long next = 0;
+            long available;
+            while ((available = ring.waitFor(0, next)) >= 0) {
+                for (long sequence = next; sequence <= available; sequence++) {
+                    ring.get(sequence).firstStageDone = true;
+                }
+                ring.advance(0, available);
+                next = available + 1;
+            }
+        });
+        Thread second = new Thread(() -> {
+            long next = 0;
+            long available;
+            while ((available = ring.waitFor(1, next)) >= 0) {
+                for (long sequence = next; sequence <= available; sequence++) {
+                    Slot slot = ring.get(sequence);
+                    if (!slot.firstStageDone) {
+                        outOfOrder.incrementAndGet();
+                    }
+                    sum.addAndGet(slot.value);
+                    slot.firstStageDone = false;
+                }
+                ring.advance(1, available);
+                next = available + 1;
+            }
+        });
+        first.start();
+        second.start();
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            executor.execute(() -> {
+                for (int i = 1; i <= perProducer; i++) {
+                    long sequence;
+                    while (true) {
+                        try {
+                            sequence = ring.claim();
+                            break;
+                        } catch (RejectedExecutionException full) {
+                            Thread.onSpinWait(); // Ring full: try again once the stages have moved on
+                        }
+                    }
+                    ring.get(sequence).value = i;
+                    ring.publish(sequence);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        long last = (long) producers * perProducer - 1;
+        while (ring.processed(1) < last) {
+            Thread.sleep(1);
+        }
+        ring.halt();
+        first.join();
+        second.join();
+
+        // Then
+        assertThat(sum.get()).isEqualTo(producers * (long) perProducer * (perProducer + 1) / 2);
+        assertThat(outOfOrder.get()).isZero();
+    }
+
+    @Test
+    void claim_whenRingIsFull_shouldBeRejectedUntilLastStageReleasesASlot() {
+        // Given: both slots published, none processed
+        MutationRing<Slot> ring = new MutationRing<>(2, Slot::new, 1);
+        ring.publish(ring.claim());
+        ring.publish(ring.claim());
+
+        // When & Then: the claim fails without waiting, and does not use up a sequence
+        assertThatThrownBy(ring::claim).isInstanceOf(RejectedExecutionException.class).hasMessageContaining("full");
+        assertThat(ring.claimed()).isEqualTo(1L);
+
+        // And: the slot of sequence 0 is reused once the stage is done with it
+        assertThat(ring.waitFor(0, 0)).isEqualTo(1L);
+        ring.advance(0, 0);
+        assertThat(ring.claim()).isEqualTo(2L);
+        assertThat(ring.get(2)).isSameAs(ring.get(0));
+    }
+
+    @Test
+    void waitFor_firstStage_shouldOnlyReturnContiguousPublishedSequences() {
+        // Given: sequences 0 to 2 claimed, 1 not published yet
+        MutationRing<Slot> ring = new MutationRing<>(8, Slot::new, 1);
+        long s0 = ring.claim();
+        long s1 = ring.claim();
+        long s2 = ring.claim();
+        ring.publish(s0);
+        ring.publish(s2);
+
+        // When & Then
+        assertThat(ring.waitFor(0, 0)).isEqualTo(0L);
+        ring.publish(s1);
+        assertThat(ring.waitFor(0, 1)).isEqualTo(2L);
+    }
+
+    @Test
+    void halt_shouldReleaseWaitingStagesAndRejectClaims() throws Exception {
+        // Given
+        MutationRing<Slot> ring = new MutationRing<>(4, Slot::new, 1);
+        CompletableFuture<Long> waiting = CompletableFuture.supplyAsync(() -> ring.waitFor(0, 0));
+        Thread.sleep(20);
+
+        // When
+        ring.halt();
+
+        // Then
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isEqualTo(-1L);
+        assertThatThrownBy(ring::claim).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void constructor_withSizeNotPowerOfTwo_shouldBeRejected() {
+        assertThatThrownBy(() -> new MutationRing<>(1000, Slot::new, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,175 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetrySchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RetryScheduler retryScheduler;
+
+    @AfterEach
+    void tearDown() {
+        retryScheduler.destroy();
+    }
+
+    @Test
+    void execute_shouldRetryOnTimerThreadAfterVersionConflict() {
+        // Given: an operation that conflicts once
+        retryScheduler = new RetryScheduler(Runnable::run, meterRegistry, 5, 50, 2000, 100);
+        AtomicInteger attempts = new AtomicInteger();
+        String callerThread = Thread.currentThread().getName();
+
+        // When
+        CompletableFuture<String> result = retryScheduler.execute("spend transaction", 3, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new OptimisticLockingFailureException("Version conflict");
+            }
+            return Thread.currentThread().getName();
+        });
+
+        // Then: the retry did not run on the caller thread
+        assertThat(result.join()).isNotEqualTo(callerThread);
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(meterRegistry.get("card.balance.retries").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("card.balance.retry.wait").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_shouldNotRetryBusinessErrors() {
+        // Given
+        retryScheduler = new RetryScheduler(Runnable::run, meterRegistry, 5, 50, 2000, 100);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        CompletableFuture<String> result = retryScheduler.execute("spend transaction", 3, () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("Insufficient balance");
+        });
+
+        // Then
+        assertThatThrownBy(result::join)
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_whenDeadlineTooShort_shouldGiveUpWithConcurrentModification() {
+        // Given: every backoff delay is beyond the 0 ms deadline
+        retryScheduler = new RetryScheduler(Runnable::run, meterRegistry, 1000, 1000, 0, 100);
+
+        // When
+        CompletableFuture<String> result = retryScheduler.execute("top-up transaction", 3, () -> {
+            throw new OptimisticLockingFailureException("Version conflict");
+        });
+
+        // Then (a zero delay would still fit, so accept either deadline or attempts as the reason)
+        assertThatThrownBy(result::join)
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .hasMessageContaining("Unable to complete top-up transaction")
+                .hasMessageContaining("due to concurrent modifications");
+    }
+
+    @Test
+    void execute_withTag_shouldTagMetricsWithItAndDescribeTheFailureWithTheDescription() {
+        // Given
+        retryScheduler = new RetryScheduler(Runnable::run, meterRegistry, 0, 0, 2000, 100);
+
+        // When
+        CompletableFuture<String> result = retryScheduler.execute("batch transaction", "batch of 12 transactions", 2,
+                () -> {
+                    throw new OptimisticLockingFailureException("Version conflict");
+                });
+
+        // Then
+        assertThatThrownBy(result::join)
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .hasMessageContaining("Unable to complete batch of 12 transactions");
+        assertThat(meterRegistry.get("card.balance.retries").tag("operation", "batch transaction").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("card.balance.retries.rejected").tag("operation", "batch transaction")
+                .counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.find("card.balance.retries").tag("operation", "batch of 12 transactions").counter())
+                .isNull();
+    }
+
+    @Test
+    void execute_whenCardLockHeld_shouldRunAgainWithoutUsingAnAttemptOrTheBudget() {
+        // Given: the card lock is held during the first two calls, and no retry budget is left
+        retryScheduler = new RetryScheduler(Runnable::run, meterRegistry, 5, 50, 2000, 0);
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        CompletableFuture<String> result = retryScheduler.execute("spend transaction", 1, () -> {
+            if (calls.incrementAndGet() <= 2) {
+                throw new CannotAcquireLockException("Card lock held");
+            }
+            return "applied";
+        });
+
+        // Then
+        assertThat(result.join()).isEqualTo("applied");
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(meterRegistry.find("card.balance.retries").counter()).isNull();
+    }
+
+    @Test
+    void execute_whenCardLockHeldUntilDeadline_shouldGiveUpWithConcurrentModification() {
+        // Given: every delay is beyond the 0 ms deadline
+        retryScheduler = new RetryScheduler(Runnable::run, meterRegistry, 1000, 1000, 0, 100);
+
+        // When
+        CompletableFuture<String> result = retryScheduler.execute("spend transaction", 3, () -> {
+            throw new CannotAcquireLockException("Card lock held");
+        });
+
+        // Then (a zero delay would still fit, in which case the lock is tried again until the delay does not)
+        assertThatThrownBy(result::join)
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .hasMessageContaining("Unable to complete spend transaction")
+                .hasMessageContaining("due to concurrent modifications");
+        assertThat(meterRegistry.get("card.balance.retries.rejected").tag("reason", "lock").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void tryAcquireBudget_shouldLimitRetriesPerSecond() {
+        retryScheduler = new RetryScheduler(Runnable::run, meterRegistry, 5, 50, 2000, 3);
+
+        int granted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (retryScheduler.tryAcquireBudget()) {
+                granted++;
+            }
+        }
+
+        // Allow for a second boundary between calls
+        assertThat(granted).isBetween(3, 6);
+    }
+
+    @Test
+    void fullJitterDelay_shouldStayWithinExponentialCeiling() {
+        retryScheduler = new RetryScheduler(Runnable::run, meterRegistry, 10, 50, 2000, 100);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(retryScheduler.fullJitterDelay(1)).isBetween(0L, 10L);
+            assertThat(retryScheduler.fullJitterDelay(2)).isBetween(0L, 20L);
+            assertThat(retryScheduler.fullJitterDelay(10)).isBetween(0L, 50L);
+        }
+    }
+}
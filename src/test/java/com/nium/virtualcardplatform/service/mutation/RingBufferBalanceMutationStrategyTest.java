@@ -0,0 +1,210 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RingBufferBalanceMutationStrategyTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RingBufferBalanceMutationStrategy strategy;
+    private UUID cardId;
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        strategy = strategy(1000);
+        cardId = UUID.randomUUID();
+        card = new Card("John Doe", Money.ofUnits(100));
+        card.setId(cardId);
+        card.setVersion(1L);
+    }
+
+    private RingBufferBalanceMutationStrategy strategy(int maxCachedCards) {
+        return new RingBufferBalanceMutationStrategy(cardRepository, transactionRepository, transactionManager,
+                new SimpleMeterRegistry(), new MutationThreadFactory(false), 16, 8, maxCachedCards);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        strategy.destroy();
+    }
+
+    private static TransactionRepository.LedgerDelta noDelta() {
+        return new TransactionRepository.LedgerDelta() {
+            @Override
+            public BigDecimal getDelta() {
+                return BigDecimal.ZERO;
+            }
+
+            @Override
+            public Long getLastSequence() {
+                return null;
+            }
+        };
+    }
+
+    private void givenCardInDatabase() {
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(transactionRepository.replayAfter(cardId, 0L)).thenReturn(noDelta());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Transaction> persisted() {
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository, atLeastOnce()).saveAll(captor.capture());
+        List<Transaction> transactions = new ArrayList<>();
+        captor.getAllValues().forEach(transactions::addAll);
+        return transactions;
+    }
+
+    @Test
+    void spendAndTopUp_shouldPersistBeforeCompletingAndTrackRowVersion() {
+        // Given
+        givenCardInDatabase();
+        when(cardRepository.storeBalance(eq(cardId), any(Money.class), anyLong(), anyLong())).thenReturn(1);
+
+        // When
+        Card afterSpend = strategy.spend(cardId, Money.ofUnits(30)).join();
+        Card afterTopUp = strategy.topUp(cardId, Money.ofUnits(5)).join();
+
+        // Then: each write expects the version written by the previous one
+        assertThat(afterSpend.getBalance()).isEqualByComparingTo(Money.ofUnits(70));
+        assertThat(afterSpend.getVersion()).isEqualTo(2L);
+        assertThat(afterTopUp.getBalance()).isEqualByComparingTo(Money.ofUnits(75));
+        assertThat(afterTopUp.getVersion()).isEqualTo(3L);
+        verify(cardRepository).storeBalance(cardId, Money.ofUnits(70), 1L, 1L);
+        verify(cardRepository).storeBalance(cardId, Money.ofUnits(75), 2L, 2L);
+        assertThat(persisted()).extracting(Transaction::getSequenceNumber).containsExactly(1L, 2L);
+        verify(cardRepository, times(1)).findById(cardId);
+    }
+
+    @Test
+    void concurrentCommands_shouldBeAppliedInOrderAndPersistedInBatches() {
+        // Given
+        givenCardInDatabase();
+        when(cardRepository.storeBalance(eq(cardId), any(Money.class), anyLong(), anyLong())).thenReturn(1);
+
+        // When: 100 spends published without waiting, more than the ring holds
+        List<CompletableFuture<Card>> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            results.add(strategy.spend(cardId, Money.ofUnits(1)));
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).exceptionally(error -> null).join();
+
+        // Then: the commands published while the ring was full are rejected, the others applied in order
+        List<Card> accepted = new ArrayList<>();
+        for (CompletableFuture<Card> result : results) {
+            try {
+                accepted.add(result.join());
+            } catch (CompletionException e) {
+                assertThat(e).hasCauseInstanceOf(RejectedExecutionException.class);
+            }
+        }
+        assertThat(accepted).last().extracting(Card::getBalance)
+                .isEqualTo(Money.ofUnits(100).subtract(Money.ofUnits(accepted.size())));
+        assertThat(persisted()).extracting(Transaction::getSequenceNumber)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, accepted.size()).boxed().toList());
+        verify(cardRepository, atMost(accepted.size()))
+                .storeBalance(eq(cardId), any(Money.class), anyLong(), anyLong());
+    }
+
+    @Test
+    void spend_withInsufficientBalance_shouldFailWithIllegalStateException() {
+        // Given
+        givenCardInDatabase();
+
+        // When & Then
+        assertThatThrownBy(() -> strategy.spend(cardId, Money.ofUnits(150)).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        verify(cardRepository, never()).storeBalance(any(UUID.class), any(Money.class), anyLong(), anyLong());
+    }
+
+    @Test
+    void spend_onNonExistentCard_shouldFailWithIllegalArgumentException() {
+        // Given
+        when(cardRepository.findById(cardId)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> strategy.spend(cardId, Money.ofUnits(10)).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void spend_whenCardModifiedByAnotherWriter_shouldRejectThenReloadCard() {
+        // Given: the first write finds a newer row version
+        givenCardInDatabase();
+        when(cardRepository.storeBalance(eq(cardId), any(Money.class), anyLong(), anyLong()))
+                .thenReturn(0)
+                .thenReturn(1);
+
+        // When & Then
+        assertThatThrownBy(() -> strategy.spend(cardId, Money.ofUnits(10)).join())
+                .isInstanceOf(CompletionException.class)
+                .hasMessageContaining("concurrent modifications");
+
+        // And: the next command starts again from the database row
+        Card result = strategy.spend(cardId, Money.ofUnits(10)).join();
+        assertThat(result.getBalance()).isEqualByComparingTo(Money.ofUnits(90));
+        verify(cardRepository, times(2)).findById(cardId);
+    }
+
+    @Test
+    void persist_beyondMaxCachedCards_shouldEvictWrittenCardsAndReloadThemWhenUsed() throws InterruptedException {
+        // Given: no card kept in memory once written
+        strategy.destroy();
+        strategy = strategy(0);
+        givenCardInDatabase();
+        when(cardRepository.storeBalance(eq(cardId), any(Money.class), anyLong(), anyLong())).thenReturn(1);
+
+        // When
+        strategy.spend(cardId, Money.ofUnits(30)).join();
+        card.setBalance(Money.ofUnits(70)); // As stored by the spend
+        card.setVersion(2L);
+        Card result = strategy.spend(cardId, Money.ofUnits(20)).join();
+
+        // Then: the second command starts again from the database row, with the version written by the first
+        assertThat(result.getBalance()).isEqualByComparingTo(Money.ofUnits(50));
+        verify(cardRepository, times(2)).findById(cardId);
+        verify(cardRepository).storeBalance(cardId, Money.ofUnits(50), 1L, 2L);
+    }
+}
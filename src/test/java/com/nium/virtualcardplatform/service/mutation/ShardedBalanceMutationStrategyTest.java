@@ -0,0 +1,119 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import com.nium.virtualcardplatform.model.Card;
+import com.nium.virtualcardplatform.model.Money;
+import com.nium.virtualcardplatform.model.Transaction;
+import com.nium.virtualcardplatform.repository.CardRepository;
+import com.nium.virtualcardplatform.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedBalanceMutationStrategyTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ShardedBalanceMutationStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        strategy = new ShardedBalanceMutationStrategy(cardRepository, transactionRepository, transactionManager,
+                new MutationThreadFactory(false), 4, 100);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        strategy.destroy();
+    }
+
+    @Test
+    void shardIndex_shouldBeStablePerCardAndSpreadAcrossShards() {
+        Set<Integer> usedShards = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            UUID cardId = UUID.randomUUID();
+            int shard = strategy.shardIndex(cardId);
+            assertThat(strategy.shardIndex(cardId)).isEqualTo(shard);
+            assertThat(shard).isBetween(0, strategy.shardCount() - 1);
+            usedShards.add(shard);
+        }
+        assertThat(usedShards).hasSize(4);
+    }
+
+    @Test
+    void spend_shouldApplyOnShardThreadAndRecordTransaction() {
+        // Given
+        UUID cardId = UUID.randomUUID();
+        Card card = new Card("John Doe", Money.ofUnits(100));
+        card.setId(cardId);
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.save(any(Card.class))).thenAnswer(invocation -> {
+            assertThat(Thread.currentThread().getName()).startsWith("balance-shard-");
+            return invocation.getArgument(0);
+        });
+
+        // When
+        Card result = strategy.spend(cardId, Money.ofUnits(30)).join();
+
+        // Then
+        assertThat(result.getBalance()).isEqualByComparingTo(Money.ofUnits(70));
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+    }
+
+    @Test
+    void spend_withInsufficientBalance_shouldPropagateBusinessError() {
+        // Given
+        UUID cardId = UUID.randomUUID();
+        Card card = new Card("John Doe", Money.ofUnits(10));
+        card.setId(cardId);
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+
+        // When & Then
+        assertThatThrownBy(() -> strategy.spend(cardId, Money.ofUnits(30)).join())
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Insufficient balance for card ID: " + cardId);
+        verify(cardRepository, never()).save(any(Card.class));
+    }
+
+    @Test
+    void topUp_withVersionConflictFromAnotherNode_shouldReportConcurrentModification() {
+        // Given
+        UUID cardId = UUID.randomUUID();
+        Card card = new Card("John Doe", Money.ofUnits(10));
+        card.setId(cardId);
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.save(any(Card.class))).thenThrow(new OptimisticLockingFailureException("Version conflict"));
+
+        // When & Then
+        assertThatThrownBy(() -> strategy.topUp(cardId, Money.ofUnits(30)).join())
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .hasMessageContaining("concurrent modifications");
+        verify(cardRepository, times(1)).save(any(Card.class));
+    }
+}
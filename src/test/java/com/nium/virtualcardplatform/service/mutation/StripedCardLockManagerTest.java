@@ -0,0 +1,113 @@
+package com.nium.virtualcardplatform.service.mutation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StripedCardLockManagerTest {
+
+    @Test
+    void runLocked_shouldNeverRunTwoActionsOfTheSameCardAtOnce() throws InterruptedException {
+        // Given
+        StripedCardLockManager lockManager = new StripedCardLockManager(true, 8);
+        UUID cardId = UUID.randomUUID();
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        int tasks = 50;
+        CountDownLatch done = new CountDownLatch(tasks);
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+
+        // When: each task tries again until it gets the lock, as the RetryScheduler would
+        for (int i = 0; i < tasks; i++) {
+            executor.submit(() -> {
+                try {
+                    while (true) {
+                        try {
+                            lockManager.runLocked(cardId, () -> {
+                                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                                sleepQuietly(1);
+                                return inside.decrementAndGet();
+                            });
+                            return;
+                        } catch (CannotAcquireLockException e) {
+                            sleepQuietly(1);
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        // Then
+        assertThat(maxInside.get()).isEqualTo(1);
+        assertThat(lockManager.getTotalContendedAcquisitions()).isPositive();
+        assertThat(lockManager.getTotalAcquisitions())
+                .isEqualTo(tasks + lockManager.getTotalContendedAcquisitions());
+
+        List<StripedCardLockManager.StripeStats> hottest = lockManager.getHottestStripes(5);
+        assertThat(hottest).hasSize(1);
+        assertThat(hottest.get(0).stripe()).isEqualTo(lockManager.stripeIndex(cardId));
+        assertThat(hottest.get(0).held()).isFalse();
+    }
+
+    @Test
+    void runLocked_whenStripeHeld_shouldFailWithoutWaiting() throws InterruptedException {
+        // Given: another thread holds the card's stripe
+        StripedCardLockManager lockManager = new StripedCardLockManager(true, 8);
+        UUID cardId = UUID.randomUUID();
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> lockManager.runLocked(cardId, () -> {
+            held.countDown();
+            awaitQuietly(release);
+            return null;
+        }));
+        holder.start();
+        assertThat(held.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When & Then
+        assertThatThrownBy(() -> lockManager.runLocked(cardId, () -> "never"))
+                .isInstanceOf(CannotAcquireLockException.class);
+        assertThat(lockManager.getTotalContendedAcquisitions()).isEqualTo(1);
+        assertThat(lockManager.getHottestStripes(1).get(0).held()).isTrue();
+
+        release.countDown();
+        holder.join();
+    }
+
+    @Test
+    void constructor_withNonPositiveStripeCount_shouldThrowIllegalArgumentException() {
+        assertThatThrownBy(() -> new StripedCardLockManager(true, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Stripe count must be a positive number.");
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}